@@ -0,0 +1,121 @@
+package io.packable.rpc;
+
+import io.packable.PackFrameCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * 一个 TCP 连接：读取的数据用 PackFrameCodec 拆分为帧，发送的帧先合并，再由 selector 线程批量写入。
+ */
+final class Connection implements EventLoop.Handler {
+    static final int FRAME_OPTIONS = PackFrameCodec.VARINT_HEADER | PackFrameCodec.FLAGS;
+
+    interface Listener {
+        /**
+         * 在 selector 线程中回调，array 只在回调期间有效
+         */
+        void onFrame(Connection connection, byte[] array, int offset, int len, int flags);
+
+        void onClosed(Connection connection, Throwable cause);
+    }
+
+    private final SocketChannel channel;
+    private final EventLoop loop;
+    private final Listener listener;
+    private final PackFrameCodec reader = new PackFrameCodec(FRAME_OPTIONS);
+    private final PackFrameCodec writer = new PackFrameCodec(FRAME_OPTIONS);
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(1 << 16);
+    private final PackFrameCodec.FrameHandler frameHandler;
+    private SelectionKey key;
+    private boolean closed;
+
+    // 已经提交了 flush 任务，还未执行（由 writer 的锁保护）
+    private boolean flushScheduled;
+
+    Connection(SocketChannel channel, EventLoop loop, Listener listener) {
+        this.channel = channel;
+        this.loop = loop;
+        this.listener = listener;
+        this.frameHandler = (array, offset, len, flags) -> listener.onFrame(this, array, offset, len, flags);
+    }
+
+    /**
+     * 在 selector 线程中调用
+     */
+    void register() throws IOException {
+        key = loop.register(channel, SelectionKey.OP_READ, this);
+    }
+
+    /**
+     * 发送一帧（可以在任意线程调用）。
+     * 在 selector 线程执行 flush 之前提交的帧，会合并为一次写入。
+     */
+    void send(byte[] frame, int flags) {
+        synchronized (writer) {
+            writer.add(frame, 0, frame.length, flags);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        loop.execute(this::flush);
+    }
+
+    private void flush() {
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        try {
+            synchronized (writer) {
+                flushScheduled = false;
+                writer.flush(channel);
+                key.interestOps(writer.hasPending()
+                        ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            }
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    @Override
+    public void onReady(SelectionKey key) throws IOException {
+        if (key.isReadable()) {
+            int n = channel.read(readBuffer);
+            if (n < 0) {
+                close(null);
+                return;
+            }
+            readBuffer.flip();
+            reader.feed(readBuffer, frameHandler);
+            readBuffer.clear();
+        }
+        if (key.isValid() && key.isWritable()) {
+            flush();
+        }
+    }
+
+    @Override
+    public void onClosed(Throwable cause) {
+        if (!closed) {
+            closed = true;
+            listener.onClosed(this, cause);
+        }
+    }
+
+    /**
+     * 在 selector 线程中调用
+     */
+    void close(Throwable cause) {
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        onClosed(cause);
+    }
+}
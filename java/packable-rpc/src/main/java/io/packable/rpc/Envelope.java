@@ -0,0 +1,62 @@
+package io.packable.rpc;
+
+import io.packable.PackDecoder;
+import io.packable.PackEncoder;
+import io.packable.TypeAdapter;
+
+/**
+ * 请求/响应的信封：每一帧的 payload 是一个 Packable 对象
+ * <pre>
+ * 0: id      调用的关联 id，响应与请求相同
+ * 1: method  方法名（仅请求）
+ * 2: body    请求或响应对象
+ * 3: error   错误信息（仅错误响应）
+ * </pre>
+ * 帧的 flags 区分类型：{@link #REQUEST}, {@link #RESPONSE}, {@link #ERROR}
+ */
+final class Envelope {
+    static final int REQUEST = 0;
+    static final int RESPONSE = 1;
+    static final int ERROR = 2;
+
+    private Envelope() {
+    }
+
+    static <T> byte[] request(long id, String method, T body, TypeAdapter<T> adapter) {
+        return new PackEncoder()
+                .putLong(0, id)
+                .putString(1, method)
+                .putObject(2, body, adapter)
+                .toBytes();
+    }
+
+    static <T> byte[] response(long id, T body, TypeAdapter<T> adapter) {
+        return new PackEncoder()
+                .putLong(0, id)
+                .putObject(2, body, adapter)
+                .toBytes();
+    }
+
+    static byte[] error(long id, String message) {
+        return new PackEncoder()
+                .putLong(0, id)
+                .putString(3, message)
+                .toBytes();
+    }
+
+    static long getId(PackDecoder decoder) {
+        return decoder.getLong(0);
+    }
+
+    static String getMethod(PackDecoder decoder) {
+        return decoder.getString(1);
+    }
+
+    static <T> T getBody(PackDecoder decoder, TypeAdapter<T> adapter) {
+        return decoder.getObject(2, adapter);
+    }
+
+    static String getError(PackDecoder decoder) {
+        return decoder.getString(3);
+    }
+}
@@ -0,0 +1,110 @@
+package io.packable.rpc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Selector 线程：负责所有 channel 的 accept/read/write。
+ * <br>
+ * 其他线程通过 {@link #execute} 提交任务到这个线程执行（例如注册 channel、发送数据）。
+ */
+final class EventLoop implements Runnable, Closeable {
+    interface Handler {
+        void onReady(SelectionKey key) throws IOException;
+
+        void onClosed(Throwable cause);
+    }
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    EventLoop(String name) throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    SelectionKey register(SelectableChannel channel, int ops, Handler handler) throws IOException {
+        channel.configureBlocking(false);
+        return channel.register(selector, ops, handler);
+    }
+
+    @Override
+    public void run() {
+        while (!closed) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                break;
+            }
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException ignored) {
+                    // 任务自行处理 IO 异常，这里只保证 selector 线程不会退出
+                }
+            }
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                Handler handler = (Handler) key.attachment();
+                try {
+                    if (key.isValid()) {
+                        handler.onReady(key);
+                    }
+                } catch (Exception e) {
+                    closeKey(key, e);
+                }
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            closeKey(key, null);
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void closeKey(SelectionKey key, Throwable cause) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+        }
+        ((Handler) key.attachment()).onClosed(cause);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        if (!inLoop()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package io.packable.rpc;
+
+import io.packable.PackDecoder;
+import io.packable.TypeAdapter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RpcClient
+ * <br>
+ * 一个连接上可以同时有多个调用（pipelining），每个调用分配一个 id，响应通过 id 找到对应的调用。
+ * 并发提交的请求会合并为一次写入。
+ * <br>
+ * 响应在 selector 线程中解码并完成 future，future 的回调不宜执行耗时的操作（可以使用 xxxAsync）。
+ * <br>
+ * 线程安全。
+ */
+public final class RpcClient implements Closeable {
+    private static final class Call<R> {
+        final CompletableFuture<R> future = new CompletableFuture<>();
+        final TypeAdapter<R> responseAdapter;
+
+        Call(TypeAdapter<R> responseAdapter) {
+            this.responseAdapter = responseAdapter;
+        }
+
+        void complete(PackDecoder decoder) {
+            try {
+                future.complete(Envelope.getBody(decoder, responseAdapter));
+            } catch (Exception e) {
+                future.completeExceptionally(new RpcException("invalid response", e));
+            }
+        }
+    }
+
+    private final EventLoop loop;
+    private final Connection connection;
+    private final AtomicLong nextId = new AtomicLong();
+    private final Map<Long, Call<?>> calls = new ConcurrentHashMap<>();
+    private volatile RpcException closedCause;
+
+    private final Connection.Listener listener = new Connection.Listener() {
+        @Override
+        public void onFrame(Connection connection, byte[] array, int offset, int len, int flags) {
+            PackDecoder decoder = new PackDecoder(array, offset, len);
+            Call<?> call = calls.remove(Envelope.getId(decoder));
+            if (call == null) {
+                return;
+            }
+            if (flags == Envelope.RESPONSE) {
+                call.complete(decoder);
+            } else {
+                call.future.completeExceptionally(new RpcException(Envelope.getError(decoder)));
+            }
+        }
+
+        @Override
+        public void onClosed(Connection connection, Throwable cause) {
+            failAll(cause == null ? new RpcException("connection closed")
+                    : new RpcException("connection closed", cause));
+        }
+    };
+
+    private RpcClient(SocketChannel channel) throws IOException {
+        loop = new EventLoop("rpc-client");
+        connection = new Connection(channel, loop, listener);
+        loop.execute(() -> {
+            try {
+                connection.register();
+            } catch (IOException e) {
+                connection.close(e);
+            }
+        });
+    }
+
+    public static RpcClient connect(InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        return new RpcClient(channel);
+    }
+
+    /**
+     * 发起调用，不等待响应。
+     * 服务端处理失败或者连接断开时，future 以 {@link RpcException} 结束。
+     */
+    public <Q, R> CompletableFuture<R> call(String method, Q request,
+                                            TypeAdapter<Q> requestAdapter, TypeAdapter<R> responseAdapter) {
+        long id = nextId.incrementAndGet();
+        Call<R> call = new Call<>(responseAdapter);
+        byte[] frame = Envelope.request(id, method, request, requestAdapter);
+        calls.put(id, call);
+        // 检查放在 put 之后，保证 failAll 之后加入的调用也能结束
+        RpcException cause = closedCause;
+        if (cause != null) {
+            calls.remove(id);
+            call.future.completeExceptionally(cause);
+            return call.future;
+        }
+        connection.send(frame, Envelope.REQUEST);
+        return call.future;
+    }
+
+    private void failAll(RpcException cause) {
+        closedCause = cause;
+        for (Long id : calls.keySet()) {
+            Call<?> call = calls.remove(id);
+            if (call != null) {
+                call.future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        loop.execute(() -> connection.close(null));
+        loop.close();
+        failAll(new RpcException("client closed"));
+    }
+}
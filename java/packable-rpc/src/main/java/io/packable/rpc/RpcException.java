@@ -0,0 +1,16 @@
+package io.packable.rpc;
+
+/**
+ * 调用失败：服务端处理时抛出异常、方法不存在或者连接已断开
+ */
+public class RpcException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public RpcException(String message) {
+        super(message);
+    }
+
+    public RpcException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
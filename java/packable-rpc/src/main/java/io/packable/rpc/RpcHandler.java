@@ -0,0 +1,8 @@
+package io.packable.rpc;
+
+/**
+ * 处理一种方法的请求，在 {@link RpcServer} 的 Executor 中执行
+ */
+public interface RpcHandler<Q, R> {
+    R handle(Q request) throws Exception;
+}
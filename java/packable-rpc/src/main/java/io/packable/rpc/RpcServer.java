@@ -0,0 +1,164 @@
+package io.packable.rpc;
+
+import io.packable.PackDecoder;
+import io.packable.TypeAdapter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * RpcServer
+ * <br>
+ * 一个 selector 线程负责所有连接的读写，请求体在 selector 线程中解码，然后交给 executor 执行 handler。
+ * 同一连接上的请求可以并发执行，响应按完成的顺序返回（通过 id 与请求关联）。
+ * <br>
+ * 用法如：
+ * <pre>
+ * RpcServer server = new RpcServer(Executors.newFixedThreadPool(8));
+ * server.register("echo", PERSON_ADAPTER, PERSON_ADAPTER, request -&gt; request);
+ * InetSocketAddress address = server.bind(new InetSocketAddress("127.0.0.1", 0));
+ * </pre>
+ */
+public final class RpcServer implements Closeable {
+    private static final class Method<Q, R> {
+        final TypeAdapter<Q> requestAdapter;
+        final TypeAdapter<R> responseAdapter;
+        final RpcHandler<Q, R> handler;
+
+        Method(TypeAdapter<Q> requestAdapter, TypeAdapter<R> responseAdapter, RpcHandler<Q, R> handler) {
+            this.requestAdapter = requestAdapter;
+            this.responseAdapter = responseAdapter;
+            this.handler = handler;
+        }
+    }
+
+    private final Executor executor;
+    private final Map<String, Method<?, ?>> methods = new ConcurrentHashMap<>();
+    private EventLoop loop;
+    private ServerSocketChannel serverChannel;
+
+    private final Connection.Listener listener = new Connection.Listener() {
+        @Override
+        public void onFrame(Connection connection, byte[] array, int offset, int len, int flags) {
+            if (flags != Envelope.REQUEST) {
+                throw new IllegalStateException("unexpected frame type: " + flags);
+            }
+            PackDecoder decoder = new PackDecoder(array, offset, len);
+            long id = Envelope.getId(decoder);
+            String name = Envelope.getMethod(decoder);
+            Method<?, ?> method = name != null ? methods.get(name) : null;
+            if (method == null) {
+                connection.send(Envelope.error(id, "unknown method: " + name), Envelope.ERROR);
+                return;
+            }
+            dispatch(connection, id, decoder, method);
+        }
+
+        @Override
+        public void onClosed(Connection connection, Throwable cause) {
+        }
+    };
+
+    public RpcServer(Executor executor) {
+        this.executor = executor;
+    }
+
+    public <Q, R> RpcServer register(String method, TypeAdapter<Q> requestAdapter,
+                                     TypeAdapter<R> responseAdapter, RpcHandler<Q, R> handler) {
+        methods.put(method, new Method<>(requestAdapter, responseAdapter, handler));
+        return this;
+    }
+
+    /**
+     * 开始监听
+     *
+     * @return 实际监听的地址（端口为 0 时由系统分配）
+     */
+    public synchronized InetSocketAddress bind(InetSocketAddress address) throws IOException {
+        if (loop != null) {
+            throw new IllegalStateException("already bound");
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        InetSocketAddress local = (InetSocketAddress) serverChannel.getLocalAddress();
+        loop = new EventLoop("rpc-server-" + local.getPort());
+        loop.execute(() -> {
+            try {
+                loop.register(serverChannel, SelectionKey.OP_ACCEPT, new EventLoop.Handler() {
+                    @Override
+                    public void onReady(SelectionKey key) throws IOException {
+                        accept();
+                    }
+
+                    @Override
+                    public void onClosed(Throwable cause) {
+                    }
+                });
+            } catch (IOException e) {
+                close();
+            }
+        });
+        return local;
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel, loop, listener);
+            try {
+                connection.register();
+            } catch (IOException e) {
+                connection.close(e);
+            }
+        }
+    }
+
+    private <Q, R> void dispatch(Connection connection, long id, PackDecoder decoder, Method<Q, R> method) {
+        Q request;
+        try {
+            request = Envelope.getBody(decoder, method.requestAdapter);
+        } catch (Exception e) {
+            connection.send(Envelope.error(id, "invalid request: " + e), Envelope.ERROR);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                byte[] frame;
+                int flags;
+                try {
+                    R response = method.handler.handle(request);
+                    frame = Envelope.response(id, response, method.responseAdapter);
+                    flags = Envelope.RESPONSE;
+                } catch (Exception e) {
+                    frame = Envelope.error(id, String.valueOf(e));
+                    flags = Envelope.ERROR;
+                }
+                connection.send(frame, flags);
+            });
+        } catch (RejectedExecutionException e) {
+            connection.send(Envelope.error(id, "rejected"), Envelope.ERROR);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (loop != null) {
+            loop.close();
+        }
+        if (serverChannel != null) {
+            try {
+                serverChannel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package io.packable.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * CRC32C (Castagnoli)，纯 Java 实现（Java 8 没有 java.util.zip.CRC32C）。
+ * <br>
+ * 使用 slicing-by-8：每次处理 8 个字节，查 8 张表。
+ */
+final class Crc32c {
+    private static final int POLY = 0x82F63B78;
+    private static final int[][] TABLES = new int[8][256];
+
+    static {
+        int[] t0 = TABLES[0];
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int j = 0; j < 8; j++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLY : crc >>> 1;
+            }
+            t0[i] = crc;
+        }
+        for (int i = 0; i < 256; i++) {
+            int crc = t0[i];
+            for (int k = 1; k < 8; k++) {
+                crc = (crc >>> 8) ^ t0[crc & 0xff];
+                TABLES[k][i] = crc;
+            }
+        }
+    }
+
+    private Crc32c() {
+    }
+
+    static int compute(byte[] b, int offset, int len) {
+        return ~update(~0, b, offset, len);
+    }
+
+    static int compute(ByteBuffer b, int offset, int len) {
+        return ~update(~0, b, offset, len);
+    }
+
+    /**
+     * 以 crc 为初始值（未取反的中间状态）继续计算
+     */
+    static int update(int crc, byte[] b, int offset, int len) {
+        int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+        int[] t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+        int i = offset;
+        int end = offset + len;
+        int end8 = end - 7;
+        while (i < end8) {
+            int lo = crc ^ ((b[i] & 0xff) | ((b[i + 1] & 0xff) << 8)
+                    | ((b[i + 2] & 0xff) << 16) | (b[i + 3] << 24));
+            int hi = (b[i + 4] & 0xff) | ((b[i + 5] & 0xff) << 8)
+                    | ((b[i + 6] & 0xff) << 16) | (b[i + 7] << 24);
+            crc = t7[lo & 0xff] ^ t6[(lo >>> 8) & 0xff] ^ t5[(lo >>> 16) & 0xff] ^ t4[lo >>> 24]
+                    ^ t3[hi & 0xff] ^ t2[(hi >>> 8) & 0xff] ^ t1[(hi >>> 16) & 0xff] ^ t0[hi >>> 24];
+            i += 8;
+        }
+        while (i < end) {
+            crc = (crc >>> 8) ^ t0[(crc ^ b[i++]) & 0xff];
+        }
+        return crc;
+    }
+
+    /**
+     * 读取 b 的 [offset, offset + len)（绝对位置，不修改 position），b 须为小端
+     */
+    static int update(int crc, ByteBuffer b, int offset, int len) {
+        int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+        int[] t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+        int i = offset;
+        int end = offset + len;
+        int end8 = end - 7;
+        while (i < end8) {
+            long v = b.getLong(i);
+            int lo = crc ^ (int) v;
+            int hi = (int) (v >>> 32);
+            crc = t7[lo & 0xff] ^ t6[(lo >>> 8) & 0xff] ^ t5[(lo >>> 16) & 0xff] ^ t4[lo >>> 24]
+                    ^ t3[hi & 0xff] ^ t2[(hi >>> 8) & 0xff] ^ t1[(hi >>> 16) & 0xff] ^ t0[hi >>> 24];
+            i += 8;
+        }
+        while (i < end) {
+            crc = (crc >>> 8) ^ t0[(crc ^ b.get(i++)) & 0xff];
+        }
+        return crc;
+    }
+}
@@ -0,0 +1,466 @@
+package io.packable.store;
+
+import io.packable.PackDecoder;
+import io.packable.PackEncoder;
+import io.packable.TypeAdapter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * PackLog
+ * 作用：只追加的记录日志，每条记录通常是 {@link PackEncoder} 编码的结果。
+ * <br>
+ * 文件格式：[magic][version] 之后是连续的记录，每条记录为 [len][crc][payload]
+ * <ul>
+ * <li>len: payload 的长度，4 字节（小端）</li>
+ * <li>crc: len 和 payload 的 CRC32C，4 字节（小端）</li>
+ * </ul>
+ * 写入：{@link #append} 先写到内存中的缓冲区，缓冲区满或者读取时才写入文件；
+ * {@link #sync} 采用组提交，多个线程同时 sync 时，只由其中一个线程调用 force，
+ * 其他线程等待这次 force 完成（force 覆盖了它们追加的所有记录）。
+ * force 期间不持有锁，其他线程可以继续追加。
+ * <br>
+ * 读取：通过 MappedByteBuffer，{@link #scan(RecordVisitor)} 直接传递映射区域的视图，不拷贝。
+ * 映射区域比已写入的数据多预留一段空间（文件随之扩展，末尾为 0，关闭时截断），
+ * 追加的数据写入文件后不需要重新映射；还在缓冲区中的记录直接从缓冲区读取。
+ * <br>
+ * 恢复：打开时校验所有记录，遇到不完整或者校验失败的记录（写入时崩溃），截断该记录及之后的数据。
+ * <br>
+ * 单个文件不超过 2GB（MappedByteBuffer 的限制）。线程安全。
+ */
+public final class PackLog implements Closeable {
+    static final int MAGIC = 0x474f4c50; // "PLOG"
+    static final int VERSION = 1;
+    static final int FILE_HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 8;
+    static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    // 重新映射时，映射区域至少比已写入的数据多出这么多
+    private static final int MIN_MAP_HEADROOM = 1 << 20;
+
+    /**
+     * 访问记录。record 是映射区域的只读视图（position 为 0，limit 为记录长度），只在回调期间使用。
+     */
+    public interface RecordVisitor {
+        void visit(long offset, ByteBuffer record);
+    }
+
+    public interface ObjectVisitor<T> {
+        void visit(long offset, T value);
+    }
+
+    private final FileChannel channel;
+    private final Object lock = new Object();
+
+    // 以下字段由 lock 保护
+    private byte[] writeBuffer = new byte[WRITE_BUFFER_SIZE];
+    private int bufferLen;
+    // 所有已追加记录的结束位置
+    private long endPosition;
+    // 已写入文件的位置（volatile: 读取映射时无锁访问）
+    private volatile long flushedPosition;
+    // 已 force 的位置
+    private long syncedPosition;
+    private boolean syncing;
+    private boolean closed;
+
+    private volatile MappedByteBuffer mapped;
+    private final long truncatedBytes;
+
+    private PackLog(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size == 0) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(header, 0);
+            channel.force(true);
+            size = FILE_HEADER_SIZE;
+        }
+        if (size > MAX_FILE_SIZE) {
+            throw new IOException("log size over limit: " + size);
+        }
+        long end = recover(size);
+        if (end < size) {
+            channel.truncate(end);
+            channel.force(true);
+        }
+        truncatedBytes = size - end;
+        endPosition = end;
+        flushedPosition = end;
+        syncedPosition = end;
+    }
+
+    /**
+     * 打开（不存在时创建）日志文件，并截断末尾不完整的记录
+     */
+    public static PackLog open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new PackLog(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 返回打开时截断的字节数（0 表示文件完整；未正常关闭时，包括预留的映射空间）
+     */
+    public long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    /**
+     * 返回所有已追加记录的结束位置（包括还未写入文件的记录）
+     */
+    public long size() {
+        synchronized (lock) {
+            return endPosition;
+        }
+    }
+
+    private long recover(long size) throws IOException {
+        MappedByteBuffer buffer = map(size);
+        if (size < FILE_HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a pack log");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported version: " + buffer.getInt(4));
+        }
+        int p = FILE_HEADER_SIZE;
+        int limit = (int) size;
+        while (p + RECORD_HEADER_SIZE <= limit) {
+            int len = buffer.getInt(p);
+            if (len < 0 || len > limit - p - RECORD_HEADER_SIZE) {
+                break;
+            }
+            int crc = Crc32c.update(~0, buffer, p, 4);
+            crc = ~Crc32c.update(crc, buffer, p + RECORD_HEADER_SIZE, len);
+            if (crc != buffer.getInt(p + 4)) {
+                break;
+            }
+            p += RECORD_HEADER_SIZE + len;
+        }
+        if (p == limit) {
+            mapped = buffer;
+        }
+        return p;
+    }
+
+    public <T> long append(T value, TypeAdapter<T> adapter) throws IOException {
+        byte[] bytes = PackEncoder.encode(value, adapter);
+        return append(bytes, 0, bytes.length);
+    }
+
+    public long append(byte[] record) throws IOException {
+        return append(record, 0, record.length);
+    }
+
+    /**
+     * 追加一条记录（不等待写入磁盘，需要持久化时调用 {@link #sync}）
+     *
+     * @return 记录的位置，用于 {@link #read}
+     */
+    public long append(byte[] record, int offset, int len) throws IOException {
+        synchronized (lock) {
+            checkOpen();
+            long position = endPosition;
+            if (position + RECORD_HEADER_SIZE + len > MAX_FILE_SIZE) {
+                throw new IOException("log size over limit");
+            }
+            int need = RECORD_HEADER_SIZE + len;
+            if (bufferLen + need > writeBuffer.length) {
+                flushBuffer();
+                if (need > writeBuffer.length) {
+                    writeBuffer = new byte[Math.max(need, writeBuffer.length << 1)];
+                }
+            }
+            byte[] b = writeBuffer;
+            int p = bufferLen;
+            putInt(b, p, len);
+            System.arraycopy(record, offset, b, p + RECORD_HEADER_SIZE, len);
+            int crc = Crc32c.update(~0, b, p, 4);
+            putInt(b, p + 4, ~Crc32c.update(crc, b, p + RECORD_HEADER_SIZE, len));
+            bufferLen = p + need;
+            endPosition = position + need;
+            return position;
+        }
+    }
+
+    /**
+     * 将此前追加的所有记录持久化到磁盘（组提交）
+     */
+    public void sync() throws IOException {
+        long target;
+        synchronized (lock) {
+            target = endPosition;
+            while (syncing && syncedPosition < target) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted");
+                }
+            }
+            if (syncedPosition >= target) {
+                return;
+            }
+            checkOpen();
+            syncing = true;
+        }
+        boolean success = false;
+        long end = 0;
+        try {
+            synchronized (lock) {
+                flushBuffer();
+                end = flushedPosition;
+            }
+            channel.force(false);
+            success = true;
+        } finally {
+            synchronized (lock) {
+                if (success) {
+                    syncedPosition = Math.max(syncedPosition, end);
+                }
+                syncing = false;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 读取 position 处的记录（拷贝）。
+     * <br>
+     * 记录的 CRC 在打开时已经校验过，这里只检查长度。
+     */
+    public byte[] read(long position) throws IOException {
+        MappedByteBuffer buffer = mapped;
+        if (buffer == null || !isMapped(buffer, position)) {
+            synchronized (lock) {
+                checkOpen();
+                if (position < FILE_HEADER_SIZE || position >= endPosition) {
+                    throw new IOException("invalid position: " + position);
+                }
+                if (position >= flushedPosition) {
+                    return readBuffered((int) (position - flushedPosition));
+                }
+                buffer = mapTo(flushedPosition);
+            }
+        }
+        int p = (int) position;
+        int len = checkRecord(buffer, p, readLimit(buffer));
+        byte[] bytes = new byte[len];
+        ByteBuffer view = buffer.duplicate();
+        view.position(p + RECORD_HEADER_SIZE);
+        view.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 映射区域中是否包含 position 处的整条记录
+     */
+    private boolean isMapped(MappedByteBuffer buffer, long position) {
+        int limit = readLimit(buffer);
+        if (position < FILE_HEADER_SIZE || position + RECORD_HEADER_SIZE > limit) {
+            return false;
+        }
+        int len = buffer.getInt((int) position);
+        return len >= 0 && len <= limit - position - RECORD_HEADER_SIZE;
+    }
+
+    /**
+     * 映射区域中可以读取的范围：已写入文件的部分
+     */
+    private int readLimit(MappedByteBuffer buffer) {
+        return (int) Math.min(buffer.capacity(), flushedPosition);
+    }
+
+    /**
+     * 读取还在缓冲区中的记录（持有 lock）
+     */
+    private byte[] readBuffered(int p) throws IOException {
+        if (p + RECORD_HEADER_SIZE > bufferLen) {
+            throw new IOException("invalid position: " + (flushedPosition + p));
+        }
+        byte[] b = writeBuffer;
+        int len = (b[p] & 0xff) | ((b[p + 1] & 0xff) << 8) | ((b[p + 2] & 0xff) << 16) | (b[p + 3] << 24);
+        if (len < 0 || len > bufferLen - p - RECORD_HEADER_SIZE) {
+            throw new IOException("invalid record at " + (flushedPosition + p));
+        }
+        byte[] bytes = new byte[len];
+        System.arraycopy(b, p + RECORD_HEADER_SIZE, bytes, 0, len);
+        return bytes;
+    }
+
+    public <T> T read(long position, TypeAdapter<T> adapter) throws IOException {
+        return PackDecoder.decode(read(position), adapter);
+    }
+
+    /**
+     * 按顺序访问调用时已追加的所有记录
+     */
+    public void scan(RecordVisitor visitor) throws IOException {
+        long end;
+        synchronized (lock) {
+            end = endPosition;
+        }
+        scan(FILE_HEADER_SIZE, end, visitor);
+    }
+
+    /**
+     * 访问 [from, to) 中的记录，from 须为某条记录的位置
+     */
+    public void scan(long from, long to, RecordVisitor visitor) throws IOException {
+        if (from >= to) {
+            return;
+        }
+        MappedByteBuffer buffer;
+        synchronized (lock) {
+            checkOpen();
+            if (to > endPosition) {
+                throw new IOException("invalid position: " + to);
+            }
+            if (to > flushedPosition) {
+                flushBuffer();
+            }
+            buffer = mapTo(to);
+        }
+        int p = (int) from;
+        int end = (int) to;
+        while (p < end) {
+            int len = checkRecord(buffer, p, end);
+            ByteBuffer view = buffer.duplicate();
+            view.limit(p + RECORD_HEADER_SIZE + len).position(p + RECORD_HEADER_SIZE);
+            visitor.visit(p, view.slice().asReadOnlyBuffer());
+            p += RECORD_HEADER_SIZE + len;
+        }
+    }
+
+    /**
+     * 按顺序解码所有记录。
+     * <br>
+     * 每条记录从映射区域拷贝到一个复用的数组中解码（PackDecoder 只支持数组），不分配新的数组。
+     */
+    public <T> void scan(TypeAdapter<T> adapter, ObjectVisitor<? super T> visitor) throws IOException {
+        byte[][] scratch = {new byte[4096]};
+        scan((offset, record) -> {
+            int len = record.remaining();
+            if (scratch[0].length < len) {
+                scratch[0] = new byte[Math.max(len, scratch[0].length << 1)];
+            }
+            record.get(scratch[0], 0, len);
+            visitor.visit(offset, PackDecoder.decode(scratch[0], 0, len, adapter));
+        });
+    }
+
+    private int checkRecord(MappedByteBuffer buffer, int p, int limit) throws IOException {
+        if (p < FILE_HEADER_SIZE || p + RECORD_HEADER_SIZE > limit) {
+            throw new IOException("invalid position: " + p);
+        }
+        int len = buffer.getInt(p);
+        if (len < 0 || len > limit - p - RECORD_HEADER_SIZE) {
+            throw new IOException("invalid record at " + p);
+        }
+        return len;
+    }
+
+    /**
+     * 返回覆盖 [0, end) 的映射（持有 lock，end 不超过 flushedPosition）。
+     * <br>
+     * 需要重新映射时预留空间，使之后追加的数据写入文件后仍在映射区域中，
+     * 重新映射的次数为对数级别（旧的映射由 GC 释放）。
+     */
+    private MappedByteBuffer mapTo(long end) throws IOException {
+        MappedByteBuffer buffer = mapped;
+        if (buffer == null || end > buffer.capacity()) {
+            long flushed = flushedPosition;
+            long size = Math.min(MAX_FILE_SIZE, flushed + Math.max(MIN_MAP_HEADROOM, flushed >>> 2));
+            buffer = map(size);
+            mapped = buffer;
+        }
+        return buffer;
+    }
+
+    /**
+     * size 超过文件大小时，文件会扩展到 size（channel 可写）
+     */
+    private MappedByteBuffer map(long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (bufferLen > 0) {
+            writeFully(ByteBuffer.wrap(writeBuffer, 0, bufferLen), flushedPosition);
+            flushedPosition += bufferLen;
+            bufferLen = 0;
+            if (writeBuffer.length > WRITE_BUFFER_SIZE) {
+                writeBuffer = new byte[WRITE_BUFFER_SIZE];
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer src, long position) throws IOException {
+        while (src.hasRemaining()) {
+            position += channel.write(src, position);
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("log closed");
+        }
+    }
+
+    private static void putInt(byte[] b, int i, int v) {
+        b[i] = (byte) v;
+        b[i + 1] = (byte) (v >> 8);
+        b[i + 2] = (byte) (v >> 16);
+        b[i + 3] = (byte) (v >> 24);
+    }
+
+    /**
+     * 写入缓冲区中的记录并 force，然后关闭文件；关闭之后 {@link #sync} 直接返回
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            while (syncing) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            closed = true;
+            try {
+                flushBuffer();
+                if (channel.size() > endPosition) {
+                    // 去掉预留的映射空间
+                    channel.truncate(endPosition);
+                }
+                channel.force(false);
+                // 之后的 sync 不需要再做任何事（例如 PackStore 压缩后替换了日志）
+                syncedPosition = endPosition;
+            } finally {
+                mapped = null;
+                channel.close();
+            }
+        }
+    }
+}
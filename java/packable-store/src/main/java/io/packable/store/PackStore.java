@@ -0,0 +1,417 @@
+package io.packable.store;
+
+import io.packable.PackDecoder;
+import io.packable.PackEncoder;
+import io.packable.TypeAdapter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PackStore
+ * 作用：嵌入式的 key-value 存储，value 为 Packable 编码的字节。
+ * <br>
+ * 数据保存在 {@link PackLog} 中，每次 put/remove 只追加一条记录（不重写整个文件），
+ * 内存中用哈希表记录每个 key 最新记录的位置，get 通过映射区域读取。
+ * <br>
+ * 记录的格式：[op][key len][key][value]
+ * <ul>
+ * <li>op: 1 字节，{@link #OP_PUT} 或 {@link #OP_REMOVE}</li>
+ * <li>key len: key 的 UTF-8 长度，2 字节（小端）</li>
+ * <li>value: 编码后的 value（仅 put）</li>
+ * </ul>
+ * 被覆盖或删除的记录成为垃圾，垃圾超过阈值时在后台线程中压缩：
+ * 将存活的记录复制到新文件，再复制压缩期间新增的记录，最后替换原文件。
+ * 复制存活记录时不持有锁，不阻塞读写。
+ * <br>
+ * put/remove 不等待写入磁盘，需要持久化时调用 {@link #sync()}。线程安全。
+ */
+public final class PackStore implements Closeable {
+    static final byte OP_PUT = 0;
+    static final byte OP_REMOVE = 1;
+
+    private static final int MAX_KEY_LENGTH = 0xffff;
+    private static final String COMPACT_SUFFIX = ".compact";
+
+    private static final float DEFAULT_GARBAGE_RATIO = 0.5f;
+    private static final long DEFAULT_MIN_GARBAGE = 1L << 20;
+
+    private final File file;
+    private final float garbageRatio;
+    private final long minGarbage;
+
+    // 以下字段由 this 保护
+    private PackLog log;
+    // key -> (位置 << 32 | 记录大小)
+    private Map<String, Long> index = new HashMap<>();
+    private long liveBytes;
+    private Thread compactThread;
+    private boolean closed;
+    // 压缩后重新打开日志失败的原因
+    private Exception failure;
+
+    private final Object compactLock = new Object();
+
+    private PackStore(File file, float garbageRatio, long minGarbage) throws IOException {
+        this.file = file;
+        this.garbageRatio = garbageRatio;
+        this.minGarbage = minGarbage;
+        // 上次压缩未完成，原文件仍然完整
+        File tmp = compactFile();
+        if (tmp.exists() && !tmp.delete()) {
+            throw new IOException("can not delete " + tmp);
+        }
+        log = PackLog.open(file);
+        try {
+            log.scan((offset, record) -> apply(index, offset, record));
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+        liveBytes = sumSizes(index);
+    }
+
+    public static PackStore open(File file) throws IOException {
+        return open(file, DEFAULT_GARBAGE_RATIO, DEFAULT_MIN_GARBAGE);
+    }
+
+    /**
+     * @param garbageRatio 垃圾占日志的比例超过这个值时压缩
+     * @param minGarbage   垃圾不超过这个字节数时不压缩
+     */
+    public static PackStore open(File file, float garbageRatio, long minGarbage) throws IOException {
+        if (!(garbageRatio > 0f && garbageRatio < 1f) || minGarbage < 0) {
+            throw new IllegalArgumentException("invalid compact threshold");
+        }
+        return new PackStore(file, garbageRatio, minGarbage);
+    }
+
+    public <T> void put(String key, T value, TypeAdapter<T> adapter) throws IOException {
+        putBytes(key, PackEncoder.encode(value, adapter));
+    }
+
+    /**
+     * 写入已经编码的 value
+     */
+    public void putBytes(String key, byte[] value) throws IOException {
+        byte[] record = encodeRecord(OP_PUT, key, value);
+        synchronized (this) {
+            checkOpen();
+            long position = log.append(record);
+            long info = (position << 32) | (PackLog.RECORD_HEADER_SIZE + record.length);
+            Long old = index.put(key, info);
+            if (old != null) {
+                liveBytes -= (int) (long) old;
+            }
+            liveBytes += (int) info;
+            checkGarbage();
+        }
+    }
+
+    /**
+     * @return key 是否存在
+     */
+    public boolean remove(String key) throws IOException {
+        synchronized (this) {
+            checkOpen();
+            Long old = index.remove(key);
+            if (old == null) {
+                return false;
+            }
+            liveBytes -= (int) (long) old;
+            log.append(encodeRecord(OP_REMOVE, key, null));
+            checkGarbage();
+            return true;
+        }
+    }
+
+    public <T> T get(String key, TypeAdapter<T> adapter) throws IOException {
+        byte[] record = getRecord(key);
+        if (record == null) {
+            return null;
+        }
+        int offset = valueOffset(record);
+        return PackDecoder.decode(record, offset, record.length - offset, adapter);
+    }
+
+    /**
+     * 返回编码后的 value，不存在时返回 null
+     */
+    public byte[] getBytes(String key) throws IOException {
+        byte[] record = getRecord(key);
+        if (record == null) {
+            return null;
+        }
+        int offset = valueOffset(record);
+        byte[] value = new byte[record.length - offset];
+        System.arraycopy(record, offset, value, 0, value.length);
+        return value;
+    }
+
+    private synchronized byte[] getRecord(String key) throws IOException {
+        checkOpen();
+        Long info = index.get(key);
+        return info == null ? null : log.read(info >>> 32);
+    }
+
+    public synchronized boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized List<String> keys() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * 返回垃圾（被覆盖或删除的记录）的字节数
+     */
+    public synchronized long getGarbageBytes() {
+        return log.size() - PackLog.FILE_HEADER_SIZE - liveBytes;
+    }
+
+    /**
+     * 将此前的修改持久化到磁盘
+     */
+    public void sync() throws IOException {
+        PackLog current;
+        synchronized (this) {
+            checkOpen();
+            current = log;
+        }
+        // 如果期间压缩替换了日志，旧日志关闭时已经 force，sync 直接返回
+        current.sync();
+    }
+
+    private void checkGarbage() {
+        if (compactThread != null) {
+            return;
+        }
+        long garbage = log.size() - PackLog.FILE_HEADER_SIZE - liveBytes;
+        if (garbage >= minGarbage && garbage >= (log.size() - PackLog.FILE_HEADER_SIZE) * garbageRatio) {
+            compactThread = new Thread(() -> {
+                try {
+                    compact();
+                } catch (IOException ignored) {
+                    // 压缩失败不影响原文件，下次达到阈值时重试
+                } finally {
+                    synchronized (PackStore.this) {
+                        compactThread = null;
+                        PackStore.this.notifyAll();
+                    }
+                }
+            }, "pack-store-compact");
+            compactThread.setDaemon(true);
+            compactThread.start();
+        }
+    }
+
+    /**
+     * 压缩：只保留每个 key 最新的记录
+     */
+    public void compact() throws IOException {
+        synchronized (compactLock) {
+            PackLog oldLog;
+            Map<String, Long> snapshot;
+            long mark;
+            synchronized (this) {
+                checkOpen();
+                oldLog = log;
+                snapshot = new HashMap<>(index);
+                mark = oldLog.size();
+            }
+
+            File tmp = compactFile();
+            Files.deleteIfExists(tmp.toPath());
+            Map<String, Long> newIndex = new HashMap<>(snapshot.size() * 4 / 3 + 1);
+            PackLog newLog = PackLog.open(tmp);
+            try {
+                // 不持有锁：快照中的记录不会被修改
+                for (Map.Entry<String, Long> entry : snapshot.entrySet()) {
+                    byte[] record = oldLog.read(entry.getValue() >>> 32);
+                    long position = newLog.append(record);
+                    newIndex.put(entry.getKey(), (position << 32) | (PackLog.RECORD_HEADER_SIZE + record.length));
+                }
+
+                synchronized (this) {
+                    if (closed) {
+                        newLog.close();
+                        Files.deleteIfExists(tmp.toPath());
+                        return;
+                    }
+                    // 复制压缩期间新增的记录
+                    oldLog.scan(mark, oldLog.size(), (offset, view) -> {
+                        byte[] record = new byte[view.remaining()];
+                        view.get(record);
+                        try {
+                            long position = newLog.append(record);
+                            apply(newIndex, position, ByteBuffer.wrap(record));
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+                    newLog.close();
+                    oldLog.close();
+                    boolean moved = false;
+                    try {
+                        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE);
+                        moved = true;
+                        // 目录写入磁盘后，替换才能在崩溃后保留
+                        syncDirectory();
+                    } catch (IOException | RuntimeException e) {
+                        // 替换失败时重新打开原文件，index 不变；已经替换（目录未写入磁盘）时使用新的 index
+                        reopen(e);
+                        if (moved) {
+                            index = newIndex;
+                            liveBytes = sumSizes(newIndex);
+                        }
+                        throw e;
+                    }
+                    reopen(null);
+                    index = newIndex;
+                    liveBytes = sumSizes(newIndex);
+                }
+            } catch (IOException | RuntimeException e) {
+                newLog.close();
+                Files.deleteIfExists(tmp.toPath());
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 压缩替换文件后重新打开日志。打开失败时 store 不再可用，之后的操作都抛出异常。
+     *
+     * @param cause 替换时的异常，不为 null 时打开失败的异常作为它的 suppressed，由调用者抛出 cause
+     */
+    private void reopen(Exception cause) throws IOException {
+        try {
+            log = PackLog.open(file);
+        } catch (IOException | RuntimeException e) {
+            closed = true;
+            failure = cause != null ? cause : e;
+            if (cause == null) {
+                throw e;
+            }
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void syncDirectory() throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private static long sumSizes(Map<String, Long> index) {
+        long sum = 0;
+        for (Long info : index.values()) {
+            sum += (int) (long) info;
+        }
+        return sum;
+    }
+
+    private File compactFile() {
+        return new File(file.getPath() + COMPACT_SUFFIX);
+    }
+
+    /**
+     * 将 record 应用到 index（record 的 position 为 0）
+     */
+    private static void apply(Map<String, Long> index, long offset, ByteBuffer record) {
+        int len = record.remaining();
+        if (len < 3) {
+            throw new IllegalStateException("invalid record at " + offset);
+        }
+        byte op = record.get(0);
+        int keyLen = (record.get(1) & 0xff) | ((record.get(2) & 0xff) << 8);
+        if (3 + keyLen > len) {
+            throw new IllegalStateException("invalid record at " + offset);
+        }
+        byte[] keyBytes = new byte[keyLen];
+        record.position(3);
+        record.get(keyBytes);
+        String key = new String(keyBytes, StandardCharsets.UTF_8);
+        if (op == OP_PUT) {
+            index.put(key, (offset << 32) | (PackLog.RECORD_HEADER_SIZE + len));
+        } else if (op == OP_REMOVE) {
+            index.remove(key);
+        } else {
+            throw new IllegalStateException("invalid record at " + offset);
+        }
+    }
+
+    private static byte[] encodeRecord(byte op, String key, byte[] value) {
+        if (key == null) {
+            throw new IllegalArgumentException("key is null");
+        }
+        if (op == OP_PUT && value == null) {
+            throw new IllegalArgumentException("value is null");
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("key too long");
+        }
+        int valueLen = value != null ? value.length : 0;
+        byte[] record = new byte[3 + keyBytes.length + valueLen];
+        record[0] = op;
+        record[1] = (byte) keyBytes.length;
+        record[2] = (byte) (keyBytes.length >> 8);
+        System.arraycopy(keyBytes, 0, record, 3, keyBytes.length);
+        if (value != null) {
+            System.arraycopy(value, 0, record, 3 + keyBytes.length, valueLen);
+        }
+        return record;
+    }
+
+    private static int valueOffset(byte[] record) {
+        return 3 + ((record[1] & 0xff) | ((record[2] & 0xff) << 8));
+    }
+
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw new IOException("store broken", failure);
+        }
+        if (closed) {
+            throw new IOException("store closed");
+        }
+    }
+
+    /**
+     * 等待后台的压缩结束，然后关闭（会将修改写入磁盘）
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            while (compactThread != null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            log.close();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package io.packable.store;
+
+import io.packable.PackDecoder;
+import io.packable.TypeAdapter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * PackTable
+ * 作用：读取 {@link PackTableWriter} 生成的有序文件，适用于只读（或很少更新）的快照。
+ * <br>
+ * 打开时只读取稀疏索引（每个块的第一个 key）到内存，记录保留在 MappedByteBuffer 中。
+ * {@link #get} 在内存的索引中二分查找 key 所在的块，然后只访问这一个块：
+ * 校验块的 CRC（每个块只在第一次访问时校验），在块内按顺序比较 key（直接比较映射区域中的字节，不解码）。
+ * <br>
+ * 线程安全（文件内容不变，只使用绝对位置读取）。
+ */
+public final class PackTable implements Closeable {
+    /**
+     * 访问记录。value 是映射区域的只读视图，只在回调期间使用。
+     */
+    public interface RecordVisitor {
+        void visit(String key, ByteBuffer value);
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final byte[][] firstKeys;
+    private final int[] blockOffsets;
+    private final int[] blockLengths;
+    // 已经校验过 CRC 的块，并发时可能重复校验，不影响正确性
+    private final boolean[] verified;
+
+    private PackTable(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size < PackTableWriter.FOOTER_SIZE || size > PackLog.MAX_FILE_SIZE) {
+            throw new IOException("not a pack table");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int footer = (int) size - PackTableWriter.FOOTER_SIZE;
+        if (buffer.getInt(footer + 28) != PackTableWriter.MAGIC) {
+            throw new IOException("not a pack table");
+        }
+        if (buffer.getInt(footer + 24) != PackTableWriter.VERSION) {
+            throw new IOException("unsupported version: " + buffer.getInt(footer + 24));
+        }
+        int indexOffset = buffer.getInt(footer);
+        int indexLen = buffer.getInt(footer + 4);
+        count = buffer.getInt(footer + 12);
+        int blockCount = buffer.getInt(footer + 16);
+        if (indexOffset < 0 || indexLen < 0 || indexOffset + indexLen != footer || blockCount < 0
+                || count < 0 || blockCount > indexLen) {
+            throw new IOException("invalid table footer");
+        }
+        if (Crc32c.compute(buffer, indexOffset, indexLen) != buffer.getInt(footer + 8)) {
+            throw new IOException("index checksum mismatch");
+        }
+
+        firstKeys = new byte[blockCount][];
+        blockOffsets = new int[blockCount];
+        blockLengths = new int[blockCount];
+        verified = new boolean[blockCount];
+        int p = indexOffset;
+        int end = indexOffset + indexLen;
+        for (int i = 0; i < blockCount; i++) {
+            long v = readLength(buffer, p, end);
+            p = (int) (v >>> 32);
+            int keyLen = (int) v;
+            if (p + keyLen + 8 > end) {
+                throw new IOException("invalid index");
+            }
+            byte[] key = new byte[keyLen];
+            ByteBuffer view = buffer.duplicate();
+            view.position(p);
+            view.get(key);
+            p += keyLen;
+            firstKeys[i] = key;
+            blockOffsets[i] = buffer.getInt(p);
+            blockLengths[i] = buffer.getInt(p + 4);
+            p += 8;
+            if (blockOffsets[i] < 0 || blockLengths[i] < PackTableWriter.BLOCK_FOOTER_SIZE
+                    || blockOffsets[i] + blockLengths[i] > indexOffset) {
+                throw new IOException("invalid index");
+            }
+        }
+    }
+
+    public static PackTable open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return new PackTable(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 返回记录的数量
+     */
+    public int size() {
+        return count;
+    }
+
+    public int getBlockCount() {
+        return blockOffsets.length;
+    }
+
+    public <T> T get(String key, TypeAdapter<T> adapter) throws IOException {
+        byte[] value = getBytes(key);
+        return value == null ? null : PackDecoder.decode(value, adapter);
+    }
+
+    /**
+     * 返回编码后的 value，不存在时返回 null
+     */
+    public byte[] getBytes(String key) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int block = findBlock(keyBytes);
+        if (block < 0) {
+            return null;
+        }
+        int p = blockOffsets[block];
+        int end = checkBlock(block);
+        while (p < end) {
+            long v = readLength(buffer, p, end);
+            p = (int) (v >>> 32);
+            int keyLen = (int) v;
+            int c = compare(buffer, p, keyLen, keyBytes);
+            p += keyLen;
+            v = readLength(buffer, p, end);
+            p = (int) (v >>> 32);
+            int valueLen = (int) v;
+            if (c == 0) {
+                byte[] value = new byte[valueLen];
+                ByteBuffer view = buffer.duplicate();
+                view.position(p);
+                view.get(value);
+                return value;
+            }
+            if (c > 0) {
+                break;
+            }
+            p += valueLen;
+        }
+        return null;
+    }
+
+    /**
+     * 按 key 的顺序访问所有记录
+     */
+    public void scan(RecordVisitor visitor) throws IOException {
+        for (int block = 0; block < blockOffsets.length; block++) {
+            int p = blockOffsets[block];
+            int end = checkBlock(block);
+            while (p < end) {
+                long v = readLength(buffer, p, end);
+                p = (int) (v >>> 32);
+                int keyLen = (int) v;
+                byte[] key = new byte[keyLen];
+                ByteBuffer view = buffer.duplicate();
+                view.position(p);
+                view.get(key);
+                p += keyLen;
+                v = readLength(buffer, p, end);
+                p = (int) (v >>> 32);
+                int valueLen = (int) v;
+                view.limit(p + valueLen).position(p);
+                visitor.visit(new String(key, StandardCharsets.UTF_8), view.slice().asReadOnlyBuffer());
+                p += valueLen;
+            }
+        }
+    }
+
+    /**
+     * 二分查找 first key 不大于 key 的最后一个块，key 小于所有块时返回 -1
+     */
+    private int findBlock(byte[] key) {
+        int low = 0;
+        int high = firstKeys.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compare(firstKeys[mid], key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * 校验块的 CRC（每个块只校验一次），返回块内记录的结束位置
+     */
+    private int checkBlock(int block) throws IOException {
+        int offset = blockOffsets[block];
+        int end = offset + blockLengths[block] - PackTableWriter.BLOCK_FOOTER_SIZE;
+        if (!verified[block]) {
+            if (Crc32c.compute(buffer, offset, end - offset) != buffer.getInt(end + 4)) {
+                throw new IOException("block checksum mismatch at " + offset);
+            }
+            verified[block] = true;
+        }
+        return end;
+    }
+
+    /**
+     * 读取长度（varint），返回 (结束位置 << 32 | 长度)。
+     * 长度超过 end 时抛出 IOException，之后按长度读取不会越过 end。
+     */
+    private static long readLength(ByteBuffer b, int p, int end) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (p >= end) {
+                throw new IOException("invalid record");
+            }
+            int x = b.get(p++);
+            value |= (x & 0x7f) << shift;
+            if ((x & 0x80) == 0) {
+                if (value < 0 || value > end - p) {
+                    throw new IOException("invalid record");
+                }
+                return ((long) p << 32) | value;
+            }
+        }
+        throw new IOException("invalid record");
+    }
+
+    static int compare(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int c = (a[i] & 0xff) - (b[i] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private static int compare(ByteBuffer buffer, int offset, int len, byte[] b) {
+        int n = Math.min(len, b.length);
+        for (int i = 0; i < n; i++) {
+            int c = (buffer.get(offset + i) & 0xff) - (b[i] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return len - b.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
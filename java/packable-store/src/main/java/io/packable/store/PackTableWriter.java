@@ -0,0 +1,188 @@
+package io.packable.store;
+
+import io.packable.PackEncoder;
+import io.packable.TypeAdapter;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * PackTableWriter
+ * 作用：按 key 的顺序写入记录，生成 {@link PackTable} 读取的有序文件。
+ * <br>
+ * 文件格式：[block]...[index][footer]
+ * <ul>
+ * <li>block: 若干条 [key len][key][value len][value]（长度为 varint），
+ * 之后是块尾 [count][crc]（4 字节，小端），crc 为块内记录的 CRC32C</li>
+ * <li>index: 每个块一项 [key len][first key][block offset][block len]，即稀疏索引</li>
+ * <li>footer: [index offset][index len][index crc][count][block count][reserved][version][magic]</li>
+ * </ul>
+ * key 按 UTF-8 字节（无符号）排序，必须严格递增。
+ * 文件不超过 2GB（{@link PackTable} 整体映射文件）。非线程安全。
+ */
+public final class PackTableWriter implements Closeable {
+    static final int MAGIC = 0x4c42544b; // "KTBL"
+    static final int VERSION = 1;
+    static final int BLOCK_FOOTER_SIZE = 8;
+    static final int FOOTER_SIZE = 32;
+
+    private static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    private final OutputStream out;
+    private final int blockSize;
+
+    private byte[] block;
+    private int blockLen;
+    private int blockEntries;
+    private byte[] firstKey;
+    private byte[] lastKey;
+
+    private byte[] index = new byte[1024];
+    private int indexLen;
+    private int indexCount;
+
+    private long position;
+    private int count;
+    private boolean closed;
+
+    public PackTableWriter(File file) throws IOException {
+        this(file, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param blockSize 块的目标大小，块的记录超过这个大小时结束当前块
+     */
+    public PackTableWriter(File file, int blockSize) throws IOException {
+        if (blockSize < 64 || blockSize > (1 << 24)) {
+            throw new IllegalArgumentException("invalid block size: " + blockSize);
+        }
+        this.out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+        this.blockSize = blockSize;
+        this.block = new byte[blockSize + 256];
+    }
+
+    public <T> void add(String key, T value, TypeAdapter<T> adapter) throws IOException {
+        add(key, PackEncoder.encode(value, adapter));
+    }
+
+    /**
+     * 添加一条记录，key 必须大于之前添加的 key
+     */
+    public void add(String key, byte[] value) throws IOException {
+        if (closed) {
+            throw new IOException("writer closed");
+        }
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("key or value is null");
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (lastKey != null && PackTable.compare(lastKey, keyBytes) >= 0) {
+            throw new IllegalArgumentException("keys must be added in increasing order: " + key);
+        }
+        int need = 10 + keyBytes.length + value.length;
+        if (blockLen + need > block.length) {
+            block = Arrays.copyOf(block, Math.max(blockLen + need, block.length << 1));
+        }
+        if (blockLen == 0) {
+            firstKey = keyBytes;
+        }
+        blockLen = writeVarInt(block, blockLen, keyBytes.length);
+        System.arraycopy(keyBytes, 0, block, blockLen, keyBytes.length);
+        blockLen += keyBytes.length;
+        blockLen = writeVarInt(block, blockLen, value.length);
+        System.arraycopy(value, 0, block, blockLen, value.length);
+        blockLen += value.length;
+        blockEntries++;
+        count++;
+        lastKey = keyBytes;
+        if (blockLen >= blockSize) {
+            finishBlock();
+        }
+    }
+
+    private void finishBlock() throws IOException {
+        if (blockEntries == 0) {
+            return;
+        }
+        int crc = Crc32c.compute(block, 0, blockLen);
+        int len = blockLen + BLOCK_FOOTER_SIZE;
+        if (position + len > PackLog.MAX_FILE_SIZE) {
+            throw new IOException("table size over limit");
+        }
+        out.write(block, 0, blockLen);
+        byte[] footer = new byte[BLOCK_FOOTER_SIZE];
+        putInt(footer, 0, blockEntries);
+        putInt(footer, 4, crc);
+        out.write(footer);
+
+        int need = 13 + firstKey.length;
+        if (indexLen + need > index.length) {
+            index = Arrays.copyOf(index, Math.max(indexLen + need, index.length << 1));
+        }
+        indexLen = writeVarInt(index, indexLen, firstKey.length);
+        System.arraycopy(firstKey, 0, index, indexLen, firstKey.length);
+        indexLen += firstKey.length;
+        putInt(index, indexLen, (int) position);
+        putInt(index, indexLen + 4, len);
+        indexLen += 8;
+        indexCount++;
+
+        position += len;
+        blockLen = 0;
+        blockEntries = 0;
+        if (block.length > blockSize + 256) {
+            block = new byte[blockSize + 256];
+        }
+    }
+
+    /**
+     * 写入最后一个块、索引和 footer，然后关闭文件
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            finishBlock();
+            if (position + indexLen + FOOTER_SIZE > PackLog.MAX_FILE_SIZE) {
+                throw new IOException("table size over limit");
+            }
+            out.write(index, 0, indexLen);
+            byte[] footer = new byte[FOOTER_SIZE];
+            putInt(footer, 0, (int) position);
+            putInt(footer, 4, indexLen);
+            putInt(footer, 8, Crc32c.compute(index, 0, indexLen));
+            putInt(footer, 12, count);
+            putInt(footer, 16, indexCount);
+            putInt(footer, 24, VERSION);
+            putInt(footer, 28, MAGIC);
+            out.write(footer);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static int writeVarInt(byte[] b, int p, int value) {
+        while ((value & ~0x7f) != 0) {
+            b[p++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        b[p++] = (byte) value;
+        return p;
+    }
+
+    private static void putInt(byte[] b, int i, int v) {
+        b[i] = (byte) v;
+        b[i + 1] = (byte) (v >> 8);
+        b[i + 2] = (byte) (v >> 16);
+        b[i + 3] = (byte) (v >> 24);
+    }
+}
@@ -0,0 +1,48 @@
+package io.packable;
+
+/**
+ * 按位读取 DecodeBuffer 的字节数组，与 {@link BitWriter} 对应。
+ */
+final class BitReader {
+    private final byte[] hb;
+    private int position;
+    private final int limit;
+    private long bits;
+    private int count;
+
+    BitReader(byte[] hb, int offset, int limit) {
+        this.hb = hb;
+        this.position = offset;
+        this.limit = limit;
+    }
+
+    /**
+     * 读取 n 位, 0 <= n <= 64
+     */
+    long read(int n) {
+        if (n > 32) {
+            long high = take(n - 32);
+            return (high << 32) | take(32);
+        }
+        return take(n);
+    }
+
+    boolean readBit() {
+        return take(1) != 0;
+    }
+
+    private long take(int n) {
+        if (n == 0) {
+            return 0L;
+        }
+        while (count < n) {
+            if (position >= limit) {
+                throw new IndexOutOfBoundsException("buffer out of bound");
+            }
+            bits = (bits << 8) | (hb[position++] & 0xff);
+            count += 8;
+        }
+        count -= n;
+        return (bits >>> count) & (-1L >>> (64 - n));
+    }
+}
@@ -0,0 +1,52 @@
+package io.packable;
+
+/**
+ * 按位写入 EncodeBuffer，高位在前。
+ * <br>
+ * 调用方需要预先检查容量（每 8 个 bit 占用 1 个字节），写完后调用 {@link #flush()} 补齐最后一个字节。
+ */
+final class BitWriter {
+    private final EncodeBuffer buffer;
+    private long bits;
+    private int count;
+
+    BitWriter(EncodeBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * 写入 value 的低 n 位, 0 <= n <= 64
+     */
+    void write(long value, int n) {
+        if (n > 32) {
+            put(value >>> 32, n - 32);
+            put(value, 32);
+        } else {
+            put(value, n);
+        }
+    }
+
+    void writeBit(boolean bit) {
+        put(bit ? 1L : 0L, 1);
+    }
+
+    private void put(long value, int n) {
+        if (n == 0) {
+            return;
+        }
+        // count 始终小于 8, 所以 bits 中有效位不超过 39 位
+        bits = (bits << n) | (value & (-1L >>> (64 - n)));
+        count += n;
+        while (count >= 8) {
+            count -= 8;
+            buffer.writeByte((byte) (bits >>> count));
+        }
+    }
+
+    void flush() {
+        if (count > 0) {
+            buffer.writeByte((byte) (bits << (8 - count)));
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,614 @@
+package io.packable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ColumnarBatch
+ * 作用：按列（struct-of-arrays）编码对象列表。
+ * <br>
+ * 每个对象先用 adapter 编码，再按字段下标拆分，同一个下标的字段汇集成一列：
+ * 数值列按固定宽度连续存放；字符串、数组和子对象列连续存放 value 的字节，重复值较多时使用字典。
+ * 与 {@link PackEncoder#encodeObjectList} 相比，不需要每个对象重复 tag 和长度前缀，同一列的值也相邻存放。
+ * <br>
+ * 用法如：
+ * <pre>
+ * byte[] bytes = ColumnarBatch.encode(list, DATA_ADAPTER);
+ * ColumnarBatch batch = new ColumnarBatch(bytes);
+ * long[] values = batch.getLongColumn(9);
+ * List&lt;Data&gt; rows = batch.decodeRows(DATA_ADAPTER);
+ * </pre>
+ * 只读取少数几列时，不需要解码整个对象。
+ * 列的值与 PackDecoder 读取对应字段的结果一致：字段缺失时数值为 0，字符串为 null。
+ */
+public final class ColumnarBatch {
+    private static final int KIND_NUMBER = 0;
+    private static final int KIND_VAR = 1;
+    private static final int KIND_DICT = 2;
+    // 所有值的 tag 类型都是 TYPE_0（数值 0 或者空的变长值），两种读取方式都可以
+    private static final int KIND_ZERO = 3;
+
+    // batch 的字段
+    private static final int ROW_COUNT = 0;
+    private static final int COLUMNS = 1;
+
+    // 列的字段
+    private static final int FIELD_INDEX = 0;
+    private static final int KIND = 1;
+    private static final int WIDTH = 2;
+    private static final int PRESENCE = 3;
+    private static final int DATA = 4;
+    private static final int LENGTHS = 5;
+    private static final int DICT_INDEXES = 6;
+
+    private static final int MAX_INDEX = 255;
+
+    private final byte[] bytes;
+    private final int rowCount;
+    private final Column[] columns;
+
+    // 字段下标 -> columns 中的位置, -1 表示不存在
+    private final short[] slots = new short[MAX_INDEX + 1];
+
+    public ColumnarBatch(byte[] bytes) {
+        this.bytes = bytes;
+        Arrays.fill(slots, (short) -1);
+        PackDecoder decoder = new PackDecoder(bytes);
+        rowCount = decoder.getInt(ROW_COUNT);
+        if (rowCount < 0) {
+            throw new IllegalStateException("invalid row count");
+        }
+        List<ByteBuffer> list = decoder.getRawObjectList(COLUMNS);
+        decoder.recycle();
+        int n = list == null ? 0 : list.size();
+        columns = new Column[n];
+        for (int i = 0; i < n; i++) {
+            ByteBuffer raw = list.get(i);
+            if (raw == null) {
+                throw new IllegalStateException("invalid columnar data");
+            }
+            Column c = new Column(raw.arrayOffset() + raw.position(), raw.remaining());
+            PackDecoder d = c.open();
+            c.fieldIndex = d.getInt(FIELD_INDEX);
+            c.kind = d.getInt(KIND);
+            c.width = d.getInt(WIDTH);
+            d.recycle();
+            if (c.fieldIndex < 0 || c.fieldIndex > MAX_INDEX || slots[c.fieldIndex] >= 0) {
+                throw new IllegalStateException("invalid columnar data");
+            }
+            columns[i] = c;
+            slots[c.fieldIndex] = (short) i;
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 是否有对象包含下标为 fieldIndex 的字段
+     */
+    public boolean hasColumn(int fieldIndex) {
+        return findColumn(fieldIndex) != null;
+    }
+
+    private Column findColumn(int fieldIndex) {
+        if (fieldIndex < 0 || fieldIndex > MAX_INDEX) {
+            return null;
+        }
+        int i = slots[fieldIndex];
+        return i < 0 ? null : columns[i];
+    }
+
+    public boolean[] getBooleanColumn(int fieldIndex) {
+        boolean[] a = new boolean[rowCount];
+        Column c = findColumn(fieldIndex);
+        if (c != null) {
+            NumberReader reader = new NumberReader(c);
+            for (int i = 0; i < rowCount; i++) {
+                a[i] = reader.present(i) && reader.read() == 1;
+            }
+        }
+        return a;
+    }
+
+    public int[] getIntColumn(int fieldIndex) {
+        int[] a = new int[rowCount];
+        Column c = findColumn(fieldIndex);
+        if (c != null) {
+            NumberReader reader = new NumberReader(c);
+            for (int i = 0; i < rowCount; i++) {
+                if (reader.present(i)) {
+                    a[i] = (int) reader.read();
+                }
+            }
+        }
+        return a;
+    }
+
+    public long[] getLongColumn(int fieldIndex) {
+        long[] a = new long[rowCount];
+        Column c = findColumn(fieldIndex);
+        if (c != null) {
+            NumberReader reader = new NumberReader(c);
+            for (int i = 0; i < rowCount; i++) {
+                if (reader.present(i)) {
+                    a[i] = reader.read();
+                }
+            }
+        }
+        return a;
+    }
+
+    public float[] getFloatColumn(int fieldIndex) {
+        float[] a = new float[rowCount];
+        Column c = findColumn(fieldIndex);
+        if (c != null) {
+            NumberReader reader = new NumberReader(c);
+            for (int i = 0; i < rowCount; i++) {
+                if (reader.present(i)) {
+                    a[i] = Float.intBitsToFloat((int) reader.read());
+                }
+            }
+        }
+        return a;
+    }
+
+    public double[] getDoubleColumn(int fieldIndex) {
+        double[] a = new double[rowCount];
+        Column c = findColumn(fieldIndex);
+        if (c != null) {
+            NumberReader reader = new NumberReader(c);
+            for (int i = 0; i < rowCount; i++) {
+                if (reader.present(i)) {
+                    a[i] = Double.longBitsToDouble(reader.read());
+                }
+            }
+        }
+        return a;
+    }
+
+    /**
+     * 字典编码的列，相同的值返回同一个 String 对象
+     */
+    public String[] getStringColumn(int fieldIndex) {
+        String[] a = new String[rowCount];
+        Column c = findColumn(fieldIndex);
+        if (c == null) {
+            return a;
+        }
+        VarReader reader = new VarReader(c);
+        String[] dict = null;
+        if (reader.dictOffsets != null) {
+            int n = reader.dictOffsets.length;
+            dict = new String[n];
+            for (int i = 0; i < n; i++) {
+                dict[i] = decodeString(reader.dictOffsets[i], reader.dictLengths[i]);
+            }
+        }
+        for (int i = 0; i < rowCount; i++) {
+            if (reader.next(i)) {
+                a[i] = dict != null ? dict[reader.dictIndex] : decodeString(reader.offset, reader.len);
+            }
+        }
+        return a;
+    }
+
+    private String decodeString(int offset, int len) {
+        return len == 0 ? "" : new String(bytes, offset, len, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 按行还原对象：将每一行的字段重新组装成 TLV，再用 adapter 解码
+     */
+    public <T> List<T> decodeRows(TypeAdapter<T> adapter) {
+        int n = columns.length;
+        NumberReader[] numberReaders = new NumberReader[n];
+        VarReader[] varReaders = new VarReader[n];
+        for (int i = 0; i < n; i++) {
+            if (columns[i].kind == KIND_NUMBER || columns[i].kind == KIND_ZERO) {
+                numberReaders[i] = new NumberReader(columns[i]);
+            } else {
+                varReaders[i] = new VarReader(columns[i]);
+            }
+        }
+        List<T> rows = new ArrayList<>(rowCount);
+        PackEncoder encoder = new PackEncoder();
+        for (int r = 0; r < rowCount; r++) {
+            encoder.clear();
+            for (int i = 0; i < n; i++) {
+                int index = columns[i].fieldIndex;
+                NumberReader numberReader = numberReaders[i];
+                if (numberReader != null) {
+                    if (numberReader.present(r)) {
+                        encoder.putLong(index, numberReader.read());
+                    }
+                } else {
+                    VarReader varReader = varReaders[i];
+                    if (varReader.next(r)) {
+                        encoder.wrapTagAndLength(index, varReader.len);
+                        encoder.writeBytes(bytes, varReader.offset, varReader.len);
+                    }
+                }
+            }
+            rows.add(PackDecoder.decode(encoder.array(), 0, encoder.size(), adapter));
+        }
+        encoder.recycle();
+        return rows;
+    }
+
+    private final class Column {
+        final int offset;
+        final int len;
+        int fieldIndex;
+        int kind;
+        int width;
+
+        Column(int offset, int len) {
+            this.offset = offset;
+            this.len = len;
+        }
+
+        PackDecoder open() {
+            return new PackDecoder(bytes, offset, len);
+        }
+    }
+
+    private static boolean[] readPresence(PackDecoder decoder, int rowCount) {
+        boolean[] presence = decoder.getBooleanArray(PRESENCE);
+        if (presence != null && presence.length != rowCount) {
+            throw new IllegalStateException("invalid columnar data");
+        }
+        return presence;
+    }
+
+    private static int countPresent(boolean[] presence, int rowCount) {
+        if (presence == null) {
+            return rowCount;
+        }
+        int count = 0;
+        for (boolean b : presence) {
+            if (b) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 顺序读取数值列，不存在的行不占空间
+     */
+    private final class NumberReader {
+        private final boolean[] presence;
+        private final int width;
+        private int position;
+
+        NumberReader(Column c) {
+            if (c.kind != KIND_NUMBER && c.kind != KIND_ZERO) {
+                throw new IllegalStateException("column " + c.fieldIndex + " is not a number column");
+            }
+            if (c.width < 0 || c.width > 8 || (c.kind == KIND_ZERO && c.width != 0)) {
+                throw new IllegalStateException("invalid columnar data");
+            }
+            PackDecoder decoder = c.open();
+            presence = readPresence(decoder, rowCount);
+            ByteBuffer data = decoder.getRawObject(DATA);
+            decoder.recycle();
+            width = c.width;
+            int dataLen = data == null ? 0 : data.remaining();
+            if ((long) countPresent(presence, rowCount) * width != dataLen) {
+                throw new IllegalStateException("invalid columnar data");
+            }
+            position = data == null ? 0 : data.arrayOffset() + data.position();
+        }
+
+        boolean present(int row) {
+            return presence == null || presence[row];
+        }
+
+        long read() {
+            long v = 0L;
+            for (int i = 0; i < width; i++) {
+                v |= (bytes[position + i] & 0xffL) << (i << 3);
+            }
+            position += width;
+            return v;
+        }
+    }
+
+    /**
+     * 顺序读取变长列（包括字典列），next 返回 true 时，值位于 [offset, offset + len)
+     */
+    private final class VarReader {
+        private final boolean[] presence;
+        private int[] lengths;
+        private int dataPos;
+        private int k;
+
+        // 字典列
+        int[] dictOffsets;
+        int[] dictLengths;
+        private int width;
+        private int indexPos;
+
+        int offset;
+        int len;
+        int dictIndex;
+
+        VarReader(Column c) {
+            if (c.kind != KIND_VAR && c.kind != KIND_DICT && c.kind != KIND_ZERO) {
+                throw new IllegalStateException("column " + c.fieldIndex + " is not a variable-length column");
+            }
+            PackDecoder decoder = c.open();
+            presence = readPresence(decoder, rowCount);
+            int presentCount = countPresent(presence, rowCount);
+            ByteBuffer data = decoder.getRawObject(DATA);
+            int[] lens = decoder.getIntArray(LENGTHS);
+            ByteBuffer indexes = decoder.getRawObject(DICT_INDEXES);
+            decoder.recycle();
+            int start = data == null ? 0 : data.arrayOffset() + data.position();
+            int dataLen = data == null ? 0 : data.remaining();
+            if (lens == null) {
+                lens = new int[c.kind == KIND_ZERO ? presentCount : 0];
+            }
+            long total = 0;
+            for (int l : lens) {
+                if (l < 0) {
+                    throw new IllegalStateException("invalid columnar data");
+                }
+                total += l;
+            }
+            if (total != dataLen) {
+                throw new IllegalStateException("invalid columnar data");
+            }
+            if (c.kind == KIND_VAR || c.kind == KIND_ZERO) {
+                if (lens.length != presentCount) {
+                    throw new IllegalStateException("invalid columnar data");
+                }
+                lengths = lens;
+                dataPos = start;
+            } else {
+                width = c.width;
+                int indexLen = indexes == null ? 0 : indexes.remaining();
+                if ((width != 1 && width != 2 && width != 4) || (long) presentCount * width != indexLen) {
+                    throw new IllegalStateException("invalid columnar data");
+                }
+                int n = lens.length;
+                dictOffsets = new int[n];
+                dictLengths = lens;
+                int p = start;
+                for (int i = 0; i < n; i++) {
+                    dictOffsets[i] = p;
+                    p += lens[i];
+                }
+                indexPos = indexes == null ? 0 : indexes.arrayOffset() + indexes.position();
+            }
+        }
+
+        boolean next(int row) {
+            if (presence != null && !presence[row]) {
+                return false;
+            }
+            if (dictOffsets == null) {
+                offset = dataPos;
+                len = lengths[k++];
+                dataPos += len;
+            } else {
+                int i = 0;
+                for (int j = 0; j < width; j++) {
+                    i |= (bytes[indexPos + j] & 0xff) << (j << 3);
+                }
+                indexPos += width;
+                if (i < 0 || i >= dictOffsets.length) {
+                    throw new IllegalStateException("invalid columnar data");
+                }
+                dictIndex = i;
+                offset = dictOffsets[i];
+                len = dictLengths[i];
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 按列编码对象列表，列表中不能有 null。
+     */
+    public static <T> byte[] encode(List<T> rows, TypeAdapter<T> adapter) {
+        int n = rows.size();
+        ColumnBuilder[] builders = new ColumnBuilder[MAX_INDEX + 1];
+        List<ColumnBuilder> order = new ArrayList<>();
+        PackEncoder rowEncoder = new PackEncoder();
+        int r = 0;
+        for (T row : rows) {
+            if (row == null) {
+                throw new IllegalArgumentException("not support null row");
+            }
+            rowEncoder.clear();
+            adapter.encode(rowEncoder, row);
+            byte[] hb = rowEncoder.array();
+            FieldList fields = FieldList.parse(hb, 0, rowEncoder.size());
+            if (fields == null) {
+                throw new IllegalArgumentException("invalid pack data at row " + r);
+            }
+            for (int i = 0; i < fields.count; i++) {
+                int index = fields.indexes[i];
+                ColumnBuilder builder = builders[index];
+                if (builder == null) {
+                    builder = new ColumnBuilder(index, n);
+                    builders[index] = builder;
+                    order.add(builder);
+                }
+                builder.add(r, fields.types[i], hb, fields.valuePos[i], fields.ends[i]);
+            }
+            r++;
+        }
+        rowEncoder.recycle();
+
+        List<byte[]> encodedColumns = new ArrayList<>(order.size());
+        PackEncoder columnEncoder = new PackEncoder();
+        for (ColumnBuilder builder : order) {
+            columnEncoder.clear();
+            writeColumn(columnEncoder, builder);
+            encodedColumns.add(Arrays.copyOf(columnEncoder.array(), columnEncoder.size()));
+        }
+        columnEncoder.recycle();
+
+        PackEncoder encoder = new PackEncoder();
+        encoder.putInt(ROW_COUNT, n);
+        encoder.putEncodedObjectList(COLUMNS, encodedColumns);
+        return encoder.toBytes();
+    }
+
+    private static final class ColumnBuilder {
+        final int fieldIndex;
+        final boolean[] presence;
+        int presentCount;
+
+        boolean hasNumber;
+        boolean hasVar;
+        int width;
+
+        // 按存在的行依次记录：数值，或者变长值在 data 中的长度
+        long[] numbers = new long[16];
+        int[] lengths = new int[16];
+        byte[] data = new byte[64];
+        int dataSize;
+
+        ColumnBuilder(int fieldIndex, int rowCount) {
+            this.fieldIndex = fieldIndex;
+            this.presence = new boolean[rowCount];
+        }
+
+        void add(int row, byte type, byte[] hb, int start, int end) {
+            presence[row] = true;
+            int k = presentCount++;
+            if (k == numbers.length) {
+                numbers = Arrays.copyOf(numbers, k << 1);
+                lengths = Arrays.copyOf(lengths, k << 1);
+            }
+            int len = end - start;
+            if (type == TagFormat.TYPE_0) {
+                // 数值 0 或者空的变长值，两种列都可以表示
+                numbers[k] = 0L;
+                lengths[k] = 0;
+            } else if (type <= TagFormat.TYPE_NUM_64) {
+                hasNumber = true;
+                long v = 0L;
+                for (int i = 0; i < len; i++) {
+                    v |= (hb[start + i] & 0xffL) << (i << 3);
+                }
+                numbers[k] = v;
+                width = Math.max(width, getWidth(v));
+            } else {
+                hasVar = true;
+                if (dataSize + len > data.length) {
+                    data = Arrays.copyOf(data, Math.max(data.length << 1, dataSize + len));
+                }
+                System.arraycopy(hb, start, data, dataSize, len);
+                dataSize += len;
+                lengths[k] = len;
+            }
+            if (hasNumber && hasVar) {
+                throw new IllegalArgumentException("field " + fieldIndex + " has both number and variable-length values");
+            }
+        }
+
+        private static int getWidth(long v) {
+            if (v == 0L) {
+                return 0;
+            } else if ((v >>> 8) == 0) {
+                return 1;
+            } else if ((v >>> 16) == 0) {
+                return 2;
+            } else if ((v >>> 32) == 0) {
+                return 4;
+            }
+            return 8;
+        }
+    }
+
+    private static void writeColumn(PackEncoder encoder, ColumnBuilder b) {
+        encoder.putInt(FIELD_INDEX, b.fieldIndex);
+        if (b.presentCount < b.presence.length) {
+            encoder.putBooleanArray(PRESENCE, b.presence);
+        }
+        int n = b.presentCount;
+        if (!b.hasNumber && !b.hasVar) {
+            encoder.putInt(KIND, KIND_ZERO);
+            return;
+        }
+        if (b.hasNumber) {
+            int w = b.width;
+            encoder.putInt(KIND, KIND_NUMBER).putInt(WIDTH, w);
+            if (w > 0) {
+                byte[] a = new byte[n * w];
+                for (int i = 0, p = 0; i < n; i++) {
+                    long v = b.numbers[i];
+                    for (int j = 0; j < w; j++) {
+                        a[p++] = (byte) (v >> (j << 3));
+                    }
+                }
+                encoder.putByteArray(DATA, a);
+            }
+            return;
+        }
+
+        // 统计不同的值，重复较多时使用字典
+        Map<ByteBuffer, Integer> dict = new HashMap<>();
+        int[] indexes = new int[n];
+        for (int i = 0, p = 0; i < n; i++) {
+            int len = b.lengths[i];
+            ByteBuffer key = ByteBuffer.wrap(b.data, p, len);
+            Integer id = dict.get(key);
+            if (id == null) {
+                id = dict.size();
+                dict.put(key, id);
+            }
+            indexes[i] = id;
+            p += len;
+        }
+        int dictSize = dict.size();
+        if (dictSize * 2 > n) {
+            encoder.putInt(KIND, KIND_VAR);
+            if (b.dataSize > 0) {
+                encoder.wrapTagAndLength(DATA, b.dataSize);
+                encoder.writeBytes(b.data, 0, b.dataSize);
+            }
+            encoder.putIntArray(LENGTHS, Arrays.copyOf(b.lengths, n));
+            return;
+        }
+
+        int w = dictSize <= 0x100 ? 1 : (dictSize <= 0x10000 ? 2 : 4);
+        encoder.putInt(KIND, KIND_DICT).putInt(WIDTH, w);
+        ByteBuffer[] entries = new ByteBuffer[dictSize];
+        for (Map.Entry<ByteBuffer, Integer> e : dict.entrySet()) {
+            entries[e.getValue()] = e.getKey();
+        }
+        int[] entryLengths = new int[dictSize];
+        int total = 0;
+        for (int i = 0; i < dictSize; i++) {
+            entryLengths[i] = entries[i].remaining();
+            total += entryLengths[i];
+        }
+        if (total > 0) {
+            encoder.wrapTagAndLength(DATA, total);
+            for (ByteBuffer e : entries) {
+                encoder.writeBytes(e.array(), e.position(), e.remaining());
+            }
+        }
+        encoder.putIntArray(LENGTHS, entryLengths);
+        byte[] a = new byte[n * w];
+        for (int i = 0, p = 0; i < n; i++) {
+            int id = indexes[i];
+            for (int j = 0; j < w; j++) {
+                a[p++] = (byte) (id >> (j << 3));
+            }
+        }
+        encoder.putByteArray(DICT_INDEXES, a);
+    }
+}
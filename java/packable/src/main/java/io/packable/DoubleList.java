@@ -0,0 +1,151 @@
+package io.packable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * 以 double[] 存储元素的 List，避免每个元素一个 Double 对象。
+ * <br>
+ * 通过 getDouble/setDouble/addDouble 读写时不装箱；作为 List&lt;Double&gt; 使用时，只在访问元素时才装箱。
+ * <br>
+ * {@link PackDecoder#getDoubleList} 返回此类型；{@link PackEncoder#putDoubleList} 遇到此类型时直接写入数组，不经过装箱和临时数组。
+ */
+public final class DoubleList extends AbstractList<Double> implements RandomAccess {
+    private static final double[] EMPTY = new double[0];
+
+    private double[] elements;
+    private int size;
+
+    public DoubleList() {
+        elements = EMPTY;
+    }
+
+    public DoubleList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("illegal capacity: " + capacity);
+        }
+        elements = capacity == 0 ? EMPTY : new double[capacity];
+    }
+
+    /**
+     * 直接使用数组 a 作为存储（不复制），之后对 List 的修改会写入 a（直到扩容）。
+     */
+    public static DoubleList wrap(double[] a) {
+        DoubleList list = new DoubleList();
+        list.elements = a;
+        list.size = a.length;
+        return list;
+    }
+
+    double[] array() {
+        return elements;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index:" + index + " size:" + size);
+        }
+    }
+
+    public double getDouble(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public double setDouble(int index, double value) {
+        checkIndex(index);
+        double old = elements[index];
+        elements[index] = value;
+        return old;
+    }
+
+    public void addDouble(double value) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = value;
+        modCount++;
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(minCapacity, Math.max(elements.length + (elements.length >> 1), 8));
+        elements = Arrays.copyOf(elements, newCapacity);
+    }
+
+    @Override
+    public Double get(int index) {
+        return getDouble(index);
+    }
+
+    @Override
+    public Double set(int index, Double element) {
+        return setDouble(index, element);
+    }
+
+    @Override
+    public void add(int index, Double element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index:" + index + " size:" + size);
+        }
+        double value = element;
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Double remove(int index) {
+        checkIndex(index);
+        double old = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    public double[] toDoubleArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof DoubleList) {
+            DoubleList other = (DoubleList) o;
+            if (size != other.size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (Double.doubleToLongBits(elements[i]) != Double.doubleToLongBits(other.elements[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + Double.hashCode(elements[i]);
+        }
+        return h;
+    }
+}
@@ -1,16 +1,57 @@
 package io.packable;
 
+import java.util.Arrays;
+
 final class EncodeBuffer {
     private volatile static int sMaxAllocated = 4096;
 
     byte[] hb;
     int position;
 
+    /*
+     * 分段模式（segmentSize > 0）：
+     * 已写满的内容被封存为分段，之后换用新的数组继续写入，不需要拷贝之前的内容，
+     * 总大小也不受 MAX_BUFFER_SIZE 的限制（MAX_BUFFER_SIZE 只限制单个数组）。
+     */
+    int segmentSize;
+    byte[][] segments;
+    int[] segmentLengths;
+    int segmentCount;
+    long sealedSize;
+
     EncodeBuffer(byte[] array) {
         hb = array;
         position = 0;
     }
 
+    /**
+     * 封存 [0, position) 为一个分段，换用新的数组继续写入。
+     * <br>
+     * 调用方需要保证此时没有记录旧数组中的位置（例如待回填的长度）。
+     * 新数组的剩余容量不小于旧数组的剩余容量，所以之前 checkCapacity 的结果仍然有效。
+     */
+    void seal() {
+        if (position == 0) {
+            return;
+        }
+        if (segments == null) {
+            segments = new byte[8][];
+            segmentLengths = new int[8];
+        } else if (segmentCount == segments.length) {
+            segments = Arrays.copyOf(segments, segmentCount << 1);
+            segmentLengths = Arrays.copyOf(segmentLengths, segmentCount << 1);
+        }
+        segments[segmentCount] = hb;
+        segmentLengths[segmentCount++] = position;
+        sealedSize += position;
+        hb = ByteArrayPool.getArray(Math.max(segmentSize, hb.length - position));
+        position = 0;
+    }
+
+    long totalSize() {
+        return sealedSize + position;
+    }
+
     public void writeByte(byte v) {
         hb[position++] = v;
     }
@@ -60,7 +101,7 @@ final class EncodeBuffer {
         hb[position + 2] = -1;
         hb[position + 3] = -1;
         hb[position + 4] = 15;
-        position+=4;
+        position += 5;
     }
 
     public int writeVarInt32(int i, int v) {
@@ -97,9 +138,12 @@ final class EncodeBuffer {
     }
 
     public void writeBytes(byte[] src) {
-        int len = src.length;
+        writeBytes(src, 0, src.length);
+    }
+
+    public void writeBytes(byte[] src, int offset, int len) {
         if (len > 0) {
-            System.arraycopy(src, 0, hb, position, len);
+            System.arraycopy(src, offset, hb, position, len);
             position += len;
         }
     }
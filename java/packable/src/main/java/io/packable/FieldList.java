@@ -0,0 +1,97 @@
+package io.packable;
+
+import java.util.Arrays;
+
+/**
+ * 对象的字段列表（按照编码顺序）
+ * <br>
+ * 记录每个字段的下标、类型、tag 位置、value 位置和结束位置，
+ * 用于 {@link PackDiff} 和 {@link PackMerge} 逐字段比较和合并。
+ */
+final class FieldList {
+    private static final int MAX_INDEX = 255;
+
+    int count;
+    int[] indexes = new int[16];
+    byte[] types = new byte[16];
+    int[] tagPos = new int[16];
+    int[] valuePos = new int[16];
+    int[] ends = new int[16];
+
+    // 下标 -> 在列表中的位置, -1 表示不存在
+    private final short[] slots = new short[MAX_INDEX + 1];
+
+    private FieldList() {
+        Arrays.fill(slots, (short) -1);
+    }
+
+    int find(int index) {
+        return slots[index];
+    }
+
+    /**
+     * 解析 [offset, limit) 区间内的字段。
+     * 如果数据不是合法的对象（越界、下标重复、或者 tag 不是标准编码），返回 null。
+     * <br>
+     * 要求 tag 是标准编码（下标小于16时只占1个字节），
+     * 这样按照字段的下标和类型重新生成的 tag 和原来的字节完全相同。
+     */
+    static FieldList parse(byte[] hb, int offset, int limit) {
+        FieldList list = new FieldList();
+        int p = offset;
+        while (p < limit) {
+            int pTag = p;
+            byte tag = hb[p++];
+            int index;
+            if ((tag & TagFormat.BIG_INDEX_MASK) == 0) {
+                index = tag & TagFormat.INDEX_MASK;
+            } else {
+                if ((tag & TagFormat.INDEX_MASK) != 0 || p >= limit) {
+                    return null;
+                }
+                index = hb[p++] & 0xff;
+                if (index < TagFormat.LITTLE_INDEX_BOUND) {
+                    return null;
+                }
+            }
+            byte type = (byte) (tag & TagFormat.TYPE_MASK);
+            int len;
+            if (type <= TagFormat.TYPE_NUM_64) {
+                len = type == TagFormat.TYPE_0 ? 0 : 1 << ((type >> 4) - 1);
+            } else {
+                int sizeOfLen = 1 << ((type >> 4) - 5);
+                if (p + sizeOfLen > limit) {
+                    return null;
+                }
+                len = 0;
+                for (int i = 0; i < sizeOfLen; i++) {
+                    len |= (hb[p++] & 0xff) << (i << 3);
+                }
+            }
+            if (len < 0 || len > limit - p || list.slots[index] >= 0) {
+                return null;
+            }
+            list.add(index, type, pTag, p, p + len);
+            p += len;
+        }
+        return list;
+    }
+
+    private void add(int index, byte type, int pTag, int pValue, int end) {
+        if (count == indexes.length) {
+            int n = count << 1;
+            indexes = Arrays.copyOf(indexes, n);
+            types = Arrays.copyOf(types, n);
+            tagPos = Arrays.copyOf(tagPos, n);
+            valuePos = Arrays.copyOf(valuePos, n);
+            ends = Arrays.copyOf(ends, n);
+        }
+        indexes[count] = index;
+        types[count] = type;
+        tagPos[count] = pTag;
+        valuePos[count] = pValue;
+        ends[count] = end;
+        slots[index] = (short) count;
+        count++;
+    }
+}
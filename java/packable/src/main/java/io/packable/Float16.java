@@ -0,0 +1,75 @@
+package io.packable;
+
+/**
+ * 半精度浮点数的转换：IEEE 754 binary16 (fp16) 和 bfloat16。
+ * <br>
+ * float 转换为 16 位时按“四舍六入五成双”舍入，NaN 转换后仍为 NaN。
+ */
+final class Float16 {
+    private Float16() {
+    }
+
+    static short floatToHalf(float f) {
+        int bits = Float.floatToRawIntBits(f);
+        int sign = (bits >>> 16) & 0x8000;
+        int abs = bits & 0x7fffffff;
+        if (abs >= 0x7f800000) {
+            // Infinity 或者 NaN
+            return (short) (sign | 0x7c00 | (abs > 0x7f800000 ? 0x200 | ((abs >>> 13) & 0x3ff) : 0));
+        }
+        if (abs >= 0x477ff000) {
+            // 大于等于 65520, 超出 fp16 的范围
+            return (short) (sign | 0x7c00);
+        }
+        if (abs <= 0x33000000) {
+            // 小于等于 2^-25, 舍入为 0
+            return (short) sign;
+        }
+        int exp = abs >>> 23;
+        if (exp < 113) {
+            // 非规格化数, 单位为 2^-24
+            int mant = (abs & 0x7fffff) | 0x800000;
+            int shift = 126 - exp;
+            int h = mant >>> shift;
+            int rem = mant & ((1 << shift) - 1);
+            int half = 1 << (shift - 1);
+            if (rem > half || (rem == half && (h & 1) != 0)) {
+                h++;
+            }
+            return (short) (sign | h);
+        }
+        int h = ((exp - 112) << 10) | ((abs >>> 13) & 0x3ff);
+        int rem = abs & 0x1fff;
+        if (rem > 0x1000 || (rem == 0x1000 && (h & 1) != 0)) {
+            // 进位可能溢出到指数部分，结果仍然正确
+            h++;
+        }
+        return (short) (sign | h);
+    }
+
+    static float halfToFloat(short half) {
+        int h = half & 0xffff;
+        int sign = (h & 0x8000) << 16;
+        int exp = (h >>> 10) & 0x1f;
+        int mant = h & 0x3ff;
+        if (exp == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mant << 13));
+        }
+        if (exp == 0) {
+            // 非规格化数: mant * 2^-24
+            float v = mant * 5.9604645E-8f;
+            return sign == 0 ? v : -v;
+        }
+        return Float.intBitsToFloat(sign | ((exp + 112) << 23) | (mant << 13));
+    }
+
+    static short floatToBFloat16(float f) {
+        int bits = Float.floatToRawIntBits(f);
+        if ((bits & 0x7fffffff) > 0x7f800000) {
+            // 保留符号和高位尾数，并确保仍是 NaN
+            return (short) ((bits >>> 16) | 0x40);
+        }
+        bits += 0x7fff + ((bits >>> 16) & 1);
+        return (short) (bits >>> 16);
+    }
+}
@@ -0,0 +1,151 @@
+package io.packable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * 以 float[] 存储元素的 List，避免每个元素一个 Float 对象。
+ * <br>
+ * 通过 getFloat/setFloat/addFloat 读写时不装箱；作为 List&lt;Float&gt; 使用时，只在访问元素时才装箱。
+ * <br>
+ * {@link PackDecoder#getFloatList} 返回此类型；{@link PackEncoder#putFloatList} 遇到此类型时直接写入数组，不经过装箱和临时数组。
+ */
+public final class FloatList extends AbstractList<Float> implements RandomAccess {
+    private static final float[] EMPTY = new float[0];
+
+    private float[] elements;
+    private int size;
+
+    public FloatList() {
+        elements = EMPTY;
+    }
+
+    public FloatList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("illegal capacity: " + capacity);
+        }
+        elements = capacity == 0 ? EMPTY : new float[capacity];
+    }
+
+    /**
+     * 直接使用数组 a 作为存储（不复制），之后对 List 的修改会写入 a（直到扩容）。
+     */
+    public static FloatList wrap(float[] a) {
+        FloatList list = new FloatList();
+        list.elements = a;
+        list.size = a.length;
+        return list;
+    }
+
+    float[] array() {
+        return elements;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index:" + index + " size:" + size);
+        }
+    }
+
+    public float getFloat(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public float setFloat(int index, float value) {
+        checkIndex(index);
+        float old = elements[index];
+        elements[index] = value;
+        return old;
+    }
+
+    public void addFloat(float value) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = value;
+        modCount++;
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(minCapacity, Math.max(elements.length + (elements.length >> 1), 8));
+        elements = Arrays.copyOf(elements, newCapacity);
+    }
+
+    @Override
+    public Float get(int index) {
+        return getFloat(index);
+    }
+
+    @Override
+    public Float set(int index, Float element) {
+        return setFloat(index, element);
+    }
+
+    @Override
+    public void add(int index, Float element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index:" + index + " size:" + size);
+        }
+        float value = element;
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Float remove(int index) {
+        checkIndex(index);
+        float old = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    public float[] toFloatArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof FloatList) {
+            FloatList other = (FloatList) o;
+            if (size != other.size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (Float.floatToIntBits(elements[i]) != Float.floatToIntBits(other.elements[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + Float.hashCode(elements[i]);
+        }
+        return h;
+    }
+}
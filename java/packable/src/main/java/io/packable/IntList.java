@@ -0,0 +1,151 @@
+package io.packable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * 以 int[] 存储元素的 List，避免每个元素一个 Integer 对象。
+ * <br>
+ * 通过 getInt/setInt/addInt 读写时不装箱；作为 List&lt;Integer&gt; 使用时，只在访问元素时才装箱。
+ * <br>
+ * {@link PackDecoder#getIntList} 返回此类型；{@link PackEncoder#putIntList} 遇到此类型时直接写入数组，不经过装箱和临时数组。
+ */
+public final class IntList extends AbstractList<Integer> implements RandomAccess {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] elements;
+    private int size;
+
+    public IntList() {
+        elements = EMPTY;
+    }
+
+    public IntList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("illegal capacity: " + capacity);
+        }
+        elements = capacity == 0 ? EMPTY : new int[capacity];
+    }
+
+    /**
+     * 直接使用数组 a 作为存储（不复制），之后对 List 的修改会写入 a（直到扩容）。
+     */
+    public static IntList wrap(int[] a) {
+        IntList list = new IntList();
+        list.elements = a;
+        list.size = a.length;
+        return list;
+    }
+
+    int[] array() {
+        return elements;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index:" + index + " size:" + size);
+        }
+    }
+
+    public int getInt(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public int setInt(int index, int value) {
+        checkIndex(index);
+        int old = elements[index];
+        elements[index] = value;
+        return old;
+    }
+
+    public void addInt(int value) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = value;
+        modCount++;
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(minCapacity, Math.max(elements.length + (elements.length >> 1), 8));
+        elements = Arrays.copyOf(elements, newCapacity);
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public Integer set(int index, Integer element) {
+        return setInt(index, element);
+    }
+
+    @Override
+    public void add(int index, Integer element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index:" + index + " size:" + size);
+        }
+        int value = element;
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Integer remove(int index) {
+        checkIndex(index);
+        int old = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    public int[] toIntArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof IntList) {
+            IntList other = (IntList) o;
+            if (size != other.size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (elements[i] != other.elements[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + Integer.hashCode(elements[i]);
+        }
+        return h;
+    }
+}
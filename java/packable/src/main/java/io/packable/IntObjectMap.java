@@ -0,0 +1,241 @@
+package io.packable;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * key 为 int、value 为对象的哈希表（开放寻址，线性探测），key 不装箱。
+ * <br>
+ * 用于 {@link PackEncoder#putIntObjectMap} 和 {@link PackDecoder#getIntObjectMap}，
+ * 编码格式与 putMap(index, Map&lt;Integer, V&gt;) 相同。
+ */
+public final class IntObjectMap<V> {
+    /**
+     * 遍历回调
+     */
+    public interface Visitor<V> {
+        void visit(int key, V value);
+    }
+
+    private static final int MIN_CAPACITY = 8;
+
+    // key 为 0 的槽位表示空位，key 为 0 的元素单独存放
+    private int[] keys;
+    private Object[] values;
+    private boolean hasZeroKey;
+    private V zeroValue;
+    private int size;
+    private int mask;
+    private int threshold;
+
+    public IntObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("illegal size: " + expectedSize);
+        }
+        // 负载因子 0.75
+        long need = (long) expectedSize * 4 / 3 + 1;
+        int capacity = MIN_CAPACITY;
+        while (capacity < need) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = capacity - (capacity >> 2);
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int find(int key) {
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean containsKey(int key) {
+        return key == 0 ? hasZeroKey : find(key) >= 0;
+    }
+
+    public V get(int key) {
+        return get(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key, V defValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defValue;
+        }
+        int i = find(key);
+        return i >= 0 ? (V) values[i] : defValue;
+    }
+
+    public void put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value is null");
+        }
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public void remove(int key) {
+        if (key == 0) {
+            if (hasZeroKey) {
+                hasZeroKey = false;
+                zeroValue = null;
+                size--;
+            }
+            return;
+        }
+        int i = find(key);
+        if (i < 0) {
+            return;
+        }
+        size--;
+        // 删除后将后续同一探测链上的元素前移，保证查找不会提前遇到空位
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            int k = keys[j];
+            if (k == 0) {
+                break;
+            }
+            int home = hash(k) & mask;
+            // home 不在 (i, j] 区间内时，元素可以移动到 i
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = k;
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = 0;
+        values[i] = null;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int k = oldKeys[i];
+            if (k != 0) {
+                int j = hash(k) & mask;
+                while (keys[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = k;
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Visitor<V> visitor) {
+        if (hasZeroKey) {
+            visitor.visit(0, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                visitor.visit(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    public int[] keys() {
+        int[] a = new int[size];
+        int n = 0;
+        if (hasZeroKey) {
+            a[n++] = 0;
+        }
+        for (int k : keys) {
+            if (k != 0) {
+                a[n++] = k;
+            }
+        }
+        return a;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntObjectMap)) return false;
+        IntObjectMap<?> other = (IntObjectMap<?>) o;
+        if (size != other.size || hasZeroKey != other.hasZeroKey) {
+            return false;
+        }
+        if (hasZeroKey && !Objects.equals(zeroValue, other.zeroValue)) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            int k = keys[i];
+            if (k != 0) {
+                int j = other.find(k);
+                if (j < 0 || !Objects.equals(values[i], other.values[j])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hasZeroKey ? Objects.hashCode(zeroValue) : 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                h += keys[i] ^ Objects.hashCode(values[i]);
+            }
+        }
+        return h;
+    }
+}
@@ -0,0 +1,151 @@
+package io.packable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * 以 long[] 存储元素的 List，避免每个元素一个 Long 对象。
+ * <br>
+ * 通过 getLong/setLong/addLong 读写时不装箱；作为 List&lt;Long&gt; 使用时，只在访问元素时才装箱。
+ * <br>
+ * {@link PackDecoder#getLongList} 返回此类型；{@link PackEncoder#putLongList} 遇到此类型时直接写入数组，不经过装箱和临时数组。
+ */
+public final class LongList extends AbstractList<Long> implements RandomAccess {
+    private static final long[] EMPTY = new long[0];
+
+    private long[] elements;
+    private int size;
+
+    public LongList() {
+        elements = EMPTY;
+    }
+
+    public LongList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("illegal capacity: " + capacity);
+        }
+        elements = capacity == 0 ? EMPTY : new long[capacity];
+    }
+
+    /**
+     * 直接使用数组 a 作为存储（不复制），之后对 List 的修改会写入 a（直到扩容）。
+     */
+    public static LongList wrap(long[] a) {
+        LongList list = new LongList();
+        list.elements = a;
+        list.size = a.length;
+        return list;
+    }
+
+    long[] array() {
+        return elements;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index:" + index + " size:" + size);
+        }
+    }
+
+    public long getLong(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public long setLong(int index, long value) {
+        checkIndex(index);
+        long old = elements[index];
+        elements[index] = value;
+        return old;
+    }
+
+    public void addLong(long value) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = value;
+        modCount++;
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(minCapacity, Math.max(elements.length + (elements.length >> 1), 8));
+        elements = Arrays.copyOf(elements, newCapacity);
+    }
+
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    @Override
+    public Long set(int index, Long element) {
+        return setLong(index, element);
+    }
+
+    @Override
+    public void add(int index, Long element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index:" + index + " size:" + size);
+        }
+        long value = element;
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Long remove(int index) {
+        checkIndex(index);
+        long old = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    public long[] toLongArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof LongList) {
+            LongList other = (LongList) o;
+            if (size != other.size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (elements[i] != other.elements[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + Long.hashCode(elements[i]);
+        }
+        return h;
+    }
+}
@@ -0,0 +1,308 @@
+package io.packable;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * PackCursor
+ * 作用：不经过 TypeAdapter 解码，直接在编码后的字节数组上按路径读取字段。
+ * <br>
+ * 用法如：
+ * <pre>
+ * PackCursor cursor = new PackCursor(bytes);
+ * String name = cursor.field(2).element(i).field(14).getString(0);
+ * </pre>
+ * 移动游标（field, element）只是沿着 Tag 和长度前缀跳转，不创建中间对象，
+ * 只有最终读取的结果（例如 String）需要分配内存。
+ * <br>
+ * 如果路径上某一层不存在（字段缺失或者元素为 null），游标进入“缺失”状态，
+ * 之后的移动操作都保持缺失状态，读取操作返回默认值。
+ * <br>
+ * 同一个游标可以通过 {@link #reset()} 回到根对象，或者通过 {@link #reset(byte[], int, int)} 复用于其他数据。
+ */
+public final class PackCursor {
+    private DecodeBuffer buffer;
+    private int rootOffset;
+    private int rootLimit;
+
+    // 当前所指向区域: [start, end)
+    private int start;
+    private int end;
+    private boolean missing;
+
+    // 当前区域的头部位置（字段的 tag 位置，或者数组元素的长度前缀位置），根对象为 -1
+    private int headerPos;
+
+    // 最近一次 seek 的结果
+    int tagPos;
+    byte valueType;
+    int valuePos;
+    int valueLen;
+
+    public PackCursor(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    public PackCursor(byte[] bytes, int offset, int len) {
+        reset(bytes, offset, len);
+    }
+
+    public PackCursor reset(byte[] bytes, int offset, int len) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("bytes is null");
+        }
+        if (offset < 0 || len < 0 || offset + len > bytes.length) {
+            throw new IllegalArgumentException("out of range, " +
+                    "size:" + bytes.length + " offset:" + offset + " length:" + len);
+        }
+        buffer = new DecodeBuffer(bytes, offset, len);
+        rootOffset = offset;
+        rootLimit = offset + len;
+        return reset();
+    }
+
+    /**
+     * 回到根对象
+     */
+    public PackCursor reset() {
+        start = rootOffset;
+        end = rootLimit;
+        missing = false;
+        headerPos = -1;
+        return this;
+    }
+
+    byte[] array() {
+        return buffer.hb;
+    }
+
+    int start() {
+        return start;
+    }
+
+    int end() {
+        return end;
+    }
+
+    int headerPos() {
+        return headerPos;
+    }
+
+    /**
+     * 当前路径是否存在
+     */
+    public boolean exists() {
+        return !missing;
+    }
+
+    /**
+     * 进入当前对象下标为 index 的字段（子对象或者对象数组）
+     */
+    public PackCursor field(int index) {
+        if (missing) {
+            return this;
+        }
+        if (!seek(index)) {
+            missing = true;
+            return this;
+        }
+        if (valueType != TagFormat.TYPE_0 && valueType < TagFormat.TYPE_VAR_8) {
+            throw new IllegalStateException("field " + index + " is not an object");
+        }
+        start = valuePos;
+        end = valuePos + valueLen;
+        headerPos = tagPos;
+        return this;
+    }
+
+    /**
+     * 当前区域为对象数组时，返回数组元素个数；路径不存在时返回 -1。
+     */
+    public int size() {
+        if (missing) {
+            return -1;
+        }
+        if (start == end) {
+            return 0;
+        }
+        buffer.position = start;
+        int n = buffer.readVarInt32();
+        if (n < 0 || n > PackConfig.maxObjectArraySize) {
+            throw new IllegalStateException("invalid size of object array");
+        }
+        return n;
+    }
+
+    /**
+     * 进入当前对象数组的第 i 个元素。
+     * 对象数组的元素没有索引，需要依次跳过前面 i 个元素的长度前缀。
+     */
+    public PackCursor element(int i) {
+        int n = size();
+        if (n < 0) {
+            return this;
+        }
+        if (i < 0 || i >= n) {
+            throw new IndexOutOfBoundsException("index:" + i + " size:" + n);
+        }
+        // size() 之后 buffer.position 位于第一个元素
+        for (int k = 0; ; k++) {
+            int pPrefix = buffer.position;
+            short a = buffer.readShort();
+            if (a == PackConfig.NULL_OBJECT_FLAG) {
+                if (k == i) {
+                    missing = true;
+                    return this;
+                }
+                continue;
+            }
+            int len = a >= 0 ? a : ((a & 0x7fff) << 16) | (buffer.readShort() & 0xffff);
+            int offset = buffer.position;
+            checkRegion(offset, len);
+            if (k == i) {
+                start = offset;
+                end = offset + len;
+                headerPos = pPrefix;
+                return this;
+            }
+            buffer.position = offset + len;
+        }
+    }
+
+    private void checkRegion(int offset, int len) {
+        if (len < 0 || offset + len > end) {
+            throw new IllegalArgumentException("invalid pack data");
+        }
+    }
+
+    /**
+     * 在当前对象中查找下标为 index 的字段。
+     * 找到则记录 tag 位置、类型、value 的位置和长度，返回 true。
+     */
+    boolean seek(int index) {
+        DecodeBuffer buf = buffer;
+        buf.position = start;
+        while (buf.position < end) {
+            int pTag = buf.position;
+            byte tag = buf.readByte();
+            int i = (tag & TagFormat.BIG_INDEX_MASK) == 0 ? tag & TagFormat.INDEX_MASK : buf.readByte() & 0xff;
+            byte type = (byte) (tag & TagFormat.TYPE_MASK);
+            int len;
+            if (type <= TagFormat.TYPE_NUM_64) {
+                len = type == TagFormat.TYPE_0 ? 0 : 1 << ((type >> 4) - 1);
+            } else if (type == TagFormat.TYPE_VAR_8) {
+                len = buf.readByte() & 0xff;
+            } else if (type == TagFormat.TYPE_VAR_16) {
+                len = buf.readShort() & 0xffff;
+            } else {
+                len = buf.readInt();
+            }
+            int pValue = buf.position;
+            checkRegion(pValue, len);
+            if (i == index) {
+                tagPos = pTag;
+                valueType = type;
+                valuePos = pValue;
+                valueLen = len;
+                return true;
+            }
+            buf.position = pValue + len;
+        }
+        return false;
+    }
+
+    /**
+     * 按照 Tag 类型读取数值（与 {@link PackDecoder} 解析 number 的方式一致）
+     */
+    private long readNumber() {
+        switch (valueType) {
+            case TagFormat.TYPE_0:
+                return 0L;
+            case TagFormat.TYPE_NUM_8:
+                return buffer.hb[valuePos] & 0xffL;
+            case TagFormat.TYPE_NUM_16:
+                return ((buffer.hb[valuePos] & 0xffL)) | ((buffer.hb[valuePos + 1] & 0xffL) << 8);
+            case TagFormat.TYPE_NUM_32:
+                buffer.position = valuePos;
+                return buffer.readInt() & 0xffffffffL;
+            case TagFormat.TYPE_NUM_64:
+                return buffer.readLong(valuePos);
+            default:
+                throw new IllegalStateException("value is not a number");
+        }
+    }
+
+    private boolean seekField(int index) {
+        return !missing && seek(index);
+    }
+
+    public boolean contains(int index) {
+        return seekField(index);
+    }
+
+    public boolean getBoolean(int index) {
+        return seekField(index) && readNumber() == 1;
+    }
+
+    public int getInt(int index) {
+        return getInt(index, 0);
+    }
+
+    public int getInt(int index, int defValue) {
+        return seekField(index) ? (int) readNumber() : defValue;
+    }
+
+    public long getLong(int index) {
+        return getLong(index, 0L);
+    }
+
+    public long getLong(int index, long defValue) {
+        return seekField(index) ? readNumber() : defValue;
+    }
+
+    public float getFloat(int index) {
+        return getFloat(index, 0f);
+    }
+
+    public float getFloat(int index, float defValue) {
+        return seekField(index) ? Float.intBitsToFloat((int) readNumber()) : defValue;
+    }
+
+    public double getDouble(int index) {
+        return getDouble(index, 0D);
+    }
+
+    public double getDouble(int index, double defValue) {
+        return seekField(index) ? Double.longBitsToDouble(readNumber()) : defValue;
+    }
+
+    public String getString(int index) {
+        return getString(index, null);
+    }
+
+    public String getString(int index, String defValue) {
+        if (!seekField(index)) {
+            return defValue;
+        }
+        if (valueLen == 0) {
+            return "";
+        }
+        return new String(buffer.hb, valuePos, valueLen, StandardCharsets.UTF_8);
+    }
+
+    public <T> T getObject(int index, TypeAdapter<T> adapter) {
+        if (!seekField(index)) {
+            return null;
+        }
+        return PackDecoder.decode(buffer.hb, valuePos, valueLen, adapter);
+    }
+
+    /**
+     * 用 adapter 解码当前所指向的对象，路径不存在时返回 null
+     */
+    public <T> T decode(TypeAdapter<T> adapter) {
+        if (missing) {
+            return null;
+        }
+        return PackDecoder.decode(buffer.hb, start, end - start, adapter);
+    }
+}
@@ -1,6 +1,11 @@
 package io.packable;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * PackDecoder
@@ -13,6 +18,17 @@ public final class PackDecoder {
     private static final long INT_MASK = 0xffffffffL;
     private static final int DECODER_POOL_CAPACITY = 8;
 
+    // 字节 -> 8 个 boolean（低位在前），用于批量展开 boolean 数组
+    private static final boolean[][] BITS_TABLE = new boolean[256][8];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            for (int i = 0; i < 8; i++) {
+                BITS_TABLE[b][i] = (b & (1 << i)) != 0;
+            }
+        }
+    }
+
     /**
      * 解析子对象时（包括递归调用或者解析对象数组）需要子 Decoder;
      * 为了避免频繁创建对象，实现了这个 Decoder 池。
@@ -24,8 +40,12 @@ public final class PackDecoder {
 
         final byte[] bytes;
 
-        DecoderPool(byte[] bytes) {
+        // 可信模式：数据由自己编码且已经校验过，解码时跳过边界检查
+        final boolean trusted;
+
+        DecoderPool(byte[] bytes, boolean trusted) {
             this.bytes = bytes;
+            this.trusted = trusted;
         }
 
         private PackDecoder getDecoder(int offset, int len) {
@@ -65,6 +85,111 @@ public final class PackDecoder {
         }
     }
 
+    /**
+     * 遍历 {@link PackEncoder#encodeObjectList} 编码的列表的 Spliterator。
+     * <br>
+     * 拆分时沿着元素的长度前缀找到中间元素的边界，两部分各自创建 Decoder（各有自己的 DecoderPool），
+     * 所以拆分后的部分可以在不同线程中解码。
+     */
+    private static final class ObjectListSpliterator<T> implements Spliterator<T> {
+        private final byte[] bytes;
+        private final TypeAdapter<T> adapter;
+        private final int end;
+        private int position;
+        private int remaining;
+
+        ObjectListSpliterator(byte[] bytes, TypeAdapter<T> adapter, int position, int end, int count) {
+            this.bytes = bytes;
+            this.adapter = adapter;
+            this.position = position;
+            this.end = end;
+            this.remaining = count;
+        }
+
+        /**
+         * 单个元素的遍历（findFirst、anyMatch、limit 等短路操作）可能不会走到末尾，
+         * 所以不在两次调用之间持有 Decoder，每次用完即归还。
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (remaining <= 0) {
+                return false;
+            }
+            PackDecoder decoder = new PackDecoder(bytes, position, end - position);
+            T t;
+            try {
+                t = decoder.takeObject(adapter);
+                position = decoder.buffer.position;
+            } finally {
+                decoder.recycle();
+            }
+            remaining--;
+            action.accept(t);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (remaining <= 0) {
+                return;
+            }
+            PackDecoder decoder = new PackDecoder(bytes, position, end - position);
+            try {
+                while (remaining > 0) {
+                    T t = decoder.takeObject(adapter);
+                    position = decoder.buffer.position;
+                    remaining--;
+                    action.accept(t);
+                }
+            } finally {
+                decoder.recycle();
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int half = remaining >>> 1;
+            if (half == 0) {
+                return null;
+            }
+            // 跳过前一半元素，得到拆分的边界
+            int p = position;
+            for (int i = 0; i < half; i++) {
+                if (p + 2 > end) {
+                    throw new IndexOutOfBoundsException("buffer out of bound");
+                }
+                short a = (short) ((bytes[p] & 0xff) | (bytes[p + 1] << 8));
+                if (a == PackConfig.NULL_OBJECT_FLAG) {
+                    p += 2;
+                } else if (a >= 0) {
+                    p += 2 + a;
+                } else {
+                    if (p + 4 > end) {
+                        throw new IndexOutOfBoundsException("buffer out of bound");
+                    }
+                    p += 4 + (((a & 0x7fff) << 16) | (bytes[p + 2] & 0xff) | ((bytes[p + 3] & 0xff) << 8));
+                }
+            }
+            if (p > end) {
+                throw new IndexOutOfBoundsException("buffer out of bound");
+            }
+            ObjectListSpliterator<T> prefix = new ObjectListSpliterator<>(bytes, adapter, position, p, half);
+            position = p;
+            remaining -= half;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+        }
+    }
+
     private final DecoderPool pool;
     private final DecodeBuffer buffer;
 
@@ -84,7 +209,7 @@ public final class PackDecoder {
     }
 
     public PackDecoder(byte[] bytes, int offset, int len) {
-        this(new DecodeBuffer(bytes, offset, len), new DecoderPool(bytes));
+        this(new DecodeBuffer(bytes, offset, len), new DecoderPool(bytes, false));
 
         if (bytes == null) {
             throw new IllegalArgumentException("bytes is null");
@@ -108,24 +233,57 @@ public final class PackDecoder {
     }
 
     public static <T> T decode(byte[] bytes, int offset, int len, TypeAdapter<T> adapter) {
-        PackDecoder decoder = new PackDecoder(bytes, offset, len);
+        return decode(new PackDecoder(bytes, offset, len), adapter);
+    }
+
+    /**
+     * 创建可信模式的解码器。
+     * <br>
+     * 可信模式会跳过构造参数检查、字符串和对象的长度越界检查，以及解析结束时的数据完整性检查，
+     * 用于解码自己编码（或已经校验过）的数据，以减少紧密循环中的冗余判断。
+     * <br>
+     * 注意：如果数据不完整或被损坏，可信模式可能会解码出错误的结果，而不是抛出异常。
+     */
+    public static PackDecoder newTrustedDecoder(byte[] bytes, int offset, int len) {
+        return new PackDecoder(new DecodeBuffer(bytes, offset, len), new DecoderPool(bytes, true));
+    }
+
+    public static <T> T decodeTrusted(byte[] bytes, TypeAdapter<T> adapter) {
+        return decodeTrusted(bytes, 0, bytes.length, adapter);
+    }
+
+    public static <T> T decodeTrusted(byte[] bytes, int offset, int len, TypeAdapter<T> adapter) {
+        return decode(newTrustedDecoder(bytes, offset, len), adapter);
+    }
+
+    private static <T> T decode(PackDecoder decoder, TypeAdapter<T> adapter) {
         T t = adapter.decode(decoder);
         decoder.recycle();
         return t;
     }
 
+    /**
+     * 解码到已有的对象 reuse 中（参见 {@link TypeAdapter#decodeInto}），返回解码后的对象。
+     */
+    public static <T> T decodeInto(byte[] bytes, TypeAdapter<T> adapter, T reuse) {
+        PackDecoder decoder = new PackDecoder(bytes);
+        T t = adapter.decodeInto(decoder, reuse);
+        decoder.recycle();
+        return t;
+    }
+
     public static int[] decodeIntArray(byte[] bytes) {
         if (bytes == null || bytes.length == 0) return new int[0];
         DecodeBuffer buffer = new DecodeBuffer(bytes, 0, bytes.length);
         int size = buffer.readVarInt32();
-        return wrapIntArray(buffer, size);
+        return wrapIntArray(buffer, size, null);
     }
 
     public static long[] decodeLongArray(byte[] bytes) {
         if (bytes == null || bytes.length == 0) return new long[0];
         DecodeBuffer buffer = new DecodeBuffer(bytes, 0, bytes.length);
         int size = buffer.readVarInt32();
-        return wrapLongArray(buffer, size);
+        return wrapLongArray(buffer, size, null);
     }
 
     public static  List<String> decodeStringList(byte[] bytes) {
@@ -145,9 +303,19 @@ public final class PackDecoder {
     public static <T> List<T> decodeObjectList(byte[] bytes, TypeAdapter<T> adapter) {
         if (bytes == null || bytes.length == 0)
             return new ArrayList<>();
-        PackDecoder decoder = new PackDecoder(bytes);
+        return decodeObjectList(bytes, 0, bytes.length, adapter);
+    }
+
+    public static <T> List<T> decodeObjectList(byte[] bytes, int offset, int len, TypeAdapter<T> adapter) {
+        if (len == 0)
+            return new ArrayList<>();
+        PackDecoder decoder = new PackDecoder(bytes, offset, len);
         DecodeBuffer buffer = decoder.buffer;
         int size = buffer.readVarInt32();
+        // 每个元素至少占用 2 字节
+        if (size < 0 || size > (len >> 1)) {
+            throw new IllegalStateException("invalid size of object list");
+        }
         List<T> value = new ArrayList<T>(size);
         for (int i = 0; i < size; i++) {
             value.add(decoder.takeObject(adapter));
@@ -157,16 +325,38 @@ public final class PackDecoder {
     }
 
 
-    private static int[] wrapIntArray(DecodeBuffer buffer , int n) {
-        int[] value = new int[n];
+    /**
+     * 以 Stream 的形式解码 {@link PackEncoder#encodeObjectList} 编码的列表，元素在遍历时才解码。
+     * <br>
+     * parallel 为 true 时返回并行流：列表按元素边界拆分，各部分用各自的 Decoder 并行解码。
+     * 元素可能为 null（编码时为 null 的元素）。
+     */
+    public static <T> Stream<T> streamObjectList(byte[] bytes, TypeAdapter<T> adapter, boolean parallel) {
+        if (bytes == null || bytes.length == 0) {
+            return parallel ? Stream.<T>empty().parallel() : Stream.empty();
+        }
+        if (bytes.length > PackConfig.MAX_BUFFER_SIZE) {
+            throw new IllegalArgumentException("buffer size over limit");
+        }
+        DecodeBuffer buffer = new DecodeBuffer(bytes, 0, bytes.length);
+        int size = buffer.readVarInt32();
+        if (size < 0) {
+            throw new IllegalStateException("invalid size of object list");
+        }
+        return StreamSupport.stream(
+                new ObjectListSpliterator<>(bytes, adapter, buffer.position, bytes.length, size), parallel);
+    }
+
+    private static int[] wrapIntArray(DecodeBuffer buffer, int n, int[] reuse) {
+        int[] value = (reuse != null && reuse.length == n) ? reuse : new int[n];
         for (int i = 0; i < n; i++) {
             value[i] = buffer.readInt();
         }
         return value;
     }
 
-    private static long[] wrapLongArray(DecodeBuffer buffer, int n) {
-        long[] value = new long[n];
+    private static long[] wrapLongArray(DecodeBuffer buffer, int n, long[] reuse) {
+        long[] value = (reuse != null && reuse.length == n) ? reuse : new long[n];
         for (int i = 0; i < n; i++) {
             value[i] = buffer.readLong();
         }
@@ -179,7 +369,7 @@ public final class PackDecoder {
         }
     }
 
-    private void recycle() {
+    void recycle() {
         checkState();
         CharArrayPool.recycleArray(pool.charBuffer);
         LongArrayPool.recycleArray(this.infoArray);
@@ -258,7 +448,7 @@ public final class PackDecoder {
             }
         }
 
-        if (buffer.position != buffer.limit) {
+        if (!pool.trusted && buffer.position != buffer.limit) {
             throw new IllegalArgumentException("invalid pack data");
         }
 
@@ -478,14 +668,58 @@ public final class PackDecoder {
         return object;
     }
 
+    /**
+     * 将下标为 index 的对象解码到 reuse 中（通过 {@link TypeAdapter#decodeInto}），返回解码后的对象。
+     * reuse 为 null 时等同于 {@link #getObject(int, TypeAdapter)}；字段不存在时返回 null。
+     */
+    public <T> T getObjectInto(int index, TypeAdapter<T> adapter, T reuse) {
+        long info = getInfo(index);
+        if (info == NULL_FLAG) {
+            return null;
+        }
+        int offset = (int) (info >>> 32);
+        int len = (int) (info & INT_MASK);
+        PackDecoder decoder = pool.getDecoder(offset, len);
+        T object = reuse == null ? adapter.decode(decoder) : adapter.decodeInto(decoder, reuse);
+        pool.recycleDecoder(decoder);
+        return object;
+    }
+
+    /**
+     * 获取下标为 index 的对象编码后的字节（不解码），字段不存在时返回 null。
+     * <br>
+     * 返回的 ByteBuffer 与 Decoder 共享底层数组（不复制），
+     * 可以直接写到输出，或者通过 {@link PackEncoder#putEncodedObject(int, ByteBuffer)} 转发。
+     */
+    public ByteBuffer getRawObject(int index) {
+        long info = getInfo(index);
+        if (info == NULL_FLAG) {
+            return null;
+        }
+        return wrapRaw((int) (info >>> 32), (int) (info & INT_MASK));
+    }
+
+    private ByteBuffer wrapRaw(int offset, int len) {
+        return ByteBuffer.wrap(buffer.hb, offset, len).slice();
+    }
+
     public boolean[] getBooleanArray(int index) {
+        return getBooleanArray(index, null);
+    }
+
+    /**
+     * 与 {@link #getBooleanArray(int)} 相同，当 reuse 的长度与解码的长度相同时，直接写入 reuse，不创建新数组。
+     * <br>
+     * 其他 getXXXArray(index, reuse) 方法同理。
+     */
+    public boolean[] getBooleanArray(int index, boolean[] reuse) {
         long info = getInfo(index);
         if (info == PackDecoder.NULL_FLAG) {
             return null;
         }
         int len = (int) (info & PackDecoder.INT_MASK);
         if (len == 0) {
-            return new boolean[0];
+            return (reuse != null && reuse.length == 0) ? reuse : new boolean[0];
         }
 
         buffer.position = (int) (info >>> 32);
@@ -493,7 +727,7 @@ public final class PackDecoder {
         if (len == 1) {
             byte b = buffer.readByte();
             int n = (b & 0xFF) >>> 5;
-            a = new boolean[n];
+            a = (reuse != null && reuse.length == n) ? reuse : new boolean[n];
             for (int i = 0; i < n; i++) {
                 a[i] = (b & 0x1) != 0;
                 b >>= 1;
@@ -505,27 +739,65 @@ public final class PackDecoder {
             }
             int byteCount = len - 1;
             int n = (byteCount << 3) - (remain > 0 ? 8 - remain : 0);
-            a = new boolean[n];
-            for (int i = 0; i < n; i += 8) {
-                int b = buffer.readByte() & 0xFF;
-                int j = i;
-                while (b != 0) {
-                    a[j++] = (b & 0x1) != 0;
-                    b >>= 1;
-                }
+            a = (reuse != null && reuse.length == n) ? reuse : new boolean[n];
+            byte[] hb = buffer.hb;
+            int p = buffer.position;
+            int end = n & ~0x7;
+            for (int i = 0; i < end; i += 8) {
+                System.arraycopy(BITS_TABLE[hb[p++] & 0xFF], 0, a, i, 8);
+            }
+            if (end < n) {
+                System.arraycopy(BITS_TABLE[hb[p] & 0xFF], 0, a, end, n - end);
             }
         }
         return a;
     }
 
+    /**
+     * 读取 {@link PackEncoder#putBitSet} 写入的位集合
+     */
+    public BitSet getBitSet(int index) {
+        long info = getInfo(index);
+        if (info == NULL_FLAG) {
+            return null;
+        }
+        int len = (int) (info & INT_MASK);
+        return BitSet.valueOf(ByteBuffer.wrap(buffer.hb, (int) (info >>> 32), len));
+    }
+
+    /**
+     * 以 long 数组的形式读取 {@link PackEncoder#putBitSet} 写入的位集合
+     */
+    public long[] getBitSetWords(int index) {
+        long info = getInfo(index);
+        if (info == NULL_FLAG) {
+            return null;
+        }
+        int len = (int) (info & INT_MASK);
+        int p = (int) (info >>> 32);
+        long[] words = new long[(len + 7) >> 3];
+        int n = len >> 3;
+        for (int i = 0; i < n; i++, p += 8) {
+            words[i] = buffer.readLong(p);
+        }
+        for (int i = 0; i < (len & 0x7); i++) {
+            words[n] |= (buffer.hb[p + i] & 0xFFL) << (i << 3);
+        }
+        return words;
+    }
+
     public byte[] getByteArray(int index) {
+        return getByteArray(index, null);
+    }
+
+    public byte[] getByteArray(int index, byte[] reuse) {
         long info = getInfo(index);
         if (info == NULL_FLAG) {
             return null;
         }
         buffer.position = (int) (info >>> 32);
         int len = (int) (info & INT_MASK);
-        byte[] bytes = new byte[len];
+        byte[] bytes = (reuse != null && reuse.length == len) ? reuse : new byte[len];
         buffer.readBytes(bytes);
         return bytes;
     }
@@ -540,30 +812,42 @@ public final class PackDecoder {
     }
 
     public int[] getIntArray(int index) {
+        return getIntArray(index, null);
+    }
+
+    public int[] getIntArray(int index, int[] reuse) {
         long info = getInfo(index);
         if (info == NULL_FLAG) {
             return null;
         }
         int n = setPosAndGetLen(info, 0x3) >> 2;
-        return wrapIntArray(buffer, n);
+        return wrapIntArray(buffer, n, reuse);
     }
 
     public long[] getLongArray(int index) {
+        return getLongArray(index, null);
+    }
+
+    public long[] getLongArray(int index, long[] reuse) {
         long info = getInfo(index);
         if (info == NULL_FLAG) {
             return null;
         }
         int n = setPosAndGetLen(info, 0x7) >> 3;
-        return wrapLongArray(buffer, n);
+        return wrapLongArray(buffer, n, reuse);
     }
 
     public float[] getFloatArray(int index) {
+        return getFloatArray(index, null);
+    }
+
+    public float[] getFloatArray(int index, float[] reuse) {
         long info = getInfo(index);
         if (info == NULL_FLAG) {
             return null;
         }
         int n = setPosAndGetLen(info, 0x3) >> 2;
-        float[] value = new float[n];
+        float[] value = (reuse != null && reuse.length == n) ? reuse : new float[n];
         for (int i = 0; i < n; i++) {
             value[i] = buffer.readFloat();
         }
@@ -571,22 +855,173 @@ public final class PackDecoder {
     }
 
     public double[] getDoubleArray(int index) {
+        return getDoubleArray(index, null);
+    }
+
+    public double[] getDoubleArray(int index, double[] reuse) {
         long info = getInfo(index);
         if (info == NULL_FLAG) {
             return null;
         }
         int n = setPosAndGetLen(info, 0x7) >> 3;
-        double[] value = new double[n];
+        double[] value = (reuse != null && reuse.length == n) ? reuse : new double[n];
         for (int i = 0; i < n; i++) {
             value[i] = buffer.readDouble();
         }
         return value;
     }
 
+    /**
+     * 读取 {@link PackEncoder#putXorDoubleArray} 写入的数组
+     */
+    public double[] getXorDoubleArray(int index) {
+        long info = getInfo(index);
+        if (info == NULL_FLAG) {
+            return null;
+        }
+        int len = (int) (info & INT_MASK);
+        if (len == 0) {
+            return new double[0];
+        }
+        int n = readXorArraySize(info, len, 64);
+        BitReader reader = new BitReader(buffer.hb, buffer.position, (int) (info >>> 32) + len);
+        double[] value = new double[n];
+        long prev = reader.read(64);
+        value[0] = Double.longBitsToDouble(prev);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < n; i++) {
+            if (reader.readBit()) {
+                if (reader.readBit()) {
+                    leading = (int) reader.read(6);
+                    trailing = 64 - leading - ((int) reader.read(6) + 1);
+                    if (trailing < 0) {
+                        throw new IllegalStateException("invalid xor array");
+                    }
+                }
+                prev ^= reader.read(64 - leading - trailing) << trailing;
+            }
+            value[i] = Double.longBitsToDouble(prev);
+        }
+        return value;
+    }
+
+    /**
+     * 读取 {@link PackEncoder#putXorFloatArray} 写入的数组
+     */
+    public float[] getXorFloatArray(int index) {
+        long info = getInfo(index);
+        if (info == NULL_FLAG) {
+            return null;
+        }
+        int len = (int) (info & INT_MASK);
+        if (len == 0) {
+            return new float[0];
+        }
+        int n = readXorArraySize(info, len, 32);
+        BitReader reader = new BitReader(buffer.hb, buffer.position, (int) (info >>> 32) + len);
+        float[] value = new float[n];
+        int prev = (int) reader.read(32);
+        value[0] = Float.intBitsToFloat(prev);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < n; i++) {
+            if (reader.readBit()) {
+                if (reader.readBit()) {
+                    leading = (int) reader.read(5);
+                    trailing = 32 - leading - ((int) reader.read(5) + 1);
+                    if (trailing < 0) {
+                        throw new IllegalStateException("invalid xor array");
+                    }
+                }
+                prev ^= (int) reader.read(32 - leading - trailing) << trailing;
+            }
+            value[i] = Float.intBitsToFloat(prev);
+        }
+        return value;
+    }
+
+    private int readXorArraySize(long info, int len, int firstBits) {
+        int offset = (int) (info >>> 32);
+        buffer.position = offset;
+        int n = buffer.readVarInt32();
+        int bitLen = len - (buffer.position - offset);
+        // 第一个值占 firstBits 位，之后每个值至少占 1 bit
+        if (n <= 0 || bitLen < 0 || (long) n - 1 > ((long) bitLen << 3) - firstBits) {
+            throw new IllegalStateException("invalid size of xor array");
+        }
+        return n;
+    }
+
+    /**
+     * 读取 {@link PackEncoder#putHalfFloatArray} 写入的数组
+     */
+    public float[] getHalfFloatArray(int index) {
+        long info = getInfo(index);
+        if (info == NULL_FLAG) {
+            return null;
+        }
+        int n = setPosAndGetLen(info, 0x1) >> 1;
+        float[] value = new float[n];
+        byte[] hb = buffer.hb;
+        for (int i = 0, p = buffer.position; i < n; i++, p += 2) {
+            value[i] = Float16.halfToFloat((short) ((hb[p] & 0xff) | (hb[p + 1] << 8)));
+        }
+        return value;
+    }
+
+    /**
+     * 读取 {@link PackEncoder#putBFloat16Array} 写入的数组
+     */
+    public float[] getBFloat16Array(int index) {
+        long info = getInfo(index);
+        if (info == NULL_FLAG) {
+            return null;
+        }
+        int n = setPosAndGetLen(info, 0x1) >> 1;
+        float[] value = new float[n];
+        byte[] hb = buffer.hb;
+        for (int i = 0, p = buffer.position; i < n; i++, p += 2) {
+            value[i] = Float.intBitsToFloat(((hb[p] & 0xff) << 16) | (hb[p + 1] << 24));
+        }
+        return value;
+    }
+
+    /**
+     * 读取 {@link PackEncoder#putQuantizedFloatArray} 写入的数组
+     */
+    public float[] getQuantizedFloatArray(int index) {
+        long info = getInfo(index);
+        if (info == NULL_FLAG) {
+            return null;
+        }
+        int len = setPosAndGetLen(info, 0);
+        if (len == 0) {
+            return new float[0];
+        }
+        if (len < 8) {
+            throw new IllegalStateException("invalid quantized array");
+        }
+        float scale = buffer.readFloat();
+        float zeroPoint = buffer.readFloat();
+        int n = len - 8;
+        float[] value = new float[n];
+        byte[] hb = buffer.hb;
+        int p = buffer.position;
+        for (int i = 0; i < n; i++) {
+            value[i] = hb[p + i] * scale + zeroPoint;
+        }
+        return value;
+    }
+
     public String[] getStringArray(int index) {
+        return getStringArray(index, null);
+    }
+
+    public String[] getStringArray(int index, String[] reuse) {
         int n = getSize(index);
         if (n < 0) return null;
-        String[] value = new String[n];
+        String[] value = (reuse != null && reuse.length == n) ? reuse : new String[n];
         for (int i = 0; i < n; i++) {
             value[i] = takeString();
         }
@@ -599,7 +1034,9 @@ public final class PackDecoder {
             return null;
         }
         int offset = buffer.position;
-        buffer.checkBound(offset, len);
+        if (!pool.trusted) {
+            buffer.checkBound(offset, len);
+        }
         if (len == 0) {
             return "";
         }
@@ -624,63 +1061,102 @@ public final class PackDecoder {
     }
 
     <T> T takeObject(TypeAdapter<T> adapter) {
+        PackDecoder decoder = takeDecoder();
+        if (decoder == null) {
+            return null;
+        }
+        T t = adapter.decode(decoder);
+        pool.recycleDecoder(decoder);
+        return t;
+    }
+
+    private <T> T takeObjectInto(TypeAdapter<T> adapter, T reuse) {
+        PackDecoder decoder = takeDecoder();
+        if (decoder == null) {
+            return null;
+        }
+        T t = reuse == null ? adapter.decode(decoder) : adapter.decodeInto(decoder, reuse);
+        pool.recycleDecoder(decoder);
+        return t;
+    }
+
+    /**
+     * 读取数组中的下一个对象，返回指向该对象的子 Decoder，对象为 null 时返回 null。
+     * <br>
+     * 子 Decoder 来自 {@link DecoderPool}，用完之后需要调用 {@link #recycleDecoder(PackDecoder)} 归还。
+     */
+    PackDecoder takeDecoder() {
         short a = buffer.readShort();
         if (a == PackConfig.NULL_OBJECT_FLAG) {
             return null;
-        } else {
-            int len = a >= 0 ? a : ((a & 0x7fff) << 16) | (buffer.readShort() & 0xffff);
-            int offset = buffer.position;
+        }
+        int len = a >= 0 ? a : ((a & 0x7fff) << 16) | (buffer.readShort() & 0xffff);
+        int offset = buffer.position;
+        if (!pool.trusted) {
             buffer.checkBound(offset, len);
-            PackDecoder decoder = pool.getDecoder(offset, len);
-            T t = adapter.decode(decoder);
-            pool.recycleDecoder(decoder);
-            buffer.position += len;
-            return t;
         }
+        buffer.position += len;
+        return pool.getDecoder(offset, len);
     }
 
-    public List<Integer> getIntList(int index) {
-        int[] a = getIntArray(index);
-        if (a == null) return null;
-        int n = a.length;
-        Integer[] b = new Integer[n];
-        for (int i = 0; i < n; i++) {
-            b[i] = a[i];
+    void recycleDecoder(PackDecoder decoder) {
+        pool.recycleDecoder(decoder);
+    }
+
+    /**
+     * 读取 {@link PackEncoder#encodeObjectList} 编码的列表的元素个数
+     */
+    int takeListSize() {
+        int n = buffer.readVarInt32();
+        if (n < 0) {
+            throw new IllegalStateException("invalid size of object list");
         }
-        return Arrays.asList(b);
+        return n;
     }
 
-    public List<Long> getLongList(int index) {
-        long[] a = getLongArray(index);
-        if (a == null) return null;
-        int n = a.length;
-        Long[] b = new Long[n];
-        for (int i = 0; i < n; i++) {
-            b[i] = a[i];
+    /**
+     * 比较下标为 index 的字符串（UTF-8编码）是否与 expected 相等，不需要解码字符串
+     */
+    boolean equalsBytes(int index, byte[] expected) {
+        long info = getInfo(index);
+        if (info == NULL_FLAG) {
+            return false;
+        }
+        int len = (int) (info & INT_MASK);
+        if (len != expected.length) {
+            return false;
+        }
+        byte[] hb = buffer.hb;
+        int offset = (int) (info >>> 32);
+        for (int i = 0; i < len; i++) {
+            if (hb[offset + i] != expected[i]) {
+                return false;
+            }
         }
-        return Arrays.asList(b);
+        return true;
     }
 
-    public List<Float> getFloatList(int index) {
+    /**
+     * 返回以 int[] 存储的 {@link IntList}，元素只在通过 List&lt;Integer&gt; 接口访问时才装箱。
+     */
+    public IntList getIntList(int index) {
+        int[] a = getIntArray(index);
+        return a == null ? null : IntList.wrap(a);
+    }
+
+    public LongList getLongList(int index) {
+        long[] a = getLongArray(index);
+        return a == null ? null : LongList.wrap(a);
+    }
+
+    public FloatList getFloatList(int index) {
         float[] a = getFloatArray(index);
-        if (a == null) return null;
-        int n = a.length;
-        Float[] b = new Float[n];
-        for (int i = 0; i < n; i++) {
-            b[i] = a[i];
-        }
-        return Arrays.asList(b);
+        return a == null ? null : FloatList.wrap(a);
     }
 
-    public List<Double> getDoubleList(int index) {
+    public DoubleList getDoubleList(int index) {
         double[] a = getDoubleArray(index);
-        if (a == null) return null;
-        int n = a.length;
-        Double[] b = new Double[n];
-        for (int i = 0; i < n; i++) {
-            b[i] = a[i];
-        }
-        return Arrays.asList(b);
+        return a == null ? null : DoubleList.wrap(a);
     }
 
     public <T> List<T> getObjectList(int index, TypeAdapter<T> adapter) {
@@ -693,6 +1169,109 @@ public final class PackDecoder {
         return value;
     }
 
+    /**
+     * 返回对象数组（包括 Map 和字符串数组）的元素个数，字段不存在时返回 -1。
+     */
+    public int getObjectArraySize(int index) {
+        return getSize(index);
+    }
+
+    /**
+     * 获取 {@link PackEncoder#putIndexedObjectArray} 编码的对象数组的第 i 个元素，通过末尾的偏移表直接定位，
+     * 不需要遍历前面的元素。
+     * <br>
+     * 字段不存在或者元素为 null 时返回 null。
+     * 注意：只能用于 putIndexedObjectArray/putIndexedObjectList 编码的数据。
+     */
+    public <T> T getObjectAt(int index, int i, TypeAdapter<T> adapter) {
+        long info = getInfo(index);
+        if (info == NULL_FLAG) {
+            return null;
+        }
+        int offset = (int) (info >>> 32);
+        int len = (int) (info & INT_MASK);
+        int n = 0;
+        int pElements = offset;
+        if (len > 0) {
+            buffer.position = offset;
+            n = buffer.readVarInt32();
+            pElements = buffer.position;
+        }
+        // 每个元素在偏移表中占 4 字节
+        if (n < 0 || n > (len >> 2)) {
+            throw new IllegalStateException("invalid indexed object array");
+        }
+        if (i < 0 || i >= n) {
+            throw new IndexOutOfBoundsException("index:" + i + " size:" + n);
+        }
+        int pTable = offset + len - (n << 2);
+        if (pTable < pElements) {
+            throw new IllegalStateException("invalid indexed object array");
+        }
+        buffer.position = pTable + (i << 2);
+        int p = offset + buffer.readInt();
+        if (p < pElements || p + 2 > pTable) {
+            throw new IllegalStateException("invalid indexed object array");
+        }
+        buffer.position = p;
+        return takeObject(adapter);
+    }
+
+    /**
+     * 将对象数组解码到 reuse 中：已有的元素通过 {@link TypeAdapter#decodeInto} 复用，
+     * 元素不足时追加，多余的元素被移除。reuse 为 null 时创建新的 List。
+     * <br>
+     * 字段不存在时返回 null（reuse 保持不变）。
+     */
+    public <T> List<T> getObjectList(int index, TypeAdapter<T> adapter, List<T> reuse) {
+        int n = getSize(index);
+        if (n < 0) return null;
+        if (reuse == null) {
+            reuse = new ArrayList<>(n);
+        }
+        int size = reuse.size();
+        for (int i = 0; i < n; i++) {
+            if (i < size) {
+                reuse.set(i, takeObjectInto(adapter, reuse.get(i)));
+            } else {
+                reuse.add(takeObject(adapter));
+            }
+        }
+        if (size > n) {
+            reuse.subList(n, size).clear();
+        }
+        return reuse;
+    }
+
+    /**
+     * 获取对象数组中各元素编码后的字节（不解码），元素为 null 时对应位置为 null。
+     * <br>
+     * 与 {@link #getRawObject(int)} 一样，返回的 ByteBuffer 与 Decoder 共享底层数组。
+     */
+    public List<ByteBuffer> getRawObjectList(int index) {
+        int n = getSize(index);
+        if (n < 0) return null;
+        List<ByteBuffer> value = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            value.add(takeRawObject());
+        }
+        return value;
+    }
+
+    private ByteBuffer takeRawObject() {
+        short a = buffer.readShort();
+        if (a == PackConfig.NULL_OBJECT_FLAG) {
+            return null;
+        }
+        int len = a >= 0 ? a : ((a & 0x7fff) << 16) | (buffer.readShort() & 0xffff);
+        int offset = buffer.position;
+        if (!pool.trusted) {
+            buffer.checkBound(offset, len);
+        }
+        buffer.position += len;
+        return wrapRaw(offset, len);
+    }
+
     public List<String> getStringList(int index) {
         String[] a = getStringArray(index);
         return a == null ? null : Arrays.asList(a);
@@ -739,54 +1318,232 @@ public final class PackDecoder {
     ) {
         int n = getSize(index);
         if (n < 0) return null;
+        if (n > 0 && !checkMapTypes(keyType, valueType, keyTypeAdapter, valueTypeAdapter)) {
+            return null;
+        }
 
         // HashMap's DEFAULT_LOAD_FACTOR = 0.75f
         // so set initialCapacity to be n/0.75+1 (n*4/3+1) could make HashMap not to extend capacity.
         int initCapacity = (n << 2) / 3 + 1;
         Map map = new HashMap<K, V>(initCapacity);
         for (int i = 0; i < n; i++) {
-            Object key;
-            if (keyTypeAdapter != null) {
-                key = takeObject(keyTypeAdapter);
-            } else if (keyType == String.class) {
-                key = takeString();
-            } else if (keyType == Integer.class) {
-                key = buffer.readInt();
-            } else if (keyType == Long.class) {
-                key = buffer.readLong();
-            } else {
-                if (PackConfig.ignoreUnknownType) {
-                    return null;
+            Object key = takeMapKey(keyType, keyTypeAdapter);
+            Object value = takeMapValue(valueType, valueTypeAdapter);
+            map.put(key, value);
+        }
+        return map;
+    }
+
+    /**
+     * 检查 key 和 value 的类型是否支持（有 adapter 时不需要检查）。
+     * 不支持时，如果 {@link PackConfig#ignoreUnknownType} 为 true 返回 false，否则抛出异常。
+     */
+    private static boolean checkMapTypes(
+            Class<?> keyType,
+            Class<?> valueType,
+            TypeAdapter<?> keyTypeAdapter,
+            TypeAdapter<?> valueTypeAdapter
+    ) {
+        if (keyTypeAdapter == null && !PackEncoder.isMapKeyType(keyType)) {
+            if (PackConfig.ignoreUnknownType) {
+                return false;
+            }
+            String keyTypeName = (keyType == null) ? "null" : keyType.getSimpleName();
+            throw new IllegalArgumentException("Unsupported type of key: " + keyTypeName);
+        }
+        return checkMapValueType(valueType, valueTypeAdapter);
+    }
+
+    /**
+     * 检查 value 的类型是否支持，规则同 {@link #checkMapTypes}
+     */
+    private static boolean checkMapValueType(Class<?> valueType, TypeAdapter<?> valueTypeAdapter) {
+        if (valueTypeAdapter == null && !PackEncoder.isMapValueType(valueType)) {
+            if (PackConfig.ignoreUnknownType) {
+                return false;
+            }
+            String valueTypeName = (valueType == null) ? "null" : valueType.getSimpleName();
+            throw new IllegalArgumentException("Unsupported type of value: " + valueTypeName);
+        }
+        return true;
+    }
+
+    private Object takeMapKey(Class<?> keyType, TypeAdapter<?> keyTypeAdapter) {
+        if (keyTypeAdapter != null) {
+            return takeObject(keyTypeAdapter);
+        } else if (keyType == String.class) {
+            return takeString();
+        } else if (keyType == Integer.class) {
+            return buffer.readInt();
+        } else {
+            return buffer.readLong();
+        }
+    }
+
+    private Object takeMapValue(Class<?> valueType, TypeAdapter<?> valueTypeAdapter) {
+        if (valueTypeAdapter != null) {
+            return takeObject(valueTypeAdapter);
+        } else if (valueType == String.class) {
+            return takeString();
+        } else if (valueType == Integer.class) {
+            return buffer.readInt();
+        } else if (valueType == Long.class) {
+            return buffer.readLong();
+        } else if (valueType == Double.class) {
+            return buffer.readDouble();
+        } else if (valueType == Float.class) {
+            return buffer.readFloat();
+        } else {
+            return buffer.readByte() == 1;
+        }
+    }
+
+    /**
+     * 在 {@link PackEncoder#putSortedMap} 编码的 Map 中二分查找 key，只解码对应的 value。
+     * <br>
+     * key 的类型需要与编码时相同（Integer, Long 或 String）。
+     * 字段不存在或者 key 不存在时返回 null。
+     * <br>
+     * 注意：只能用于 putSortedMap 编码的数据，putMap 编码的数据没有偏移表。
+     */
+    public <V> V lookupMapValue(int index, Object key, Class<V> valueType) {
+        // key 的类型在比较时检查
+        if (!checkMapValueType(valueType, null)) {
+            return null;
+        }
+        return lookupMapValue(index, key, valueType, null);
+    }
+
+    public <V> V lookupMapValue(int index, Object key, TypeAdapter<V> valueTypeAdapter) {
+        return lookupMapValue(index, key, null, valueTypeAdapter);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> V lookupMapValue(int index, Object key, Class<V> valueType, TypeAdapter<V> valueTypeAdapter) {
+        if (key == null) {
+            return null;
+        }
+        byte[] keyBytes = null;
+        long keyValue = 0L;
+        if (key instanceof String) {
+            keyBytes = ((String) key).getBytes(StandardCharsets.UTF_8);
+        } else if (key instanceof Integer) {
+            keyValue = (Integer) key;
+        } else if (key instanceof Long) {
+            keyValue = (Long) key;
+        } else {
+            throw new IllegalArgumentException("Unsupported type of key: " + key.getClass().getSimpleName());
+        }
+        long info = getInfo(index);
+        if (info == NULL_FLAG) {
+            return null;
+        }
+        int offset = (int) (info >>> 32);
+        int len = (int) (info & INT_MASK);
+        if (len == 0) {
+            return null;
+        }
+        DecodeBuffer buf = buffer;
+        buf.position = offset;
+        int n = buf.readVarInt32();
+        int pEntries = buf.position;
+        int pTable = offset + len - (n << 2);
+        if (n < 0 || n > PackConfig.maxObjectArraySize || pTable < pEntries) {
+            throw new IllegalStateException("invalid sorted map");
+        }
+        boolean isInt = key instanceof Integer;
+        int low = 0;
+        int high = n - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            buf.position = pTable + (mid << 2);
+            int p = offset + buf.readInt();
+            if (p < pEntries || p >= pTable) {
+                throw new IllegalStateException("invalid sorted map");
+            }
+            buf.position = p;
+            int cmp;
+            if (keyBytes != null) {
+                int keyLen = buf.readVarInt32();
+                if (keyLen < 0 || buf.position + keyLen > pTable) {
+                    throw new IllegalStateException("invalid sorted map");
                 }
-                String keyTypeName = (keyType == null) ? "null" : keyType.getSimpleName();
-                throw new IllegalArgumentException("Unsupported type of key: " + keyTypeName);
-            }
-
-            Object value;
-            if (valueTypeAdapter != null) {
-                value = takeObject(valueTypeAdapter);
-            } else if (valueType == String.class) {
-                value = takeString();
-            } else if (valueType == Integer.class) {
-                value = buffer.readInt();
-            } else if (valueType == Long.class) {
-                value = buffer.readLong();
-            } else if (valueType == Double.class) {
-                value = buffer.readDouble();
-            } else if (valueType == Float.class) {
-                value = buffer.readFloat();
-            } else if (valueType == Boolean.class) {
-                value = buffer.readByte() == 1;
+                cmp = compareBytes(buf.hb, buf.position, keyLen, keyBytes, 0, keyBytes.length);
+                buf.position += keyLen;
             } else {
-                if (PackConfig.ignoreUnknownType) {
-                    return null;
+                if (p + (isInt ? 4 : 8) > pTable) {
+                    throw new IllegalStateException("invalid sorted map");
                 }
-                String valueTypeName = (valueType == null) ? "null" : valueType.getSimpleName();
-                throw new IllegalArgumentException("Unsupported type of value: " + valueTypeName);
+                cmp = isInt ? Integer.compare(buf.readInt(), (int) keyValue) : Long.compare(buf.readLong(), keyValue);
             }
-            map.put(key, value);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return (V) takeMapValue(valueType, valueTypeAdapter);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按无符号字节的字典序比较（与 UTF-8 编码的字符串按码点比较的顺序一致）
+     */
+    static int compareBytes(byte[] a, int aOffset, int aLen, byte[] b, int bOffset, int bLen) {
+        int n = Math.min(aLen, bLen);
+        for (int i = 0; i < n; i++) {
+            int x = a[aOffset + i] & 0xff;
+            int y = b[bOffset + i] & 0xff;
+            if (x != y) {
+                return x - y;
+            }
+        }
+        return aLen - bLen;
+    }
+
+    public IntLongMap getIntLongMap(int index) {
+        int n = getSize(index);
+        if (n < 0) return null;
+        if (!pool.trusted) {
+            buffer.checkBound(buffer.position, n * 12);
+        }
+        IntLongMap map = new IntLongMap(n);
+        for (int i = 0; i < n; i++) {
+            int key = buffer.readInt();
+            map.put(key, buffer.readLong());
         }
         return map;
     }
-}
 
+    public LongDoubleMap getLongDoubleMap(int index) {
+        int n = getSize(index);
+        if (n < 0) return null;
+        if (!pool.trusted) {
+            buffer.checkBound(buffer.position, n << 4);
+        }
+        LongDoubleMap map = new LongDoubleMap(n);
+        for (int i = 0; i < n; i++) {
+            long key = buffer.readLong();
+            map.put(key, buffer.readDouble());
+        }
+        return map;
+    }
+
+    /**
+     * value 为 null 的元素会被忽略
+     */
+    public <V> IntObjectMap<V> getIntObjectMap(int index, TypeAdapter<V> adapter) {
+        int n = getSize(index);
+        if (n < 0) return null;
+        IntObjectMap<V> map = new IntObjectMap<>(n);
+        for (int i = 0; i < n; i++) {
+            int key = buffer.readInt();
+            V value = takeObject(adapter);
+            if (value != null) {
+                map.put(key, value);
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,351 @@
+package io.packable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * PackDiff
+ * 作用：逐字段比较同一个对象的两个编码版本，生成增量（delta），配合 {@link PackMerge} 使用：
+ * <pre>
+ * byte[] delta = PackDiff.diff(oldBytes, newBytes);
+ * byte[] merged = PackMerge.merge(oldBytes, delta); // 与 newBytes 相同
+ * </pre>
+ * delta 本身也是 Packable 格式的对象：
+ * <br>
+ * [0] byte[]: 被删除的字段的下标（每个下标1个字节）<br>
+ * [1] byte[]: 新增或者替换的字段（原样拷贝的 TLV）<br>
+ * [2] object list: 需要递归合并的字段，元素为 {[0] 下标, [1] 新的 tag 类型, [2] 子对象或对象数组的 delta, [3] 是否为对象数组}<br>
+ * [3] byte[]: 整体替换（无法逐字段表示时使用）<br>
+ * <br>
+ * 对象数组的 delta：<br>
+ * [0] int: 新数组的元素个数<br>
+ * [1] int[]: 替换的元素的位置; [2] byte[]: 替换的元素（带长度前缀，原样拷贝）<br>
+ * [3] object list: 需要递归合并的元素，元素为 {[0] 位置, [2] 元素的 delta}<br>
+ * 其余位置的元素从旧数组的相同位置拷贝。<br>
+ * <br>
+ * 两个版本完全相同时，delta 为空数组。
+ * <br>
+ * 字段值（var 类型）是否是子对象或对象数组，无法从字节上区分，所以会尝试将其作为对象（或者对象数组）比较，
+ * 只有当递归合并可以得到和新版本完全相同的字节时才使用递归的 delta，否则整体替换该字段。
+ * 因此，合并的结果总是与新版本的字节完全相同。
+ */
+public final class PackDiff {
+    static final int REMOVED = 0;
+    static final int FIELDS = 1;
+    static final int PATCHES = 2;
+    static final int REPLACE = 3;
+
+    static final int ARRAY_SIZE = 0;
+    static final int ARRAY_POSITIONS = 1;
+    static final int ARRAY_ELEMENTS = 2;
+    static final int ARRAY_PATCHES = 3;
+
+    // 数组元素的长度前缀为 NULL_OBJECT_FLAG 时，元素为 null
+    private static final int NULL_ELEMENT = -1;
+
+    static final class Patch {
+        int index;
+        byte type;
+        byte[] delta;
+        boolean array;
+
+        Patch(int index, byte type, byte[] delta, boolean array) {
+            this.index = index;
+            this.type = type;
+            this.delta = delta;
+            this.array = array;
+        }
+    }
+
+    static final TypeAdapter<Patch> PATCH_ADAPTER = new TypeAdapter<Patch>() {
+        @Override
+        public void encode(PackEncoder encoder, Patch target) {
+            encoder.putInt(0, target.index)
+                    .putByte(1, target.type)
+                    .putByteArray(2, target.delta)
+                    .putBoolean(3, target.array);
+        }
+
+        @Override
+        public Patch decode(PackDecoder decoder) {
+            return new Patch(
+                    decoder.getInt(0),
+                    decoder.getByte(1),
+                    decoder.getByteArray(2),
+                    decoder.getBoolean(3)
+            );
+        }
+    };
+
+    private PackDiff() {
+    }
+
+    public static byte[] diff(byte[] oldBytes, byte[] newBytes) {
+        return diff(oldBytes, 0, oldBytes.length, newBytes, 0, newBytes.length);
+    }
+
+    public static byte[] diff(byte[] oldBytes, int oldOffset, int oldLen,
+                              byte[] newBytes, int newOffset, int newLen) {
+        if (equals(oldBytes, oldOffset, oldOffset + oldLen, newBytes, newOffset, newOffset + newLen)) {
+            return new byte[0];
+        }
+        byte[] delta = diffObject(oldBytes, oldOffset, oldOffset + oldLen, newBytes, newOffset, newOffset + newLen);
+        if (delta == null || delta.length >= newLen) {
+            PackEncoder encoder = new PackEncoder();
+            encoder.wrapTagAndLength(REPLACE, newLen);
+            encoder.writeBytes(newBytes, newOffset, newLen);
+            delta = encoder.toBytes();
+        }
+        return delta;
+    }
+
+    /**
+     * 比较两个对象，返回 delta；如果无法逐字段表示，返回 null。
+     * <br>
+     * 合并时，输出的字段顺序为：旧版本的字段（按旧版本顺序，跳过删除的字段），然后是新增的字段。
+     * 所以要求新版本中，共有字段的相对顺序与旧版本一致，且新增字段都位于共有字段之后。
+     */
+    private static byte[] diffObject(byte[] oldBytes, int oldStart, int oldEnd,
+                                     byte[] newBytes, int newStart, int newEnd) {
+        FieldList oldFields = FieldList.parse(oldBytes, oldStart, oldEnd);
+        if (oldFields == null) {
+            return null;
+        }
+        FieldList newFields = FieldList.parse(newBytes, newStart, newEnd);
+        if (newFields == null) {
+            return null;
+        }
+
+        // 检查字段顺序
+        int j = 0;
+        boolean added = false;
+        for (int i = 0; i < newFields.count; i++) {
+            int k = oldFields.find(newFields.indexes[i]);
+            if (k < 0) {
+                added = true;
+                continue;
+            }
+            if (added) {
+                return null;
+            }
+            while (j < k && newFields.find(oldFields.indexes[j]) < 0) {
+                j++;
+            }
+            if (j != k) {
+                return null;
+            }
+            j++;
+        }
+
+        EncodeBuffer fields = null;
+        List<Patch> patches = null;
+        for (int i = 0; i < newFields.count; i++) {
+            int index = newFields.indexes[i];
+            int nTag = newFields.tagPos[i];
+            int nEnd = newFields.ends[i];
+            int k = oldFields.find(index);
+            if (k >= 0) {
+                int oTag = oldFields.tagPos[k];
+                int oEnd = oldFields.ends[k];
+                if (equals(oldBytes, oTag, oEnd, newBytes, nTag, nEnd)) {
+                    continue;
+                }
+                byte oType = oldFields.types[k];
+                byte nType = newFields.types[i];
+                if (oType >= TagFormat.TYPE_VAR_8 && nType >= TagFormat.TYPE_VAR_8) {
+                    int oValue = oldFields.valuePos[k];
+                    int nValue = newFields.valuePos[i];
+                    byte[] sub = diffObject(oldBytes, oValue, oEnd, newBytes, nValue, nEnd);
+                    byte[] subArray = diffArray(oldBytes, oValue, oEnd, newBytes, nValue, nEnd);
+                    boolean array = subArray != null && (sub == null || subArray.length < sub.length);
+                    if (array) {
+                        sub = subArray;
+                    }
+                    // patch 本身大约需要 10 个字节
+                    if (sub != null && sub.length + 10 < nEnd - nTag) {
+                        if (patches == null) {
+                            patches = new ArrayList<>();
+                        }
+                        patches.add(new Patch(index, nType, sub, array));
+                        continue;
+                    }
+                }
+            }
+            if (fields == null) {
+                fields = new EncodeBuffer(ByteArrayPool.getArray());
+            }
+            fields.checkCapacity(nEnd - nTag);
+            fields.writeBytes(newBytes, nTag, nEnd - nTag);
+        }
+
+        PackEncoder encoder = new PackEncoder();
+        int removedCount = 0;
+        byte[] removed = null;
+        for (int i = 0; i < oldFields.count; i++) {
+            if (newFields.find(oldFields.indexes[i]) < 0) {
+                if (removed == null) {
+                    removed = new byte[oldFields.count];
+                }
+                removed[removedCount++] = (byte) oldFields.indexes[i];
+            }
+        }
+        if (removed != null) {
+            encoder.putByteArray(REMOVED, Arrays.copyOf(removed, removedCount));
+        }
+        if (fields != null) {
+            encoder.wrapTagAndLength(FIELDS, fields.position);
+            encoder.writeBytes(fields.hb, 0, fields.position);
+            ByteArrayPool.recycleArray(fields.hb);
+        }
+        if (patches != null) {
+            encoder.putObjectList(PATCHES, patches, PATCH_ADAPTER);
+        }
+        return encoder.toBytes();
+    }
+
+    /**
+     * 比较两个对象数组（putObjectArray / putObjectList 的编码），返回 delta；如果无法表示，返回 null。
+     */
+    private static byte[] diffArray(byte[] oldBytes, int oldStart, int oldEnd,
+                                    byte[] newBytes, int newStart, int newEnd) {
+        int[] oldElements = parseElements(oldBytes, oldStart, oldEnd);
+        if (oldElements == null) {
+            return null;
+        }
+        int[] newElements = parseElements(newBytes, newStart, newEnd);
+        if (newElements == null) {
+            return null;
+        }
+        int oldSize = oldElements.length / 3;
+        int newSize = newElements.length / 3;
+
+        int[] positions = null;
+        int positionCount = 0;
+        EncodeBuffer elements = null;
+        List<Patch> patches = null;
+        for (int i = 0; i < newSize; i++) {
+            int nPrefix = newElements[i * 3];
+            int nPayload = newElements[i * 3 + 1];
+            int nEnd = newElements[i * 3 + 2];
+            if (i < oldSize) {
+                int oPrefix = oldElements[i * 3];
+                int oPayload = oldElements[i * 3 + 1];
+                int oEnd = oldElements[i * 3 + 2];
+                if (equals(oldBytes, oPrefix, oEnd, newBytes, nPrefix, nEnd)) {
+                    continue;
+                }
+                if (oPayload != NULL_ELEMENT && nPayload != NULL_ELEMENT) {
+                    byte[] sub = diffObject(oldBytes, oPayload, oEnd, newBytes, nPayload, nEnd);
+                    if (sub != null && sub.length + 8 < nEnd - nPrefix) {
+                        if (patches == null) {
+                            patches = new ArrayList<>();
+                        }
+                        patches.add(new Patch(i, (byte) 0, sub, false));
+                        continue;
+                    }
+                }
+            }
+            if (elements == null) {
+                elements = new EncodeBuffer(ByteArrayPool.getArray());
+                positions = new int[Math.min(newSize, 16)];
+            }
+            if (positionCount == positions.length) {
+                positions = Arrays.copyOf(positions, Math.min(newSize, positionCount << 1));
+            }
+            positions[positionCount++] = i;
+            elements.checkCapacity(nEnd - nPrefix);
+            elements.writeBytes(newBytes, nPrefix, nEnd - nPrefix);
+        }
+
+        PackEncoder encoder = new PackEncoder();
+        encoder.putInt(ARRAY_SIZE, newSize);
+        if (elements != null) {
+            encoder.putIntArray(ARRAY_POSITIONS, Arrays.copyOf(positions, positionCount));
+            encoder.wrapTagAndLength(ARRAY_ELEMENTS, elements.position);
+            encoder.writeBytes(elements.hb, 0, elements.position);
+            ByteArrayPool.recycleArray(elements.hb);
+        }
+        if (patches != null) {
+            encoder.putObjectList(ARRAY_PATCHES, patches, PATCH_ADAPTER);
+        }
+        return encoder.toBytes();
+    }
+
+    /**
+     * 解析对象数组: [size (varint)][element]...
+     * 每个元素返回3个位置: 长度前缀的位置, 对象的位置（null 元素为 NULL_ELEMENT）, 结束位置。
+     * 如果数据不是标准编码的对象数组，返回 null。
+     */
+    static int[] parseElements(byte[] hb, int start, int end) {
+        if (start == end) {
+            return new int[0];
+        }
+        int p = start;
+        int n = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (p >= end || shift > 28) {
+                return null;
+            }
+            byte b = hb[p++];
+            n |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        if (n < 0 || n > PackConfig.maxObjectArraySize || n > (end - p) >> 1
+                || EncodeBuffer.getVarInt32Size(n) != p - start) {
+            return null;
+        }
+        int[] elements = new int[n * 3];
+        for (int i = 0; i < n; i++) {
+            if (p + 2 > end) {
+                return null;
+            }
+            int pPrefix = p;
+            short a = (short) ((hb[p] & 0xff) | (hb[p + 1] << 8));
+            p += 2;
+            int pPayload;
+            if (a == PackConfig.NULL_OBJECT_FLAG) {
+                pPayload = NULL_ELEMENT;
+            } else {
+                int len;
+                if (a >= 0) {
+                    len = a;
+                } else {
+                    if (p + 2 > end) {
+                        return null;
+                    }
+                    len = ((a & 0x7fff) << 16) | (hb[p] & 0xff) | ((hb[p + 1] & 0xff) << 8);
+                    p += 2;
+                    // 标准编码只有在长度超过 0x7fff 时才使用4字节前缀
+                    if (len <= 0x7fff) {
+                        return null;
+                    }
+                }
+                if (len > end - p) {
+                    return null;
+                }
+                pPayload = p;
+                p += len;
+            }
+            elements[i * 3] = pPrefix;
+            elements[i * 3 + 1] = pPayload;
+            elements[i * 3 + 2] = p;
+        }
+        return p == end ? elements : null;
+    }
+
+    static boolean equals(byte[] a, int aStart, int aEnd, byte[] b, int bStart, int bEnd) {
+        int len = aEnd - aStart;
+        if (len != bEnd - bStart) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (a[aStart + i] != b[bStart + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,7 +1,13 @@
 package io.packable;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SelectableChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -17,15 +23,43 @@ public final class PackEncoder {
 
     private static final String NOT_SUPPORT_EMPTY_ELEMENT = "not support empty element";
 
+    private static final int DEFAULT_SEGMENT_SIZE = 1 << 16;
+
     private final EncodeBuffer buffer;
     private boolean allASCII = true;
     private boolean recycled = false;
 
+    // 正在编码的子对象的层数，为 0 时表示在写顶层字段
+    private int depth = 0;
+
     public PackEncoder() {
         byte[] array = ByteArrayPool.getArray();
         buffer = new EncodeBuffer(array);
     }
 
+    /**
+     * 创建分段模式的 Encoder。
+     * <br>
+     * 普通模式下，buffer 容量不足时需要扩容并拷贝之前的内容，总大小也不能超过 1G。
+     * 分段模式下，每当写入的内容超过 segmentSize，会在下一个顶层字段开始前封存当前的数组，
+     * 之后换用新的数组继续写入，之前的内容不需要拷贝；总大小不受 1G 的限制（单个顶层字段仍然需要在一个数组内）。
+     * <br>
+     * 编码结果与普通模式相同，通过 {@link #toByteBuffers()} 或者 {@link #writeTo(GatheringByteChannel)} 获取，
+     * 不需要拼接成一个数组。
+     */
+    public static PackEncoder newSegmentedEncoder(int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("invalid segment size: " + segmentSize);
+        }
+        PackEncoder encoder = new PackEncoder();
+        encoder.buffer.segmentSize = segmentSize;
+        return encoder;
+    }
+
+    public static PackEncoder newSegmentedEncoder() {
+        return newSegmentedEncoder(DEFAULT_SEGMENT_SIZE);
+    }
+
     public static <T> byte[] encode(T target, TypeAdapter<T> adapter) {
         PackEncoder encoder = new PackEncoder();
         adapter.encode(encoder, target);
@@ -42,6 +76,26 @@ public final class PackEncoder {
         return encoder.toBytes();
     }
 
+    /**
+     * 以分段模式编码对象列表，编码结果与 {@link #encodeObjectList} 相同。
+     * <br>
+     * 每个元素编码完成后都可以封存分段，所以总大小可以超过 1G。
+     */
+    public static <T> PackEncoder encodeObjectListSegmented(Collection<T> value, TypeAdapter<T> adapter) {
+        PackEncoder encoder = newSegmentedEncoder();
+        if (value.isEmpty()) return encoder;
+        EncodeBuffer buffer = encoder.buffer;
+        buffer.checkCapacity(5);
+        buffer.writeVarInt32(value.size());
+        for (T e : value) {
+            encoder.wrapObject(e, adapter);
+            if (buffer.position >= buffer.segmentSize) {
+                buffer.seal();
+            }
+        }
+        return encoder;
+    }
+
     public static byte[] encodeIntArray(int[] value) {
         if (value == null || value.length == 0) return EMPTY_ARRAY;
         PackEncoder encoder = new PackEncoder();
@@ -84,13 +138,108 @@ public final class PackEncoder {
      */
     public byte[] toBytes() {
         checkBufferState();
-        byte[] bytes = Arrays.copyOf(buffer.hb, buffer.position);
+        byte[] bytes;
+        if (buffer.segmentCount == 0) {
+            bytes = Arrays.copyOf(buffer.hb, buffer.position);
+        } else {
+            long total = buffer.totalSize();
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("size over limit, use toByteBuffers or writeTo instead");
+            }
+            bytes = new byte[(int) total];
+            int p = 0;
+            for (int i = 0; i < buffer.segmentCount; i++) {
+                System.arraycopy(buffer.segments[i], 0, bytes, p, buffer.segmentLengths[i]);
+                p += buffer.segmentLengths[i];
+            }
+            System.arraycopy(buffer.hb, 0, bytes, p, buffer.position);
+        }
         recycle();
         return bytes;
     }
 
-    private void recycle() {
+    /**
+     * 已写入的总字节数
+     */
+    public long totalSize() {
         checkBufferState();
+        return buffer.totalSize();
+    }
+
+    /**
+     * 以 ByteBuffer 数组的形式获取编码结果（分段模式下每个分段一个 ByteBuffer，不拷贝），
+     * 可以直接用于 {@link GatheringByteChannel#write(ByteBuffer[])}。
+     * <br>
+     * 调用此方法后，数组归调用方所有，Encoder 不能再使用。
+     */
+    public ByteBuffer[] toByteBuffers() {
+        ByteBuffer[] buffers = wrapSegments();
+        buffer.segments = null;
+        buffer.hb = null;
+        recycled = true;
+        return buffers;
+    }
+
+    /**
+     * 将编码结果写入 channel（阻塞模式），写完后回收 buffer，Encoder 不能再使用。
+     * <br>
+     * 非阻塞的 channel 可能只写入一部分，请使用 {@link #toByteBuffers()} 自行处理。
+     *
+     * @return 写入的字节数
+     * @throws IllegalBlockingModeException channel 为非阻塞模式
+     */
+    public long writeTo(GatheringByteChannel channel) throws IOException {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+            throw new IllegalBlockingModeException();
+        }
+        ByteBuffer[] buffers = wrapSegments();
+        long total = buffer.totalSize();
+        long written = 0;
+        while (written < total) {
+            written += channel.write(buffers);
+        }
+        recycle();
+        return written;
+    }
+
+    private ByteBuffer[] wrapSegments() {
+        checkBufferState();
+        int n = buffer.segmentCount;
+        ByteBuffer[] buffers = new ByteBuffer[n + 1];
+        for (int i = 0; i < n; i++) {
+            buffers[i] = ByteBuffer.wrap(buffer.segments[i], 0, buffer.segmentLengths[i]);
+        }
+        buffers[n] = ByteBuffer.wrap(buffer.hb, 0, buffer.position);
+        return buffers;
+    }
+
+    /**
+     * 清空已写入的内容，用于复用同一个 Encoder 逐个编码多个对象
+     */
+    void clear() {
+        checkBufferState();
+        for (int i = 0; i < buffer.segmentCount; i++) {
+            ByteArrayPool.recycleArray(buffer.segments[i]);
+        }
+        buffer.segmentCount = 0;
+        buffer.sealedSize = 0;
+        buffer.position = 0;
+    }
+
+    byte[] array() {
+        return buffer.hb;
+    }
+
+    int size() {
+        return buffer.position;
+    }
+
+    void recycle() {
+        checkBufferState();
+        for (int i = 0; i < buffer.segmentCount; i++) {
+            ByteArrayPool.recycleArray(buffer.segments[i]);
+        }
+        buffer.segments = null;
         ByteArrayPool.recycleArray(buffer.hb);
         buffer.hb = null;
         recycled = true;
@@ -102,11 +251,22 @@ public final class PackEncoder {
         }
     }
 
-    private void putIndex(int index) {
+    /**
+     * 写入字段的 index, 返回 tag 的位置。
+     * <br>
+     * 分段模式下，顶层字段开始之前，之前的字段都已经写完，是封存分段的安全点；
+     * 封存后会换用新的数组，所以调用方需要使用这里返回的位置，而不是之前记录的 buffer.position。
+     */
+    private int putIndex(int index) {
+        if (depth == 0 && buffer.segmentSize > 0 && buffer.position >= buffer.segmentSize) {
+            buffer.seal();
+        }
+        int pos = buffer.position;
         if (index >= TagFormat.LITTLE_INDEX_BOUND) {
             buffer.writeByte(TagFormat.BIG_INDEX_MASK);
         }
         buffer.writeByte((byte) (index));
+        return pos;
     }
 
     public PackEncoder putByte(int index, byte value) {
@@ -114,12 +274,8 @@ public final class PackEncoder {
         if (value == 0) {
             putIndex(index);
         } else {
-            if (index < TagFormat.LITTLE_INDEX_BOUND) {
-                buffer.writeByte((byte) (index | TagFormat.TYPE_NUM_8));
-            } else {
-                buffer.writeByte((byte) (TagFormat.BIG_INDEX_MASK | TagFormat.TYPE_NUM_8));
-                buffer.writeByte((byte) index);
-            }
+            int pos = putIndex(index);
+            buffer.hb[pos] |= TagFormat.TYPE_NUM_8;
             buffer.writeByte(value);
         }
         return this;
@@ -134,8 +290,7 @@ public final class PackEncoder {
         if (value == 0) {
             putIndex(index);
         } else {
-            int pos = buffer.position;
-            putIndex(index);
+            int pos = putIndex(index);
             if ((value >> 8) == 0) {
                 buffer.hb[pos] |= TagFormat.TYPE_NUM_8;
                 buffer.writeByte((byte) value);
@@ -152,8 +307,7 @@ public final class PackEncoder {
         if (value == 0) {
             putIndex(index);
         } else {
-            int pos = buffer.position;
-            putIndex(index);
+            int pos = putIndex(index);
             if ((value >> 8) == 0) {
                 buffer.hb[pos] |= TagFormat.TYPE_NUM_8;
                 buffer.writeByte((byte) value);
@@ -173,8 +327,7 @@ public final class PackEncoder {
         if (value == 0L) {
             putIndex(index);
         } else {
-            int pos = buffer.position;
-            putIndex(index);
+            int pos = putIndex(index);
             if ((value >> 32) != 0) {
                 buffer.hb[pos] |= TagFormat.TYPE_NUM_64;
                 buffer.writeLong(value);
@@ -197,12 +350,8 @@ public final class PackEncoder {
         if (value == 0f) {
             putIndex(index);
         } else {
-            if (index < TagFormat.LITTLE_INDEX_BOUND) {
-                buffer.writeByte((byte) (index | TagFormat.TYPE_NUM_32));
-            } else {
-                buffer.writeByte((byte) (TagFormat.BIG_INDEX_MASK | TagFormat.TYPE_NUM_32));
-                buffer.writeByte((byte) index);
-            }
+            int pos = putIndex(index);
+            buffer.hb[pos] |= TagFormat.TYPE_NUM_32;
             buffer.writeFloat(value);
         }
         return this;
@@ -213,12 +362,8 @@ public final class PackEncoder {
         if (value == 0D) {
             putIndex(index);
         } else {
-            if (index < TagFormat.LITTLE_INDEX_BOUND) {
-                buffer.writeByte((byte) (index | TagFormat.TYPE_NUM_64));
-            } else {
-                buffer.writeByte((byte) (TagFormat.BIG_INDEX_MASK | TagFormat.TYPE_NUM_64));
-                buffer.writeByte((byte) index);
-            }
+            int pos = putIndex(index);
+            buffer.hb[pos] |= TagFormat.TYPE_NUM_64;
             buffer.writeDouble(value);
         }
         return this;
@@ -237,8 +382,7 @@ public final class PackEncoder {
         if (n <= 85) {
             // Decoded data's max length will be 85*3=255 bytes
             buffer.checkCapacity(258);
-            int pos = buffer.position;
-            putIndex(index);
+            int pos = putIndex(index);
             buffer.hb[pos] |= TagFormat.TYPE_VAR_8;
             pos = buffer.position;
             // reserve one byte for store length of data
@@ -354,12 +498,13 @@ public final class PackEncoder {
             return this;
         }
         buffer.checkCapacity(6);
-        int pTag = buffer.position;
-        putIndex(index);
+        int pTag = putIndex(index);
         // 预留 4 字节来存放长度，如果最终用不了那么多，则回退
         buffer.position += 4;
         int pValue = buffer.position;
+        depth++;
         adapter.encode(this, value);
+        depth--;
         if (pValue == buffer.position) {
             buffer.position -= 4;
         } else {
@@ -368,14 +513,77 @@ public final class PackEncoder {
         return this;
     }
 
+    /**
+     * 写入已经编码好的对象（例如缓存的 {@link #encode} 的结果），不需要再次执行 adapter.encode。
+     * <br>
+     * 编码结果与 {@link #putObject} 完全相同。
+     */
+    public PackEncoder putEncodedObject(int index, byte[] value) {
+        if (value == null) {
+            return this;
+        }
+        return putEncodedObject(index, value, 0, value.length);
+    }
+
+    public PackEncoder putEncodedObject(int index, byte[] value, int offset, int len) {
+        if (value == null) {
+            return this;
+        }
+        checkRange(value, offset, len);
+        putEncodedHeader(index, len);
+        buffer.writeBytes(value, offset, len);
+        return this;
+    }
+
+    /**
+     * 写入 ByteBuffer 中 [position, limit) 的字节（例如 {@link PackDecoder#getRawObject} 的结果），
+     * 不改变 value 的 position。
+     */
+    public PackEncoder putEncodedObject(int index, ByteBuffer value) {
+        if (value == null) {
+            return this;
+        }
+        if (value.hasArray()) {
+            return putEncodedObject(index, value.array(), value.arrayOffset() + value.position(), value.remaining());
+        }
+        int len = value.remaining();
+        putEncodedHeader(index, len);
+        value.duplicate().get(buffer.hb, buffer.position, len);
+        buffer.position += len;
+        return this;
+    }
+
+    /**
+     * 写入 tag 和长度，并预留 len 字节的空间，与 putLen 的规则一致
+     */
+    private void putEncodedHeader(int index, int len) {
+        buffer.checkCapacity(6 + len);
+        int pTag = putIndex(index);
+        if (len > 0) {
+            if (len <= 128) {
+                buffer.hb[pTag] |= TagFormat.TYPE_VAR_8;
+                buffer.writeByte((byte) len);
+            } else {
+                buffer.hb[pTag] |= TagFormat.TYPE_VAR_32;
+                buffer.writeInt(len);
+            }
+        }
+    }
+
+    private static void checkRange(byte[] value, int offset, int len) {
+        if (offset < 0 || len < 0 || offset + len > value.length) {
+            throw new IllegalArgumentException("out of range, " +
+                    "size:" + value.length + " offset:" + offset + " length:" + len);
+        }
+    }
+
     private long wrapObjectArrayHeader(int index, int size) {
         if (size > PackConfig.maxObjectArraySize) {
             throw new IllegalStateException("object array size out of limit");
         }
         // at most case: 2 bytes index, 4 bytes len, 5 bytes size
         buffer.checkCapacity(11);
-        long pTag = buffer.position;
-        putIndex(index);
+        long pTag = putIndex(index);
         if (size <= 0) return -1;
         buffer.position += 4;
         long pValue = buffer.position;
@@ -405,6 +613,110 @@ public final class PackEncoder {
         return this;
     }
 
+    /**
+     * 编码带偏移索引的对象数组，可以通过 {@link PackDecoder#getObjectAt} 直接访问第 i 个元素（O(1)）。
+     * <br>
+     * 格式：[size][元素]...[offset]...
+     * <br>
+     * 元素部分与 {@link #putObjectArray} 相同，之后是每个元素相对于 value 起始位置的偏移（固定4字节）。
+     * 偏移表在末尾，所以也可以用 getObjectArray/getObjectList 解码（忽略偏移表）。
+     */
+    public <T> PackEncoder putIndexedObjectArray(int index, T[] value, TypeAdapter<T> adapter) {
+        if (value == null) return this;
+        long tagValue = wrapObjectArrayHeader(index, value.length);
+        if (tagValue < 0) return this;
+        for (T e : value) {
+            wrapObject(e, adapter);
+        }
+        wrapOffsetTable((int) tagValue, value.length);
+        putLen((int) (tagValue >>> 32), (int) tagValue);
+        return this;
+    }
+
+    public <T> PackEncoder putIndexedObjectList(int index, Collection<? extends T> value, TypeAdapter<T> adapter) {
+        if (value == null) return this;
+        int size = value.size();
+        long tagValue = wrapObjectArrayHeader(index, size);
+        if (tagValue < 0) return this;
+        for (T e : value) {
+            wrapObject(e, adapter);
+        }
+        wrapOffsetTable((int) tagValue, size);
+        putLen((int) (tagValue >>> 32), (int) tagValue);
+        return this;
+    }
+
+    /**
+     * 按元素的长度前缀重新遍历已写入的元素，依次写入各元素的偏移（不需要额外的数组记录偏移）
+     */
+    private void wrapOffsetTable(int pValue, int size) {
+        buffer.checkCapacity(size << 2);
+        int end = buffer.position;
+        int p = pValue + EncodeBuffer.getVarInt32Size(size);
+        byte[] hb = buffer.hb;
+        for (int i = 0; i < size; i++) {
+            buffer.writeInt(p - pValue);
+            short a = (short) ((hb[p] & 0xff) | (hb[p + 1] << 8));
+            if (a == PackConfig.NULL_OBJECT_FLAG) {
+                p += 2;
+            } else if (a >= 0) {
+                p += 2 + a;
+            } else {
+                p += 4 + (((a & 0x7fff) << 16) | (hb[p + 2] & 0xff) | ((hb[p + 3] & 0xff) << 8));
+            }
+        }
+        if (p != end) {
+            throw new IllegalStateException("size of collection changed while encoding");
+        }
+    }
+
+    /**
+     * 写入已经编码好的对象数组，数组元素为各对象编码后的字节（null 表示对象为 null）。
+     * <br>
+     * 编码结果与 {@link #putObjectArray} 完全相同。
+     */
+    public PackEncoder putEncodedObjectArray(int index, byte[][] value) {
+        if (value == null) return this;
+        long tagValue = wrapObjectArrayHeader(index, value.length);
+        if (tagValue < 0) return this;
+        for (byte[] e : value) {
+            wrapEncodedObject(e);
+        }
+        putLen((int) (tagValue >>> 32), (int) tagValue);
+        return this;
+    }
+
+    public PackEncoder putEncodedObjectList(int index, Collection<byte[]> value) {
+        if (value == null) return this;
+        long tagValue = wrapObjectArrayHeader(index, value.size());
+        if (tagValue < 0) return this;
+        for (byte[] e : value) {
+            wrapEncodedObject(e);
+        }
+        putLen((int) (tagValue >>> 32), (int) tagValue);
+        return this;
+    }
+
+    /**
+     * 编码结果与 {@link #wrapObject} 相同
+     */
+    private void wrapEncodedObject(byte[] value) {
+        if (value == null) {
+            buffer.checkCapacity(2);
+            buffer.writeShort(PackConfig.NULL_OBJECT_FLAG);
+        } else {
+            int len = value.length;
+            buffer.checkCapacity(4 + len);
+            if (len <= 0x7fff) {
+                buffer.writeShort((short) len);
+            } else {
+                buffer.writeShort((short) ((len >>> 16) | 0x8000));
+                buffer.writeShort((short) len);
+            }
+            buffer.writeBytes(value);
+        }
+    }
+
     /**
      * 编码对象
      * <br>
@@ -421,7 +733,7 @@ public final class PackEncoder {
      * 由于预留两个字节，所以当对象占用空间少于 32768 时，不需要移动位置。
      * 编码 Object 和 String 的长度采用不同的方式，是综合权衡时间和空间的结果。
      */
-    private <T> void wrapObject(T target, TypeAdapter<T> adapter) {
+    <T> void wrapObject(T target, TypeAdapter<T> adapter) {
         buffer.checkCapacity(2);
         if (target == null) {
             buffer.writeShort(PackConfig.NULL_OBJECT_FLAG);
@@ -429,7 +741,9 @@ public final class PackEncoder {
             int pLen = buffer.position;
             buffer.position += 2;
             int pObj = buffer.position;
+            depth++;
             adapter.encode(this, target);
+            depth--;
             int len = buffer.position - pObj;
             if (len <= 0x7fff) {
                 buffer.writeShort(pLen, (short) len);
@@ -482,22 +796,77 @@ public final class PackEncoder {
             int byteCount = (n >> 3) + (remain == 0 ? 1 : 2);
             wrapTagAndLength(index, byteCount);
             buffer.writeByte((byte) remain);
-            int i = 0;
-            while (i < n) {
-                int end = Math.min(i + 8, n);
-                byte b = 0;
-                for (int j = i; j < end; j++) {
+            byte[] hb = buffer.hb;
+            int p = buffer.position;
+            int end = n & ~0x7;
+            // 每次合并 8 个元素，没有分支
+            for (int i = 0; i < end; i += 8) {
+                hb[p++] = (byte) ((value[i] ? 0x01 : 0)
+                        | (value[i + 1] ? 0x02 : 0)
+                        | (value[i + 2] ? 0x04 : 0)
+                        | (value[i + 3] ? 0x08 : 0)
+                        | (value[i + 4] ? 0x10 : 0)
+                        | (value[i + 5] ? 0x20 : 0)
+                        | (value[i + 6] ? 0x40 : 0)
+                        | (value[i + 7] ? 0x80 : 0));
+            }
+            if (remain != 0) {
+                int b = 0;
+                for (int j = end; j < n; j++) {
                     if (value[j]) {
                         b |= 1 << (j & 0x7);
                     }
                 }
-                buffer.writeByte(b);
-                i = end;
+                hb[p++] = (byte) b;
             }
+            buffer.position = p;
+        }
+        return this;
+    }
+
+    /**
+     * 写入 BitSet, 格式与 {@link BitSet#toByteArray()} 相同（小端序，去掉末尾为 0 的字节）。
+     * <br>
+     * 与 {@link #putBooleanArray} 相比，不记录长度，按整个 long 写入，适合位数很多的场景。
+     */
+    public PackEncoder putBitSet(int index, BitSet value) {
+        if (value != null) {
+            long[] words = value.toLongArray();
+            putBitSet(index, words, words.length);
+        }
+        return this;
+    }
+
+    /**
+     * 以 long 数组的形式写入位集合，第 i 位为 (words[i >> 6] & (1L << i)) != 0，
+     * 与 {@link BitSet#valueOf(long[])} 的约定相同。
+     */
+    public PackEncoder putBitSet(int index, long[] words) {
+        if (words != null) {
+            putBitSet(index, words, words.length);
         }
         return this;
     }
 
+    private void putBitSet(int index, long[] words, int n) {
+        while (n > 0 && words[n - 1] == 0L) {
+            n--;
+        }
+        if (n == 0) {
+            wrapTagAndLength(index, 0);
+            return;
+        }
+        long last = words[n - 1];
+        int lastBytes = 8 - (Long.numberOfLeadingZeros(last) >> 3);
+        wrapTagAndLength(index, ((n - 1) << 3) + lastBytes);
+        for (int i = 0; i < n - 1; i++) {
+            buffer.writeLong(words[i]);
+        }
+        for (int i = 0; i < lastBytes; i++) {
+            buffer.writeByte((byte) (last >>> (i << 3)));
+        }
+    }
+
     public PackEncoder putByteArray(int index, byte[] value) {
         if (value != null) {
             wrapTagAndLength(index, value.length);
@@ -546,13 +915,192 @@ public final class PackEncoder {
         return this;
     }
 
-    void wrapTagAndLength(int index, int len) {
-        buffer.checkCapacity(6 + len);
-        if (len == 0) {
-            putIndex(index);
+    /**
+     * 以 XOR 方式压缩 double 数组（参考 Gorilla 时序数据库的编码），适用于变化缓慢的时序数据。
+     * <br>
+     * 格式：[varint n][第一个值 64 bit][之后每个值与前一个值的异或结果]。
+     * 异或结果为 0 时只占 1 bit；否则只记录去掉前导 0 和尾部 0 之后的有效位：
+     * 有效位落在上一个窗口内时复用窗口，否则先写入 6 bit 的前导 0 个数和 6 bit 的有效位长度。
+     * <br>
+     * 需要用 {@link PackDecoder#getXorDoubleArray} 读取。
+     */
+    public PackEncoder putXorDoubleArray(int index, double[] value) {
+        if (value == null) return this;
+        int n = value.length;
+        if (n == 0) {
+            wrapTagAndLength(index, 0);
+            return this;
+        }
+        // tag + 长度 + n + 第一个值
+        buffer.checkCapacity(6 + 5 + 8);
+        int pTag = putIndex(index);
+        buffer.position += 4;
+        int pValue = buffer.position;
+        buffer.writeVarInt32(n);
+        BitWriter writer = new BitWriter(buffer);
+        long prev = Double.doubleToRawLongBits(value[0]);
+        writer.write(prev, 64);
+        int prevLeading = -1;
+        int prevTrailing = 0;
+        for (int i = 1; i < n; i++) {
+            // 每个值最多占用 1 + 1 + 6 + 6 + 64 bit
+            buffer.checkCapacity(10);
+            long cur = Double.doubleToRawLongBits(value[i]);
+            long xor = cur ^ prev;
+            prev = cur;
+            if (xor == 0L) {
+                writer.writeBit(false);
+                continue;
+            }
+            writer.writeBit(true);
+            int leading = Long.numberOfLeadingZeros(xor);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+                writer.writeBit(false);
+                writer.write(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+            } else {
+                int significant = 64 - leading - trailing;
+                writer.writeBit(true);
+                writer.write(leading, 6);
+                writer.write(significant - 1, 6);
+                writer.write(xor >>> trailing, significant);
+                prevLeading = leading;
+                prevTrailing = trailing;
+            }
+        }
+        buffer.checkCapacity(1);
+        writer.flush();
+        putLen(pTag, pValue);
+        return this;
+    }
+
+    /**
+     * 与 {@link #putXorDoubleArray} 相同，前导 0 个数和有效位长度各占 5 bit。
+     */
+    public PackEncoder putXorFloatArray(int index, float[] value) {
+        if (value == null) return this;
+        int n = value.length;
+        if (n == 0) {
+            wrapTagAndLength(index, 0);
+            return this;
+        }
+        buffer.checkCapacity(6 + 5 + 4);
+        int pTag = putIndex(index);
+        buffer.position += 4;
+        int pValue = buffer.position;
+        buffer.writeVarInt32(n);
+        BitWriter writer = new BitWriter(buffer);
+        int prev = Float.floatToRawIntBits(value[0]);
+        writer.write(prev, 32);
+        int prevLeading = -1;
+        int prevTrailing = 0;
+        for (int i = 1; i < n; i++) {
+            // 每个值最多占用 1 + 1 + 5 + 5 + 32 bit
+            buffer.checkCapacity(6);
+            int cur = Float.floatToRawIntBits(value[i]);
+            int xor = cur ^ prev;
+            prev = cur;
+            if (xor == 0) {
+                writer.writeBit(false);
+                continue;
+            }
+            writer.writeBit(true);
+            int leading = Integer.numberOfLeadingZeros(xor);
+            int trailing = Integer.numberOfTrailingZeros(xor);
+            if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+                writer.writeBit(false);
+                writer.write(xor >>> prevTrailing, 32 - prevLeading - prevTrailing);
+            } else {
+                int significant = 32 - leading - trailing;
+                writer.writeBit(true);
+                writer.write(leading, 5);
+                writer.write(significant - 1, 5);
+                writer.write(xor >>> trailing, significant);
+                prevLeading = leading;
+                prevTrailing = trailing;
+            }
+        }
+        buffer.checkCapacity(1);
+        writer.flush();
+        putLen(pTag, pValue);
+        return this;
+    }
+
+    /**
+     * 以 IEEE 754 半精度 (fp16) 写入 float 数组，每个元素 2 字节（有损）。
+     * <br>
+     * fp16 有 10 位尾数，绝对值范围约为 6e-8 ~ 65504，超出范围的值变为 0 或 Infinity。
+     */
+    public PackEncoder putHalfFloatArray(int index, float[] value) {
+        if (value != null) {
+            wrapTagAndLength(index, value.length << 1);
+            for (float e : value) {
+                buffer.writeShort(Float16.floatToHalf(e));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 以 bfloat16 写入 float 数组，每个元素 2 字节（有损）。
+     * <br>
+     * bfloat16 只保留 float 的高 16 位，范围与 float 相同，尾数只有 7 位。
+     */
+    public PackEncoder putBFloat16Array(int index, float[] value) {
+        if (value != null) {
+            wrapTagAndLength(index, value.length << 1);
+            for (float e : value) {
+                buffer.writeShort(Float16.floatToBFloat16(e));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 以 int8 线性量化写入 float 数组（有损）。
+     * <br>
+     * 格式：[scale: float][zeroPoint: float][q: int8 * n], 还原值为 q * scale + zeroPoint。
+     * scale 和 zeroPoint 由数组的最小值和最大值确定，误差约为 (max - min) / 510。
+     * 数组中不能有 NaN 和 Infinity。
+     */
+    public PackEncoder putQuantizedFloatArray(int index, float[] value) {
+        if (value == null) return this;
+        int n = value.length;
+        if (n == 0) {
+            wrapTagAndLength(index, 0);
+            return this;
+        }
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for (float e : value) {
+            if (Float.isNaN(e) || Float.isInfinite(e)) {
+                throw new IllegalArgumentException("not support NaN or Infinity in quantized array");
+            }
+            if (e < min) min = e;
+            if (e > max) max = e;
+        }
+        float scale = (float) (((double) max - min) / 255);
+        float zeroPoint = (float) (min + 128 * (double) scale);
+        wrapTagAndLength(index, 8 + n);
+        buffer.writeFloat(scale);
+        buffer.writeFloat(zeroPoint);
+        if (scale == 0f) {
+            for (int i = 0; i < n; i++) {
+                buffer.writeByte((byte) 0);
+            }
         } else {
-            int pos = buffer.position;
-            putIndex(index);
+            for (float e : value) {
+                long q = Math.round(((double) e - zeroPoint) / scale);
+                buffer.writeByte((byte) Math.max(-128, Math.min(127, q)));
+            }
+        }
+        return this;
+    }
+
+    int wrapTagAndLength(int index, int len) {
+        buffer.checkCapacity(6 + len);
+        int pos = putIndex(index);
+        if (len != 0) {
             if (len <= 0xff) {
                 buffer.hb[pos] |= TagFormat.TYPE_VAR_8;
                 buffer.writeByte((byte) len);
@@ -564,6 +1112,17 @@ public final class PackEncoder {
                 buffer.writeInt(len);
             }
         }
+        return pos;
+    }
+
+    /**
+     * 直接写入字节（不带 tag），用于拼接已经编码好的数据
+     */
+    void writeBytes(byte[] src, int offset, int len) {
+        if (len > 0) {
+            buffer.checkCapacity(len);
+            buffer.writeBytes(src, offset, len);
+        }
     }
 
     int getListSize(int index, Collection<?> value) {
@@ -577,55 +1136,96 @@ public final class PackEncoder {
         return value.size();
     }
 
+    /**
+     * 编码结果与 {@link #putIntArray} 相同。
+     * <br>
+     * value 为 {@link IntList} 时直接写入其数组；否则边遍历边写入，不创建临时数组。
+     */
     public PackEncoder putIntList(int index, Collection<Integer> value) {
         int n = getListSize(index, value);
         if (n <= 0) return this;
-        int[] a = new int[n];
-        int i = 0;
+        if (value instanceof IntList) {
+            int[] a = ((IntList) value).array();
+            wrapTagAndLength(index, n << 2);
+            for (int i = 0; i < n; i++) {
+                buffer.writeInt(a[i]);
+            }
+            return this;
+        }
+        int pTag = wrapTagAndLength(index, n << 2);
         for (Integer x : value) {
-            if (x == null) throw new IllegalArgumentException(NOT_SUPPORT_EMPTY_ELEMENT);
-            a[i++] = x;
+            if (x == null) {
+                buffer.position = pTag;
+                throw new IllegalArgumentException(NOT_SUPPORT_EMPTY_ELEMENT);
+            }
+            buffer.writeInt(x);
         }
-        putIntArray(index, a);
         return this;
     }
 
     public PackEncoder putLongList(int index, Collection<Long> value) {
         int n = getListSize(index, value);
         if (n <= 0) return this;
-        long[] a = new long[n];
-        int i = 0;
+        if (value instanceof LongList) {
+            long[] a = ((LongList) value).array();
+            wrapTagAndLength(index, n << 3);
+            for (int i = 0; i < n; i++) {
+                buffer.writeLong(a[i]);
+            }
+            return this;
+        }
+        int pTag = wrapTagAndLength(index, n << 3);
         for (Long x : value) {
-            if (x == null) throw new IllegalArgumentException(NOT_SUPPORT_EMPTY_ELEMENT);
-            a[i++] = x;
+            if (x == null) {
+                buffer.position = pTag;
+                throw new IllegalArgumentException(NOT_SUPPORT_EMPTY_ELEMENT);
+            }
+            buffer.writeLong(x);
         }
-        putLongArray(index, a);
         return this;
     }
 
     public PackEncoder putFloatList(int index, Collection<Float> value) {
         int n = getListSize(index, value);
         if (n <= 0) return this;
-        float[] a = new float[n];
-        int i = 0;
+        if (value instanceof FloatList) {
+            float[] a = ((FloatList) value).array();
+            wrapTagAndLength(index, n << 2);
+            for (int i = 0; i < n; i++) {
+                buffer.writeFloat(a[i]);
+            }
+            return this;
+        }
+        int pTag = wrapTagAndLength(index, n << 2);
         for (Float x : value) {
-            if (x == null) throw new IllegalArgumentException(NOT_SUPPORT_EMPTY_ELEMENT);
-            a[i++] = x;
+            if (x == null) {
+                buffer.position = pTag;
+                throw new IllegalArgumentException(NOT_SUPPORT_EMPTY_ELEMENT);
+            }
+            buffer.writeFloat(x);
         }
-        putFloatArray(index, a);
         return this;
     }
 
     public PackEncoder putDoubleList(int index, Collection<Double> value) {
         int n = getListSize(index, value);
         if (n <= 0) return this;
-        double[] a = new double[n];
-        int i = 0;
+        if (value instanceof DoubleList) {
+            double[] a = ((DoubleList) value).array();
+            wrapTagAndLength(index, n << 3);
+            for (int i = 0; i < n; i++) {
+                buffer.writeDouble(a[i]);
+            }
+            return this;
+        }
+        int pTag = wrapTagAndLength(index, n << 3);
         for (Double x : value) {
-            if (x == null) throw new IllegalArgumentException(NOT_SUPPORT_EMPTY_ELEMENT);
-            a[i++] = x;
+            if (x == null) {
+                buffer.position = pTag;
+                throw new IllegalArgumentException(NOT_SUPPORT_EMPTY_ELEMENT);
+            }
+            buffer.writeDouble(x);
         }
-        putDoubleArray(index, a);
         return this;
     }
 
@@ -679,6 +1279,9 @@ public final class PackEncoder {
         return putMap(index, map, null, valueTypeAdapter);
     }
 
+    /**
+     * key 或 value 为 null 的元素不会被编码（不会修改传入的 map）。
+     */
     @SuppressWarnings("unchecked")
     public <K, V> PackEncoder putMap(
             int index,
@@ -687,34 +1290,38 @@ public final class PackEncoder {
             TypeAdapter<V> valueAdapter
     ) {
         if (map == null) return this;
-        map.entrySet().removeIf(entry -> entry.getKey() == null || entry.getValue() == null);
-        int size = map.size();
-        if (size == 0) {
-            wrapObjectArrayHeader(index, size);
-        } else {
-            Class<K> keyType = null;
-            Class<V> valueType = null;
-            Map.Entry<K, V> entry = map.entrySet().iterator().next();
-            // 当Packer为null时，从element中获取类型。
+        // 当Packer为null时，从element中获取类型（一次遍历，同时统计非空元素的数量）。
+        Class<K> keyType = null;
+        Class<V> valueType = null;
+        int size = 0;
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            K key = entry.getKey();
+            V value = entry.getValue();
+            if (key == null || value == null) {
+                continue;
+            }
+            size++;
             if (keyAdapter == null) {
-                final Class<K> type = (Class<K>) entry.getKey().getClass();
-                if (!map.keySet().stream().allMatch(key -> key.getClass() == type)) {
+                if (keyType == null) {
+                    keyType = (Class<K>) key.getClass();
+                } else if (key.getClass() != keyType) {
                     throw new IllegalArgumentException("The key not support multiply types");
                 }
-                keyType = type;
             }
             if (valueAdapter == null) {
-                final Class<V> type = (Class<V>) entry.getValue().getClass();
-                if (!map.values().stream().allMatch(value -> value.getClass() == type)) {
+                if (valueType == null) {
+                    valueType = (Class<V>) value.getClass();
+                } else if (value.getClass() != valueType) {
                     throw new IllegalArgumentException("The value not support multiply types");
                 }
-                valueType = type;
             }
-            return putMap(index, map, keyType, valueType, keyAdapter, valueAdapter);
         }
-        return this;
+        return writeMap(index, map, size, keyType, valueType, keyAdapter, valueAdapter);
     }
 
+    /**
+     * key 或 value 为 null 的元素不会被编码。
+     */
     public <K, V> PackEncoder putMap(
             int index,
             Map<K, V> map,
@@ -724,69 +1331,317 @@ public final class PackEncoder {
             TypeAdapter<V> valueAdapter
     ) {
         if (map == null) return this;
-        int size = map.size();
+        int size = 0;
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                size++;
+            }
+        }
+        return writeMap(index, map, size, keyType, valueType, keyAdapter, valueAdapter);
+    }
+
+    private <K, V> PackEncoder writeMap(
+            int index,
+            Map<K, V> map,
+            int size,
+            Class<K> keyType,
+            Class<V> valueType,
+            TypeAdapter<K> keyAdapter,
+            TypeAdapter<V> valueAdapter
+    ) {
+        if (size > 0 && !checkMapTypes(keyType, valueType, keyAdapter, valueAdapter)) {
+            // 不识别的类型，当没有写入这个map
+            return this;
+        }
         long tagValue = wrapObjectArrayHeader(index, size);
         if (tagValue < 0) return this;
 
-        int mark = buffer.position;
-
         for (Map.Entry<K, V> entry : map.entrySet()) {
-            if (keyAdapter != null) {
-                wrapObject(entry.getKey(), keyAdapter);
-            } else if (keyType == String.class) {
-                wrapString((String) entry.getKey());
+            K key = entry.getKey();
+            V value = entry.getValue();
+            if (key == null || value == null) {
+                continue;
+            }
+            wrapMapKey(key, keyType, keyAdapter);
+            wrapMapValue(value, valueType, valueAdapter);
+        }
+        putLen((int) (tagValue >>> 32), (int) tagValue);
+        return this;
+    }
+
+    static boolean isMapKeyType(Class<?> type) {
+        return type == String.class || type == Integer.class || type == Long.class;
+    }
+
+    static boolean isMapValueType(Class<?> type) {
+        return type == String.class || type == Integer.class || type == Long.class
+                || type == Double.class || type == Float.class || type == Boolean.class;
+    }
+
+    /**
+     * 检查 key 和 value 的类型是否支持（有 adapter 时不需要检查）。
+     * 不支持时，如果 {@link PackConfig#ignoreUnknownType} 为 true 返回 false，否则抛出异常。
+     */
+    private static boolean checkMapTypes(
+            Class<?> keyType,
+            Class<?> valueType,
+            TypeAdapter<?> keyAdapter,
+            TypeAdapter<?> valueAdapter
+    ) {
+        if (keyAdapter == null && !isMapKeyType(keyType)) {
+            if (PackConfig.ignoreUnknownType) {
+                return false;
+            }
+            String keyTypeName = (keyType == null) ? "null" : keyType.getSimpleName();
+            throw new IllegalArgumentException("Unsupported type of key: " + keyTypeName);
+        }
+        if (valueAdapter == null && !isMapValueType(valueType)) {
+            if (PackConfig.ignoreUnknownType) {
+                return false;
+            }
+            String valueTypeName = (valueType == null) ? "null" : valueType.getSimpleName();
+            throw new IllegalArgumentException("Unsupported type of value: " + valueTypeName);
+        }
+        return true;
+    }
+
+    private <K> void wrapMapKey(K key, Class<K> keyType, TypeAdapter<K> keyAdapter) {
+        if (keyAdapter != null) {
+            wrapObject(key, keyAdapter);
+        } else if (keyType == String.class) {
+            wrapString((String) key);
+        } else {
+            buffer.checkCapacity(8);
+            if (keyType == Integer.class) {
+                buffer.writeInt((Integer) key);
             } else {
-                Object key = entry.getKey();
-                if (key == null) {
-                    continue;
-                }
-                buffer.checkCapacity(8);
-                if (keyType == Integer.class) {
-                    buffer.writeInt((Integer) key);
-                } else if (keyType == Long.class) {
-                    buffer.writeLong((Long) key);
-                } else {
-                    if (PackConfig.ignoreUnknownType) {
-                        // 不识别的类型，位置复原（当没有写入这个map）
-                        buffer.position = mark;
-                        return this;
-                    }
-                    String keyTypeName = (keyType == null) ? "null" : keyType.getSimpleName();
-                    throw new IllegalArgumentException("Unsupported type of key: " + keyTypeName);
-                }
+                buffer.writeLong((Long) key);
             }
+        }
+    }
 
-            if (valueAdapter != null) {
-                wrapObject(entry.getValue(), valueAdapter);
-            } else if (valueType == String.class) {
-                wrapString((String) entry.getValue());
+    private <V> void wrapMapValue(V value, Class<V> valueType, TypeAdapter<V> valueAdapter) {
+        if (valueAdapter != null) {
+            wrapObject(value, valueAdapter);
+        } else if (valueType == String.class) {
+            wrapString((String) value);
+        } else {
+            buffer.checkCapacity(8);
+            if (valueType == Integer.class) {
+                buffer.writeInt((Integer) value);
+            } else if (valueType == Long.class) {
+                buffer.writeLong((Long) value);
+            } else if (valueType == Double.class) {
+                buffer.writeDouble((Double) value);
+            } else if (valueType == Float.class) {
+                buffer.writeFloat((Float) value);
             } else {
-                Object value = entry.getValue();
-                if (value == null) {
-                    throw new IllegalArgumentException("The values is null");
-                }
-                buffer.checkCapacity(8);
-                if (valueType == Integer.class) {
-                    buffer.writeInt((Integer) value);
-                } else if (valueType == Long.class) {
-                    buffer.writeLong((Long) value);
-                } else if (valueType == Double.class) {
-                    buffer.writeDouble((Double) value);
-                } else if (valueType == Float.class) {
-                    buffer.writeFloat((Float) value);
-                } else if (valueType == Boolean.class) {
-                    buffer.writeByte(((Boolean) value) ? ONE : ZERO);
-                } else {
-                    if (PackConfig.ignoreUnknownType) {
-                        buffer.position = mark;
-                        return this;
-                    }
-                    String valueTypeName = (valueType == null) ? "null" : valueType.getSimpleName();
-                    throw new IllegalArgumentException("Unsupported type of value: " + valueTypeName);
+                buffer.writeByte(((Boolean) value) ? ONE : ZERO);
+            }
+        }
+    }
+
+    /**
+     * 编码 key 有序的 Map，可以通过 {@link PackDecoder#lookupMapValue} 在编码数据上二分查找单个 key，
+     * 不需要解码整个 Map。
+     * <br>
+     * 格式：[size][key, value]...[offset]...
+     * <br>
+     * 元素按 key 升序排列（Int 和 Long 按数值，String 按 UTF-8 字节的无符号字典序），
+     * 之后是每个元素相对于 value 起始位置的偏移（固定4字节）。
+     * 偏移表在末尾，所以也可以用 getMap 解码（忽略偏移表）。
+     *
+     * @param <K> 支持[Int, Long, String]类型。
+     * @param <V> 支持[Boolean, Int, Long, Float, Double, String]类型。
+     * @param index 下标
+     * @param map Map对象，key 或 value 为 null 的元素不会被编码
+     * @return PackEncoder
+     */
+    public <K, V> PackEncoder putSortedMap(int index, Map<K, V> map) {
+        return putSortedMap(index, map, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K, V> PackEncoder putSortedMap(int index, Map<K, V> map, TypeAdapter<V> valueAdapter) {
+        if (map == null) return this;
+        SortedEntry[] entries = new SortedEntry[map.size()];
+        Class<K> keyType = null;
+        Class<V> valueType = null;
+        int size = 0;
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            K key = entry.getKey();
+            V value = entry.getValue();
+            if (key == null || value == null) {
+                continue;
+            }
+            if (keyType == null) {
+                keyType = (Class<K>) key.getClass();
+            } else if (key.getClass() != keyType) {
+                throw new IllegalArgumentException("The key not support multiply types");
+            }
+            if (valueAdapter == null) {
+                if (valueType == null) {
+                    valueType = (Class<V>) value.getClass();
+                } else if (value.getClass() != valueType) {
+                    throw new IllegalArgumentException("The value not support multiply types");
                 }
             }
+            entries[size++] = new SortedEntry(key, value);
+        }
+        if (size > 0 && !checkMapTypes(keyType, valueType, null, valueAdapter)) {
+            return this;
+        }
+        long tagValue = wrapObjectArrayHeader(index, size);
+        if (tagValue < 0) return this;
+
+        if (keyType == String.class) {
+            for (int i = 0; i < size; i++) {
+                entries[i].utf8 = ((String) entries[i].key).getBytes(StandardCharsets.UTF_8);
+            }
+            Arrays.sort(entries, 0, size, (a, b) -> PackDecoder.compareBytes(
+                    a.utf8, 0, a.utf8.length, b.utf8, 0, b.utf8.length));
+        } else if (keyType == Integer.class) {
+            Arrays.sort(entries, 0, size, (a, b) -> Integer.compare((Integer) a.key, (Integer) b.key));
+        } else {
+            Arrays.sort(entries, 0, size, (a, b) -> Long.compare((Long) a.key, (Long) b.key));
+        }
+
+        int pValue = (int) tagValue;
+        int[] offsets = new int[size];
+        for (int i = 0; i < size; i++) {
+            SortedEntry e = entries[i];
+            offsets[i] = buffer.position - pValue;
+            if (e.utf8 != null) {
+                // 直接写入排序时使用的字节，保证顺序与查找时的比较一致
+                int len = e.utf8.length;
+                buffer.checkCapacity(5 + len);
+                buffer.writeVarInt32(len);
+                buffer.writeBytes(e.utf8);
+            } else {
+                wrapMapKey((K) e.key, keyType, null);
+            }
+            wrapMapValue((V) e.value, valueType, valueAdapter);
+        }
+        buffer.checkCapacity(size << 2);
+        for (int offset : offsets) {
+            buffer.writeInt(offset);
+        }
+        putLen((int) (tagValue >>> 32), pValue);
+        return this;
+    }
+
+    private static final class SortedEntry {
+        final Object key;
+        final Object value;
+        byte[] utf8;
+
+        SortedEntry(Object key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 编码 int -> long 的映射，编码格式与 putMap(index, Map&lt;Integer, Long&gt;) 相同，
+     * 可以用 {@link PackDecoder#getIntLongMap} 或者 getMap(index, Integer.class, Long.class) 解码。
+     */
+    public PackEncoder putIntLongMap(int index, IntLongMap map) {
+        if (map == null) return this;
+        int n = map.size();
+        long tagValue = wrapObjectArrayHeader(index, n);
+        if (tagValue < 0) return this;
+        buffer.checkCapacity(n * 12);
+        map.forEach((key, value) -> {
+            buffer.writeInt(key);
+            buffer.writeLong(value);
+        });
+        putLen((int) (tagValue >>> 32), (int) tagValue);
+        return this;
+    }
+
+    /**
+     * 以平行数组的形式编码 int -> long 的映射（keys[i] -> values[i]）
+     */
+    public PackEncoder putIntLongMap(int index, int[] keys, long[] values) {
+        if (keys == null || values == null) return this;
+        int n = checkMapArrays(keys.length, values.length);
+        long tagValue = wrapObjectArrayHeader(index, n);
+        if (tagValue < 0) return this;
+        buffer.checkCapacity(n * 12);
+        for (int i = 0; i < n; i++) {
+            buffer.writeInt(keys[i]);
+            buffer.writeLong(values[i]);
+        }
+        putLen((int) (tagValue >>> 32), (int) tagValue);
+        return this;
+    }
+
+    /**
+     * 编码 long -> double 的映射，编码格式与 putMap(index, Map&lt;Long, Double&gt;) 相同。
+     */
+    public PackEncoder putLongDoubleMap(int index, LongDoubleMap map) {
+        if (map == null) return this;
+        int n = map.size();
+        long tagValue = wrapObjectArrayHeader(index, n);
+        if (tagValue < 0) return this;
+        buffer.checkCapacity(n << 4);
+        map.forEach((key, value) -> {
+            buffer.writeLong(key);
+            buffer.writeDouble(value);
+        });
+        putLen((int) (tagValue >>> 32), (int) tagValue);
+        return this;
+    }
+
+    public PackEncoder putLongDoubleMap(int index, long[] keys, double[] values) {
+        if (keys == null || values == null) return this;
+        int n = checkMapArrays(keys.length, values.length);
+        long tagValue = wrapObjectArrayHeader(index, n);
+        if (tagValue < 0) return this;
+        buffer.checkCapacity(n << 4);
+        for (int i = 0; i < n; i++) {
+            buffer.writeLong(keys[i]);
+            buffer.writeDouble(values[i]);
+        }
+        putLen((int) (tagValue >>> 32), (int) tagValue);
+        return this;
+    }
+
+    /**
+     * 编码 int -> 对象 的映射，编码格式与 putMap(index, Map&lt;Integer, V&gt;, valueAdapter) 相同。
+     */
+    public <V> PackEncoder putIntObjectMap(int index, IntObjectMap<V> map, TypeAdapter<V> adapter) {
+        if (map == null) return this;
+        long tagValue = wrapObjectArrayHeader(index, map.size());
+        if (tagValue < 0) return this;
+        map.forEach((key, value) -> {
+            buffer.checkCapacity(4);
+            buffer.writeInt(key);
+            wrapObject(value, adapter);
+        });
+        putLen((int) (tagValue >>> 32), (int) tagValue);
+        return this;
+    }
+
+    public <V> PackEncoder putIntObjectMap(int index, int[] keys, V[] values, TypeAdapter<V> adapter) {
+        if (keys == null || values == null) return this;
+        int n = checkMapArrays(keys.length, values.length);
+        long tagValue = wrapObjectArrayHeader(index, n);
+        if (tagValue < 0) return this;
+        for (int i = 0; i < n; i++) {
+            buffer.checkCapacity(4);
+            buffer.writeInt(keys[i]);
+            wrapObject(values[i], adapter);
         }
         putLen((int) (tagValue >>> 32), (int) tagValue);
         return this;
     }
+
+    private static int checkMapArrays(int keyCount, int valueCount) {
+        if (keyCount != valueCount) {
+            throw new IllegalArgumentException("size of keys and values not match, " +
+                    "keys:" + keyCount + " values:" + valueCount);
+        }
+        return keyCount;
+    }
 }
@@ -0,0 +1,178 @@
+package io.packable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * PackFilter
+ * 作用：在编码后的对象列表上按字段条件筛选，只解码满足条件的对象。
+ * <br>
+ * 每个元素只做一次 Tag 解析（与 {@link PackDecoder} 解码对象时相同），条件直接在解析结果上判断，
+ * 不会创建对象；元素满足所有条件时，才用 adapter 在同一个 Decoder 上解码。
+ * <br>
+ * 用法如：
+ * <pre>
+ * PackFilter filter = new PackFilter()
+ *         .intGreaterThan(4, x)
+ *         .stringEquals(3, "foo");
+ * List&lt;Data&gt; matched = filter.filter(bytes, DATA_ADAPTER);
+ * </pre>
+ * 多个条件之间是“与”的关系。
+ * 字段缺失时，按照默认值（数值为0，字符串为null）判断，与解码成对象之后再判断的结果一致。
+ */
+public final class PackFilter {
+    /**
+     * 筛选条件
+     */
+    public interface Condition {
+        boolean test(PackDecoder decoder);
+    }
+
+    private final List<Condition> conditions = new ArrayList<>();
+
+    public PackFilter where(Condition condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    public PackFilter contains(int index) {
+        return where(decoder -> decoder.contains(index));
+    }
+
+    public PackFilter booleanEquals(int index, boolean value) {
+        return where(decoder -> decoder.getBoolean(index) == value);
+    }
+
+    public PackFilter intEquals(int index, int value) {
+        return where(decoder -> decoder.getInt(index) == value);
+    }
+
+    public PackFilter intGreaterThan(int index, int value) {
+        return where(decoder -> decoder.getInt(index) > value);
+    }
+
+    public PackFilter intLessThan(int index, int value) {
+        return where(decoder -> decoder.getInt(index) < value);
+    }
+
+    public PackFilter longEquals(int index, long value) {
+        return where(decoder -> decoder.getLong(index) == value);
+    }
+
+    public PackFilter longGreaterThan(int index, long value) {
+        return where(decoder -> decoder.getLong(index) > value);
+    }
+
+    public PackFilter longLessThan(int index, long value) {
+        return where(decoder -> decoder.getLong(index) < value);
+    }
+
+    public PackFilter doubleGreaterThan(int index, double value) {
+        return where(decoder -> decoder.getDouble(index) > value);
+    }
+
+    public PackFilter doubleLessThan(int index, double value) {
+        return where(decoder -> decoder.getDouble(index) < value);
+    }
+
+    /**
+     * 字符串相等，直接比较 UTF-8 字节，不解码字符串。
+     * value 为 null 时，匹配字段缺失的情况。
+     */
+    public PackFilter stringEquals(int index, String value) {
+        if (value == null) {
+            return where(decoder -> !decoder.contains(index));
+        }
+        byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+        return where(decoder -> decoder.equalsBytes(index, expected));
+    }
+
+    public boolean matches(PackDecoder decoder) {
+        for (Condition condition : conditions) {
+            if (!condition.test(decoder)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 筛选 {@link PackEncoder#encodeObjectList} 编码的列表，返回满足条件的元素的序号（从0开始）。
+     * null 元素不参与匹配。
+     */
+    public int[] select(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new int[0];
+        }
+        PackDecoder decoder = new PackDecoder(bytes);
+        int[] result;
+        int count = 0;
+        try {
+            int n = decoder.takeListSize();
+            result = new int[Math.min(n, 16)];
+            for (int i = 0; i < n; i++) {
+                PackDecoder element = decoder.takeDecoder();
+                if (element == null) {
+                    continue;
+                }
+                if (matches(element)) {
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, Math.min(n, count << 1));
+                    }
+                    result[count++] = i;
+                }
+                decoder.recycleDecoder(element);
+            }
+        } finally {
+            // Condition 抛出异常时也要归还数组
+            decoder.recycle();
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 筛选 {@link PackEncoder#encodeObjectList} 编码的列表，只解码满足条件的元素。
+     */
+    public <T> List<T> filter(byte[] bytes, TypeAdapter<T> adapter) {
+        List<T> result = new ArrayList<>();
+        if (bytes == null || bytes.length == 0) {
+            return result;
+        }
+        PackDecoder decoder = new PackDecoder(bytes);
+        try {
+            filter(decoder, decoder.takeListSize(), adapter, result);
+        } finally {
+            decoder.recycle();
+        }
+        return result;
+    }
+
+    /**
+     * 筛选对象中下标为 index 的对象数组（由 putObjectArray 或 putObjectList 编码），只解码满足条件的元素。
+     * 字段不存在时返回 null。
+     */
+    public <T> List<T> filter(PackDecoder decoder, int index, TypeAdapter<T> adapter) {
+        int n = decoder.getSize(index);
+        if (n < 0) {
+            return null;
+        }
+        List<T> result = new ArrayList<>();
+        filter(decoder, n, adapter, result);
+        return result;
+    }
+
+    private <T> void filter(PackDecoder decoder, int n, TypeAdapter<T> adapter, List<T> result) {
+        for (int i = 0; i < n; i++) {
+            PackDecoder element = decoder.takeDecoder();
+            if (element == null) {
+                continue;
+            }
+            if (matches(element)) {
+                result.add(adapter.decode(element));
+            }
+            decoder.recycleDecoder(element);
+        }
+    }
+}
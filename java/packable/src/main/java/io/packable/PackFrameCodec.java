@@ -0,0 +1,295 @@
+package io.packable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+
+/**
+ * PackFrameCodec
+ * 作用：为编码后的消息加上长度头（分帧），用于 TCP 等字节流传输。
+ * <br>
+ * 帧的格式：[len][flags][checksum][payload]
+ * <ul>
+ * <li>len: payload 的长度，{@link #VARINT_HEADER} 时为 varint，否则为 4 字节（小端）</li>
+ * <li>flags: 1 字节，由调用方定义，{@link #FLAGS} 时存在</li>
+ * <li>checksum: payload 的 CRC-8，{@link #CHECKSUM} 时存在</li>
+ * </ul>
+ * 写端：{@link #add} 只记录消息，{@link #flush} 时将所有消息合并为一次 gathering write；
+ * 较小的消息与帧头一起拷贝到连续的缓冲区，较大的消息直接引用，不拷贝。
+ * <br>
+ * 读端：{@link #feed} 接收任意大小的片段，每收齐一帧回调一次；
+ * 完整落在片段中的帧直接回调，跨越片段的帧在 {@link ByteArrayPool} 的数组中拼接，回调后归还。
+ * <br>
+ * 写端和读端可以分别在不同的线程中使用，但各自都不是线程安全的。
+ */
+public final class PackFrameCodec {
+    public static final int VARINT_HEADER = 1;
+    public static final int FLAGS = 1 << 1;
+    public static final int CHECKSUM = 1 << 2;
+
+    private static final int DEFAULT_MAX_FRAME_SIZE = 1 << 24;
+
+    // 不超过这个长度的消息拷贝到缓冲区，与相邻的帧合并
+    private static final int COPY_THRESHOLD = 512;
+    private static final int SCRATCH_SIZE = 1 << 14;
+
+    private static final byte[] CRC8_TABLE = new byte[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int j = 0; j < 8; j++) {
+                crc = (crc & 0x80) != 0 ? (crc << 1) ^ 0x07 : crc << 1;
+            }
+            CRC8_TABLE[i] = (byte) crc;
+        }
+    }
+
+    private final boolean varIntHeader;
+    private final boolean hasFlags;
+    private final boolean hasChecksum;
+    private final int maxFrameSize;
+
+    // 写端
+    private byte[] scratch = new byte[SCRATCH_SIZE];
+    private final EncodeBuffer buffer = new EncodeBuffer(scratch);
+    private int scratchStart;
+    private int scratchPos;
+    private ByteBuffer[] pending = new ByteBuffer[64];
+    private int pendingStart;
+    private int pendingCount;
+
+    // 读端
+    private static final int STATE_LEN = 0;
+    private static final int STATE_FLAGS = 1;
+    private static final int STATE_CHECKSUM = 2;
+    private static final int STATE_BODY = 3;
+
+    private int state = STATE_LEN;
+    private int lenShift;
+    private int frameLen;
+    private int frameFlags;
+    private int frameChecksum;
+    private byte[] frameBuffer;
+    private int frameFilled;
+
+    /**
+     * 接收完整的帧。
+     * array 只在回调期间有效（可能是片段的数组，也可能是池中的数组），需要保留时请拷贝。
+     */
+    public interface FrameHandler {
+        void onFrame(byte[] array, int offset, int len, int flags);
+    }
+
+    public PackFrameCodec(int options) {
+        this(options, DEFAULT_MAX_FRAME_SIZE);
+    }
+
+    public PackFrameCodec(int options, int maxFrameSize) {
+        if (maxFrameSize <= 0 || maxFrameSize > PackConfig.MAX_BUFFER_SIZE) {
+            throw new IllegalArgumentException("invalid max frame size: " + maxFrameSize);
+        }
+        this.varIntHeader = (options & VARINT_HEADER) != 0;
+        this.hasFlags = (options & FLAGS) != 0;
+        this.hasChecksum = (options & CHECKSUM) != 0;
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    public static int checksum(byte[] array, int offset, int len) {
+        int crc = 0;
+        int end = offset + len;
+        for (int i = offset; i < end; i++) {
+            crc = CRC8_TABLE[(crc ^ array[i]) & 0xff];
+        }
+        return crc & 0xff;
+    }
+
+    public <T> void add(T value, TypeAdapter<T> adapter) {
+        byte[] bytes = PackEncoder.encode(value, adapter);
+        add(bytes, 0, bytes.length, 0);
+    }
+
+    public void add(byte[] message) {
+        add(message, 0, message.length, 0);
+    }
+
+    /**
+     * 添加一条消息，在 {@link #flush} 之前不能修改 message 的内容
+     */
+    public void add(byte[] message, int offset, int len, int flags) {
+        if (len > maxFrameSize) {
+            throw new IllegalArgumentException("frame size over limit: " + len);
+        }
+        boolean copy = len <= COPY_THRESHOLD;
+        int need = 7 + (copy ? len : 0);
+        if (scratchPos + need > scratch.length) {
+            // 旧的数组仍被待发送的 ByteBuffer 引用，换一个新的
+            closeRegion();
+            scratch = new byte[SCRATCH_SIZE];
+            buffer.hb = scratch;
+            scratchStart = 0;
+            scratchPos = 0;
+        }
+        buffer.position = scratchPos;
+        if (varIntHeader) {
+            buffer.writeVarInt32(len);
+        } else {
+            buffer.writeInt(len);
+        }
+        if (hasFlags) {
+            buffer.writeByte((byte) flags);
+        }
+        if (hasChecksum) {
+            buffer.writeByte((byte) checksum(message, offset, len));
+        }
+        if (copy) {
+            buffer.writeBytes(message, offset, len);
+            scratchPos = buffer.position;
+        } else {
+            scratchPos = buffer.position;
+            closeRegion();
+            addPending(ByteBuffer.wrap(message, offset, len));
+        }
+    }
+
+    public boolean hasPending() {
+        return pendingStart < pendingCount || scratchPos > scratchStart;
+    }
+
+    /**
+     * 将已添加的消息写入 channel，所有消息合并为 gathering write。
+     * <br>
+     * 非阻塞的 channel 可能无法一次写完，此时返回已写入的字节数，剩余的数据在下次 flush 时继续写入。
+     *
+     * @return 写入的字节数
+     */
+    public long flush(GatheringByteChannel channel) throws IOException {
+        closeRegion();
+        long written = 0;
+        while (pendingStart < pendingCount) {
+            long n = channel.write(pending, pendingStart, pendingCount - pendingStart);
+            written += n;
+            while (pendingStart < pendingCount && !pending[pendingStart].hasRemaining()) {
+                pending[pendingStart++] = null;
+            }
+            if (n == 0 && pendingStart < pendingCount) {
+                return written;
+            }
+        }
+        pendingStart = 0;
+        pendingCount = 0;
+        scratchStart = 0;
+        scratchPos = 0;
+        return written;
+    }
+
+    private void closeRegion() {
+        if (scratchPos > scratchStart) {
+            addPending(ByteBuffer.wrap(scratch, scratchStart, scratchPos - scratchStart));
+            scratchStart = scratchPos;
+        }
+    }
+
+    private void addPending(ByteBuffer b) {
+        if (pendingCount == pending.length) {
+            if (pendingStart > 0) {
+                System.arraycopy(pending, pendingStart, pending, 0, pendingCount - pendingStart);
+                Arrays.fill(pending, pendingCount - pendingStart, pendingCount, null);
+                pendingCount -= pendingStart;
+                pendingStart = 0;
+            } else {
+                pending = Arrays.copyOf(pending, pendingCount << 1);
+            }
+        }
+        pending[pendingCount++] = b;
+    }
+
+    /**
+     * 传入读取到的片段（读取 data 的全部剩余字节），每收齐一帧回调一次 handler
+     */
+    public void feed(ByteBuffer data, FrameHandler handler) {
+        while (data.hasRemaining()) {
+            switch (state) {
+                case STATE_LEN:
+                    int b = data.get();
+                    if (varIntHeader) {
+                        frameLen |= (b & 0x7f) << lenShift;
+                        lenShift += 7;
+                        if ((b & 0x80) != 0) {
+                            if (lenShift > 28) {
+                                throw new IllegalStateException("invalid frame header");
+                            }
+                            break;
+                        }
+                    } else {
+                        frameLen |= (b & 0xff) << lenShift;
+                        lenShift += 8;
+                        if (lenShift < 32) {
+                            break;
+                        }
+                    }
+                    if (frameLen < 0 || frameLen > maxFrameSize) {
+                        throw new IllegalStateException("invalid frame length: " + frameLen);
+                    }
+                    lenShift = 0;
+                    state = hasFlags ? STATE_FLAGS : (hasChecksum ? STATE_CHECKSUM : STATE_BODY);
+                    break;
+                case STATE_FLAGS:
+                    frameFlags = data.get() & 0xff;
+                    state = hasChecksum ? STATE_CHECKSUM : STATE_BODY;
+                    break;
+                case STATE_CHECKSUM:
+                    frameChecksum = data.get() & 0xff;
+                    state = STATE_BODY;
+                    break;
+                default:
+                    readBody(data, handler);
+                    break;
+            }
+        }
+        // 长度为 0 的帧没有 body, 读完帧头就完整了
+        if (state == STATE_BODY && frameLen == 0) {
+            readBody(data, handler);
+        }
+    }
+
+    private void readBody(ByteBuffer data, FrameHandler handler) {
+        int len = frameLen;
+        if (frameBuffer == null && data.hasArray() && data.remaining() >= len) {
+            int p = data.position();
+            int offset = data.arrayOffset() + p;
+            data.position(p + len);
+            onFrame(data.array(), offset, handler);
+            return;
+        }
+        if (frameBuffer == null) {
+            frameBuffer = ByteArrayPool.getArray(len);
+            frameFilled = 0;
+        }
+        int k = Math.min(len - frameFilled, data.remaining());
+        data.get(frameBuffer, frameFilled, k);
+        frameFilled += k;
+        if (frameFilled == len) {
+            byte[] array = frameBuffer;
+            frameBuffer = null;
+            try {
+                onFrame(array, 0, handler);
+            } finally {
+                ByteArrayPool.recycleArray(array);
+            }
+        }
+    }
+
+    private void onFrame(byte[] array, int offset, FrameHandler handler) {
+        int len = frameLen;
+        int flags = frameFlags;
+        if (hasChecksum && checksum(array, offset, len) != frameChecksum) {
+            throw new IllegalStateException("frame checksum mismatch");
+        }
+        state = STATE_LEN;
+        frameLen = 0;
+        frameFlags = 0;
+        handler.onFrame(array, offset, len, flags);
+    }
+}
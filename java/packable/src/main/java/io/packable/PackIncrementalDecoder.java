@@ -0,0 +1,243 @@
+package io.packable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * PackIncrementalDecoder
+ * 作用：增量解码对象列表，数据可以分多次、以任意大小的片段传入（例如非阻塞 Socket 的每次读取）。
+ * <br>
+ * 每个元素的字节到齐后立即解码并回调，不需要等待整个列表到达。
+ * 元素完整地落在同一个片段（且有 array）时，直接从片段中解码；
+ * 只有跨越片段的元素才会拷贝到内部的缓冲区。
+ * <br>
+ * 支持两种格式：
+ * <ul>
+ * <li>{@link #forObjectList}: {@link PackEncoder#encodeObjectList} 的结果</li>
+ * <li>{@link #forStream}: {@link PackStreamWriter} 写入的流</li>
+ * </ul>
+ * 用法如：
+ * <pre>
+ * PackIncrementalDecoder&lt;Data&gt; decoder = PackIncrementalDecoder.forStream(DATA_ADAPTER);
+ * while (channel.read(buffer) &gt; 0) {
+ *     buffer.flip();
+ *     decoder.feed(buffer, data -&gt; handle(data));
+ *     buffer.clear();
+ * }
+ * </pre>
+ * 非线程安全。
+ */
+public final class PackIncrementalDecoder<T> {
+    private static final int STATE_CHUNK_LEN = 0;
+    private static final int STATE_COUNT = 1;
+    private static final int STATE_PREFIX = 2;
+    private static final int STATE_PREFIX_EXT = 3;
+    private static final int STATE_BODY = 4;
+    private static final int STATE_END = 5;
+
+    private final TypeAdapter<T> adapter;
+    private final boolean stream;
+    private int state;
+
+    // 当前列表（或块）中还未解码的元素个数
+    private int remaining;
+
+    // 流模式下，当前块还未读取的字节数
+    private int chunkRemaining;
+
+    private int varShift;
+    private int varValue;
+    private int prefix;
+    private int bodyLen;
+
+    // 跨越片段的数据先存放在 pending 中
+    private byte[] pending = new byte[64];
+    private int pendingLen;
+
+    // collect 成功后，数据位于 src[srcOffset, srcOffset + n)
+    private byte[] src;
+    private int srcOffset;
+
+    private PackIncrementalDecoder(TypeAdapter<T> adapter, boolean stream) {
+        this.adapter = adapter;
+        this.stream = stream;
+        this.state = stream ? STATE_CHUNK_LEN : STATE_COUNT;
+    }
+
+    /**
+     * 解码 {@link PackEncoder#encodeObjectList} 的结果。
+     * <br>
+     * 注意：空列表编码为空数组，此时不会有数据传入，{@link #isFinished()} 始终为 false。
+     */
+    public static <T> PackIncrementalDecoder<T> forObjectList(TypeAdapter<T> adapter) {
+        return new PackIncrementalDecoder<>(adapter, false);
+    }
+
+    /**
+     * 解码 {@link PackStreamWriter} 写入的流，读到结束标记后 {@link #isFinished()} 为 true
+     */
+    public static <T> PackIncrementalDecoder<T> forStream(TypeAdapter<T> adapter) {
+        return new PackIncrementalDecoder<>(adapter, true);
+    }
+
+    public boolean isFinished() {
+        return state == STATE_END;
+    }
+
+    /**
+     * 传入一个片段（读取 data 的全部剩余字节），每解码出一个元素就回调一次 consumer（元素可能为 null）。
+     * <br>
+     * 返回后不会再引用 data，调用方可以复用 data。
+     */
+    public void feed(ByteBuffer data, Consumer<? super T> consumer) {
+        while (data.hasRemaining()) {
+            switch (state) {
+                case STATE_CHUNK_LEN:
+                    if (!collect(data, 4)) {
+                        return;
+                    }
+                    int len = readInt(src, srcOffset);
+                    if (len == 0) {
+                        state = STATE_END;
+                    } else if (len < 0 || len > PackConfig.MAX_BUFFER_SIZE) {
+                        throw new IllegalStateException("invalid chunk length: " + len);
+                    } else {
+                        chunkRemaining = len;
+                        state = STATE_COUNT;
+                    }
+                    break;
+                case STATE_COUNT:
+                    if (!collect(data, 1)) {
+                        return;
+                    }
+                    int b = src[srcOffset];
+                    varValue |= (b & 0x7f) << varShift;
+                    if ((b & 0x80) != 0) {
+                        varShift += 7;
+                        if (varShift > 28) {
+                            throw new IllegalStateException("invalid size of object list");
+                        }
+                        break;
+                    }
+                    if (varValue < 0) {
+                        throw new IllegalStateException("invalid size of object list");
+                    }
+                    remaining = varValue;
+                    varValue = 0;
+                    varShift = 0;
+                    nextElement();
+                    break;
+                case STATE_PREFIX:
+                    if (!collect(data, 2)) {
+                        return;
+                    }
+                    short a = readShort(src, srcOffset);
+                    if (a == PackConfig.NULL_OBJECT_FLAG) {
+                        consumer.accept(null);
+                        remaining--;
+                        nextElement();
+                    } else if (a >= 0) {
+                        startBody(a);
+                    } else {
+                        prefix = a & 0x7fff;
+                        state = STATE_PREFIX_EXT;
+                    }
+                    break;
+                case STATE_PREFIX_EXT:
+                    if (!collect(data, 2)) {
+                        return;
+                    }
+                    startBody((prefix << 16) | (readShort(src, srcOffset) & 0xffff));
+                    break;
+                case STATE_BODY:
+                    if (!collect(data, bodyLen)) {
+                        return;
+                    }
+                    decodeBody(consumer);
+                    break;
+                default:
+                    throw new IllegalStateException("unexpected data after end");
+            }
+        }
+        // 长度为 0 的元素没有 body, 读完前缀就完整了
+        if (state == STATE_BODY && bodyLen == 0) {
+            collect(data, 0);
+            decodeBody(consumer);
+        }
+    }
+
+    private void decodeBody(Consumer<? super T> consumer) {
+        consumer.accept(PackDecoder.decode(src, srcOffset, bodyLen, adapter));
+        remaining--;
+        nextElement();
+    }
+
+    private void startBody(int len) {
+        if (len > PackConfig.MAX_BUFFER_SIZE) {
+            throw new IllegalStateException("invalid object length: " + len);
+        }
+        bodyLen = len;
+        state = STATE_BODY;
+    }
+
+    private void nextElement() {
+        if (remaining > 0) {
+            state = STATE_PREFIX;
+        } else if (stream) {
+            if (chunkRemaining != 0) {
+                throw new IllegalStateException("chunk length mismatch");
+            }
+            state = STATE_CHUNK_LEN;
+        } else {
+            state = STATE_END;
+        }
+    }
+
+    /**
+     * 收集 n 个字节，不足时先存放到 pending 并返回 false
+     */
+    private boolean collect(ByteBuffer data, int n) {
+        if (stream && state != STATE_CHUNK_LEN) {
+            if (n - pendingLen > chunkRemaining) {
+                throw new IllegalStateException("chunk length mismatch");
+            }
+        }
+        if (pendingLen == 0 && data.hasArray() && data.remaining() >= n) {
+            int p = data.position();
+            src = data.array();
+            srcOffset = data.arrayOffset() + p;
+            data.position(p + n);
+            consumed(n);
+            return true;
+        }
+        if (pending.length < n) {
+            pending = Arrays.copyOf(pending, Math.max(n, pending.length << 1));
+        }
+        int k = Math.min(n - pendingLen, data.remaining());
+        data.get(pending, pendingLen, k);
+        pendingLen += k;
+        consumed(k);
+        if (pendingLen < n) {
+            return false;
+        }
+        src = pending;
+        srcOffset = 0;
+        pendingLen = 0;
+        return true;
+    }
+
+    private void consumed(int n) {
+        if (stream && state != STATE_CHUNK_LEN) {
+            chunkRemaining -= n;
+        }
+    }
+
+    private static short readShort(byte[] a, int i) {
+        return (short) ((a[i] & 0xff) | (a[i + 1] << 8));
+    }
+
+    private static int readInt(byte[] a, int i) {
+        return (a[i] & 0xff) | ((a[i + 1] & 0xff) << 8) | ((a[i + 2] & 0xff) << 16) | (a[i + 3] << 24);
+    }
+}
@@ -0,0 +1,209 @@
+package io.packable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * PackMerge
+ * 作用：将 {@link PackDiff} 生成的 delta 应用到旧版本的编码数据上，得到新版本的编码数据。
+ * <br>
+ * 合并时按旧版本的字段顺序输出：
+ * 删除的字段跳过，替换的字段写入新的 TLV，递归合并的子对象写入合并后的内容，其他字段原样拷贝；
+ * 最后追加新增的字段。
+ */
+public final class PackMerge {
+    private PackMerge() {
+    }
+
+    public static byte[] merge(byte[] oldBytes, byte[] delta) {
+        return merge(oldBytes, 0, oldBytes.length, delta);
+    }
+
+    public static byte[] merge(byte[] oldBytes, int offset, int len, byte[] delta) {
+        if (delta == null || delta.length == 0) {
+            return Arrays.copyOfRange(oldBytes, offset, offset + len);
+        }
+        EncodeBuffer out = new EncodeBuffer(ByteArrayPool.getArray());
+        mergeObject(oldBytes, offset, offset + len, delta, out);
+        byte[] bytes = Arrays.copyOf(out.hb, out.position);
+        ByteArrayPool.recycleArray(out.hb);
+        return bytes;
+    }
+
+    private static void mergeObject(byte[] oldBytes, int start, int end, byte[] delta, EncodeBuffer out) {
+        PackCursor cursor = new PackCursor(delta);
+        if (cursor.seek(PackDiff.REPLACE)) {
+            copy(delta, cursor.valuePos, cursor.valuePos + cursor.valueLen, out);
+            return;
+        }
+
+        FieldList oldFields = FieldList.parse(oldBytes, start, end);
+        if (oldFields == null) {
+            throw new IllegalArgumentException("invalid pack data");
+        }
+
+        // 标记每个下标的操作
+        boolean[] removed = new boolean[256];
+        if (cursor.seek(PackDiff.REMOVED)) {
+            for (int i = 0; i < cursor.valueLen; i++) {
+                removed[delta[cursor.valuePos + i] & 0xff] = true;
+            }
+        }
+
+        FieldList fields = null;
+        if (cursor.seek(PackDiff.FIELDS)) {
+            fields = FieldList.parse(delta, cursor.valuePos, cursor.valuePos + cursor.valueLen);
+            if (fields == null) {
+                throw new IllegalArgumentException("invalid delta");
+            }
+        }
+
+        PackDiff.Patch[] patches = null;
+        List<PackDiff.Patch> patchList;
+        PackDecoder decoder = new PackDecoder(delta);
+        try {
+            patchList = decoder.getObjectList(PackDiff.PATCHES, PackDiff.PATCH_ADAPTER);
+        } finally {
+            decoder.recycle();
+        }
+        if (patchList != null) {
+            patches = new PackDiff.Patch[256];
+            for (PackDiff.Patch patch : patchList) {
+                patches[patch.index] = patch;
+            }
+        }
+
+        for (int i = 0; i < oldFields.count; i++) {
+            int index = oldFields.indexes[i];
+            if (removed[index]) {
+                continue;
+            }
+            int k = fields == null ? -1 : fields.find(index);
+            if (k >= 0) {
+                copy(delta, fields.tagPos[k], fields.ends[k], out);
+            } else if (patches != null && patches[index] != null) {
+                PackDiff.Patch patch = patches[index];
+                int sizeOfLen = getSizeOfLen(patch.type);
+                out.checkCapacity(2 + sizeOfLen);
+                if (index < TagFormat.LITTLE_INDEX_BOUND) {
+                    out.writeByte((byte) (index | patch.type));
+                } else {
+                    out.writeByte((byte) (TagFormat.BIG_INDEX_MASK | patch.type));
+                    out.writeByte((byte) index);
+                }
+                int pLen = out.position;
+                out.position += sizeOfLen;
+                if (patch.array) {
+                    mergeArray(oldBytes, oldFields.valuePos[i], oldFields.ends[i], patch.delta, out);
+                } else {
+                    mergeObject(oldBytes, oldFields.valuePos[i], oldFields.ends[i], patch.delta, out);
+                }
+                int len = out.position - pLen - sizeOfLen;
+                if (sizeOfLen < 4 && (len >>> (sizeOfLen << 3)) != 0) {
+                    throw new IllegalArgumentException("invalid delta");
+                }
+                for (int j = 0; j < sizeOfLen; j++) {
+                    out.hb[pLen + j] = (byte) (len >> (j << 3));
+                }
+            } else {
+                copy(oldBytes, oldFields.tagPos[i], oldFields.ends[i], out);
+            }
+        }
+
+        // 新增的字段
+        if (fields != null) {
+            for (int k = 0; k < fields.count; k++) {
+                if (oldFields.find(fields.indexes[k]) < 0) {
+                    copy(delta, fields.tagPos[k], fields.ends[k], out);
+                }
+            }
+        }
+    }
+
+    private static void mergeArray(byte[] oldBytes, int start, int end, byte[] delta, EncodeBuffer out) {
+        int[] oldElements = PackDiff.parseElements(oldBytes, start, end);
+        if (oldElements == null) {
+            throw new IllegalArgumentException("invalid pack data");
+        }
+        int oldSize = oldElements.length / 3;
+
+        int size;
+        int[] positions;
+        List<PackDiff.Patch> patches;
+        PackDecoder decoder = new PackDecoder(delta);
+        try {
+            size = decoder.getInt(PackDiff.ARRAY_SIZE);
+            positions = decoder.getIntArray(PackDiff.ARRAY_POSITIONS);
+            patches = decoder.getObjectList(PackDiff.ARRAY_PATCHES, PackDiff.PATCH_ADAPTER);
+        } finally {
+            decoder.recycle();
+        }
+        PackCursor cursor = new PackCursor(delta);
+        int pRaw = cursor.seek(PackDiff.ARRAY_ELEMENTS) ? cursor.valuePos : -1;
+
+        out.checkCapacity(5);
+        out.writeVarInt32(size);
+        int r = 0;
+        int q = 0;
+        for (int i = 0; i < size; i++) {
+            if (positions != null && r < positions.length && positions[r] == i) {
+                r++;
+                // 带长度前缀的元素
+                short a = (short) ((delta[pRaw] & 0xff) | (delta[pRaw + 1] << 8));
+                int len = 2;
+                if (a != PackConfig.NULL_OBJECT_FLAG) {
+                    len += a >= 0 ? a : 2 + (((a & 0x7fff) << 16) | (delta[pRaw + 2] & 0xff) | ((delta[pRaw + 3] & 0xff) << 8));
+                }
+                copy(delta, pRaw, pRaw + len, out);
+                pRaw += len;
+            } else {
+                if (i >= oldSize) {
+                    throw new IllegalArgumentException("invalid delta");
+                }
+                int oPrefix = oldElements[i * 3];
+                int oPayload = oldElements[i * 3 + 1];
+                int oEnd = oldElements[i * 3 + 2];
+                if (patches != null && q < patches.size() && patches.get(q).index == i) {
+                    PackDiff.Patch patch = patches.get(q++);
+                    out.checkCapacity(2);
+                    int pLen = out.position;
+                    out.position += 2;
+                    int pObj = out.position;
+                    mergeObject(oldBytes, oPayload, oEnd, patch.delta, out);
+                    int len = out.position - pObj;
+                    // 与 PackEncoder.wrapObject 相同的长度编码
+                    if (len <= 0x7fff) {
+                        out.writeShort(pLen, (short) len);
+                    } else {
+                        out.checkCapacity(2);
+                        System.arraycopy(out.hb, pObj, out.hb, pObj + 2, len);
+                        out.position += 2;
+                        out.writeShort(pLen, (short) ((len >>> 16) | 0x8000));
+                        out.writeShort(pLen + 2, (short) len);
+                    }
+                } else {
+                    copy(oldBytes, oPrefix, oEnd, out);
+                }
+            }
+        }
+    }
+
+    private static int getSizeOfLen(byte type) {
+        if (type == TagFormat.TYPE_VAR_8) {
+            return 1;
+        } else if (type == TagFormat.TYPE_VAR_16) {
+            return 2;
+        } else if (type == TagFormat.TYPE_VAR_32) {
+            return 4;
+        }
+        throw new IllegalArgumentException("invalid delta");
+    }
+
+    private static void copy(byte[] src, int start, int end, EncodeBuffer out) {
+        if (start == end) {
+            return;
+        }
+        out.checkCapacity(end - start);
+        out.writeBytes(src, start, end - start);
+    }
+}
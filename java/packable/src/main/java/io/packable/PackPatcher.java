@@ -0,0 +1,295 @@
+package io.packable;
+
+import java.util.Arrays;
+
+/**
+ * PackPatcher
+ * 作用：直接修改编码后数据中的数值字段，不需要 解码 -> 修改 -> 重新编码。
+ * <br>
+ * 用法如：
+ * <pre>
+ * PackPatcher patcher = new PackPatcher(bytes);
+ * patcher.field(2).element(i).setLong(9, timestamp);
+ * bytes = patcher.getBytes();
+ * </pre>
+ * 通过 Tag 遍历找到字段 value 的位置：
+ * <br>
+ * 1. 如果新的值可以用字段原来的宽度（TYPE_NUM_8 ~ TYPE_NUM_64）表示，则直接覆盖原来的字节（原地修改传入的数组）；<br>
+ * 2. 否则（或者字段不存在），生成新的字节数组，将新的字段拼接进去，并更新所有外层对象的长度。<br>
+ * <br>
+ * 因为第2种情况会创建新的数组，所以修改完成后需要通过 {@link #getBytes()} 获取结果。
+ */
+public final class PackPatcher {
+    private final PackCursor cursor;
+    private byte[] bytes;
+
+    // 从根对象到当前对象的路径：step 为字段下标（>=0）或者 ~数组元素序号（<0），header 为对应的头部位置
+    private int depth = 0;
+    private int[] steps = new int[8];
+    private int[] headers = new int[8];
+
+    public PackPatcher(byte[] bytes) {
+        this.bytes = bytes;
+        this.cursor = new PackCursor(bytes);
+    }
+
+    /**
+     * 返回修改后的数据。
+     * 如果所有修改都是原地修改，返回的是传入的数组本身。
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * 回到根对象
+     */
+    public PackPatcher reset() {
+        cursor.reset();
+        depth = 0;
+        return this;
+    }
+
+    /**
+     * 进入当前对象下标为 index 的子对象（或对象数组）
+     */
+    public PackPatcher field(int index) {
+        cursor.field(index);
+        push(index);
+        return this;
+    }
+
+    /**
+     * 进入当前对象数组的第 i 个元素
+     */
+    public PackPatcher element(int i) {
+        cursor.element(i);
+        push(~i);
+        return this;
+    }
+
+    private void push(int step) {
+        if (depth == steps.length) {
+            steps = Arrays.copyOf(steps, depth << 1);
+            headers = Arrays.copyOf(headers, depth << 1);
+        }
+        steps[depth] = step;
+        headers[depth] = cursor.headerPos();
+        depth++;
+    }
+
+    public PackPatcher setBoolean(int index, boolean value) {
+        return setNumber(index, value ? 1L : 0L);
+    }
+
+    public PackPatcher setInt(int index, int value) {
+        return setNumber(index, value & 0xffffffffL);
+    }
+
+    public PackPatcher setLong(int index, long value) {
+        return setNumber(index, value);
+    }
+
+    public PackPatcher setFloat(int index, float value) {
+        return setNumber(index, Float.floatToRawIntBits(value) & 0xffffffffL);
+    }
+
+    public PackPatcher setDouble(int index, double value) {
+        return setNumber(index, Double.doubleToRawLongBits(value));
+    }
+
+    private static int getWidth(long value) {
+        if (value == 0L) {
+            return 0;
+        } else if ((value >>> 8) == 0) {
+            return 1;
+        } else if ((value >>> 16) == 0) {
+            return 2;
+        } else if ((value >>> 32) == 0) {
+            return 4;
+        }
+        return 8;
+    }
+
+    private static byte getNumberType(int width) {
+        switch (width) {
+            case 0:
+                return TagFormat.TYPE_0;
+            case 1:
+                return TagFormat.TYPE_NUM_8;
+            case 2:
+                return TagFormat.TYPE_NUM_16;
+            case 4:
+                return TagFormat.TYPE_NUM_32;
+            default:
+                return TagFormat.TYPE_NUM_64;
+        }
+    }
+
+    private PackPatcher setNumber(int index, long value) {
+        if (!cursor.exists()) {
+            throw new IllegalStateException("path not exists");
+        }
+        int width = getWidth(value);
+        if (cursor.seek(index)) {
+            if (cursor.valueType >= TagFormat.TYPE_VAR_8) {
+                throw new IllegalStateException("field " + index + " is not a number");
+            }
+            int oldWidth = cursor.valueLen;
+            if (width <= oldWidth) {
+                // 小端编码，按原来的宽度写入，高位补0
+                int p = cursor.valuePos;
+                for (int i = 0; i < oldWidth; i++) {
+                    bytes[p + i] = (byte) (value >> (i << 3));
+                }
+            } else {
+                splice(cursor.tagPos, cursor.valuePos + oldWidth, encodeField(index, width, value));
+            }
+        } else {
+            int end = cursor.end();
+            splice(end, end, encodeField(index, width, value));
+        }
+        return this;
+    }
+
+    private static byte[] encodeField(int index, int width, long value) {
+        int tagLen = index < TagFormat.LITTLE_INDEX_BOUND ? 1 : 2;
+        byte[] field = new byte[tagLen + width];
+        byte type = getNumberType(width);
+        if (tagLen == 1) {
+            field[0] = (byte) (index | type);
+        } else {
+            field[0] = (byte) (TagFormat.BIG_INDEX_MASK | type);
+            field[1] = (byte) index;
+        }
+        for (int i = 0; i < width; i++) {
+            field[tagLen + i] = (byte) (value >> (i << 3));
+        }
+        return field;
+    }
+
+    /**
+     * 用 field 替换 [from, to) 的字节，并从内到外更新路径上各层对象的长度。
+     * 长度变化可能导致外层头部的宽度变化，所以逐层累计长度差值。
+     */
+    private void splice(int from, int to, byte[] field) {
+        byte[] hb = bytes;
+        int delta = field.length - (to - from);
+        byte[][] newHeaders = new byte[depth][];
+        int[] oldHeaderLens = new int[depth];
+        for (int k = depth - 1; k >= 0; k--) {
+            int h = headers[k];
+            byte[] newHeader;
+            if (steps[k] >= 0) {
+                // 字段: [tag (1-2 bytes)][len (0/1/2/4 bytes)]
+                int tagLen = (hb[h] & TagFormat.BIG_INDEX_MASK) == 0 ? 1 : 2;
+                byte type = (byte) (hb[h] & TagFormat.TYPE_MASK);
+                int p = h + tagLen;
+                int oldLen;
+                if (type == TagFormat.TYPE_0) {
+                    oldLen = 0;
+                } else if (type == TagFormat.TYPE_VAR_8) {
+                    oldLen = hb[p++] & 0xff;
+                } else if (type == TagFormat.TYPE_VAR_16) {
+                    oldLen = (hb[p++] & 0xff) | ((hb[p++] & 0xff) << 8);
+                } else {
+                    oldLen = (hb[p++] & 0xff) | ((hb[p++] & 0xff) << 8) | ((hb[p++] & 0xff) << 16) | (hb[p++] << 24);
+                }
+                oldHeaderLens[k] = p - h;
+                newHeader = encodeFieldHeader(hb, h, tagLen, oldLen + delta);
+            } else {
+                // 数组元素: 2 bytes 或 4 bytes 长度前缀
+                short a = (short) ((hb[h] & 0xff) | (hb[h + 1] << 8));
+                int oldLen;
+                if (a >= 0) {
+                    oldLen = a;
+                    oldHeaderLens[k] = 2;
+                } else {
+                    oldLen = ((a & 0x7fff) << 16) | (hb[h + 2] & 0xff) | ((hb[h + 3] & 0xff) << 8);
+                    oldHeaderLens[k] = 4;
+                }
+                newHeader = encodeElementHeader(oldLen + delta);
+            }
+            newHeaders[k] = newHeader;
+            delta += newHeader.length - oldHeaderLens[k];
+        }
+
+        int newSize = hb.length + delta;
+        if (newSize > PackConfig.MAX_BUFFER_SIZE) {
+            throw new IllegalStateException("desire capacity over limit");
+        }
+        byte[] result = new byte[newSize];
+        int src = 0;
+        int dst = 0;
+        for (int k = 0; k < depth; k++) {
+            int h = headers[k];
+            System.arraycopy(hb, src, result, dst, h - src);
+            dst += h - src;
+            byte[] header = newHeaders[k];
+            System.arraycopy(header, 0, result, dst, header.length);
+            dst += header.length;
+            src = h + oldHeaderLens[k];
+        }
+        System.arraycopy(hb, src, result, dst, from - src);
+        dst += from - src;
+        System.arraycopy(field, 0, result, dst, field.length);
+        dst += field.length;
+        System.arraycopy(hb, to, result, dst, hb.length - to);
+
+        bytes = result;
+        relocate();
+    }
+
+    private static byte[] encodeFieldHeader(byte[] hb, int h, int tagLen, int len) {
+        byte type;
+        int sizeOfLen;
+        if (len == 0) {
+            type = TagFormat.TYPE_0;
+            sizeOfLen = 0;
+        } else if (len <= 0xff) {
+            type = TagFormat.TYPE_VAR_8;
+            sizeOfLen = 1;
+        } else if (len <= 0xffff) {
+            type = TagFormat.TYPE_VAR_16;
+            sizeOfLen = 2;
+        } else {
+            type = TagFormat.TYPE_VAR_32;
+            sizeOfLen = 4;
+        }
+        byte[] header = new byte[tagLen + sizeOfLen];
+        header[0] = (byte) ((hb[h] & ~TagFormat.TYPE_MASK) | type);
+        if (tagLen == 2) {
+            header[1] = hb[h + 1];
+        }
+        for (int i = 0; i < sizeOfLen; i++) {
+            header[tagLen + i] = (byte) (len >> (i << 3));
+        }
+        return header;
+    }
+
+    private static byte[] encodeElementHeader(int len) {
+        if (len <= 0x7fff) {
+            return new byte[]{(byte) len, (byte) (len >> 8)};
+        }
+        int high = (len >>> 16) | 0x8000;
+        return new byte[]{(byte) high, (byte) (high >> 8), (byte) len, (byte) (len >> 8)};
+    }
+
+    /**
+     * 拼接之后数据的位置发生了变化，按照原来的路径重新定位
+     */
+    private void relocate() {
+        int n = depth;
+        int[] path = Arrays.copyOf(steps, n);
+        cursor.reset(bytes, 0, bytes.length);
+        depth = 0;
+        for (int i = 0; i < n; i++) {
+            int step = path[i];
+            if (step >= 0) {
+                field(step);
+            } else {
+                element(~step);
+            }
+        }
+    }
+}
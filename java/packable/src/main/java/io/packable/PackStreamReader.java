@@ -0,0 +1,120 @@
+package io.packable;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * PackStreamReader
+ * 作用：逐块读取 {@link PackStreamWriter} 写入的流，内存中只保留当前块的对象。
+ * <br>
+ * 用法如：
+ * <pre>
+ * while (reader.hasNext()) {
+ *     Data data = reader.next();
+ * }
+ * </pre>
+ * 如果流在结束标记之前中断，会抛出 {@link EOFException}。
+ */
+public final class PackStreamReader<T> implements Closeable {
+    private final InputStream in;
+    private final ReadableByteChannel channel;
+    private final TypeAdapter<T> adapter;
+
+    private byte[] chunkBuffer = new byte[4096];
+    private List<T> chunk;
+    private int index;
+    private boolean ended;
+
+    public PackStreamReader(InputStream in, TypeAdapter<T> adapter) {
+        this(in, null, adapter);
+    }
+
+    public PackStreamReader(ReadableByteChannel channel, TypeAdapter<T> adapter) {
+        this(null, channel, adapter);
+    }
+
+    private PackStreamReader(InputStream in, ReadableByteChannel channel, TypeAdapter<T> adapter) {
+        if (in == null && channel == null) {
+            throw new IllegalArgumentException("input is null");
+        }
+        this.in = in;
+        this.channel = channel;
+        this.adapter = adapter;
+    }
+
+    public boolean hasNext() throws IOException {
+        while (chunk == null || index == chunk.size()) {
+            if (ended || !readChunk()) {
+                ended = true;
+                chunk = null;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 返回下一个对象（编码时为 null 的对象返回 null）
+     */
+    public T next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return chunk.get(index++);
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunk = null;
+        ended = true;
+        if (in != null) {
+            in.close();
+        } else {
+            channel.close();
+        }
+    }
+
+    private boolean readChunk() throws IOException {
+        readFully(4);
+        int len = new DecodeBuffer(chunkBuffer, 0, 4).readInt();
+        if (len == 0) {
+            return false;
+        }
+        if (len < 0 || len > PackConfig.MAX_BUFFER_SIZE) {
+            throw new IllegalStateException("invalid chunk length: " + len);
+        }
+        if (len > chunkBuffer.length) {
+            chunkBuffer = new byte[Math.max(len, chunkBuffer.length << 1)];
+        }
+        readFully(len);
+        chunk = PackDecoder.decodeObjectList(chunkBuffer, 0, len, adapter);
+        index = 0;
+        return true;
+    }
+
+    private void readFully(int len) throws IOException {
+        int n = 0;
+        if (in != null) {
+            while (n < len) {
+                int count = in.read(chunkBuffer, n, len - n);
+                if (count < 0) {
+                    throw new EOFException("unexpected end of stream");
+                }
+                n += count;
+            }
+        } else {
+            ByteBuffer buffer = ByteBuffer.wrap(chunkBuffer, 0, len);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("unexpected end of stream");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package io.packable;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * PackStreamWriter
+ * 作用：逐个写入对象，分块输出到 OutputStream 或者 WritableByteChannel。
+ * <br>
+ * {@link PackEncoder#encodeObjectList} 需要整个列表都在内存中；
+ * 而这里每写满一块（默认 64K）就输出，内存占用与对象的总数无关，适合导出大量数据。
+ * <br>
+ * 流的格式：[chunk][chunk]...[0]，
+ * 每个 chunk 为 [len: int32][body]，body 的格式与 encodeObjectList 的结果相同；
+ * len 为 0 表示流结束（由 {@link #close()} 写入）。
+ * <br>
+ * 用 {@link PackStreamReader} 读取。
+ */
+public final class PackStreamWriter<T> implements Closeable, Flushable {
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final WritableByteChannel channel;
+    private final TypeAdapter<T> adapter;
+    private final int chunkSize;
+
+    private final PackEncoder encoder = new PackEncoder();
+    private final byte[] header = new byte[9];
+    private int count;
+    private boolean closed;
+
+    public PackStreamWriter(OutputStream out, TypeAdapter<T> adapter) {
+        this(out, null, adapter, DEFAULT_CHUNK_SIZE);
+    }
+
+    public PackStreamWriter(OutputStream out, TypeAdapter<T> adapter, int chunkSize) {
+        this(out, null, adapter, chunkSize);
+    }
+
+    public PackStreamWriter(WritableByteChannel channel, TypeAdapter<T> adapter) {
+        this(null, channel, adapter, DEFAULT_CHUNK_SIZE);
+    }
+
+    public PackStreamWriter(WritableByteChannel channel, TypeAdapter<T> adapter, int chunkSize) {
+        this(null, channel, adapter, chunkSize);
+    }
+
+    private PackStreamWriter(OutputStream out, WritableByteChannel channel, TypeAdapter<T> adapter, int chunkSize) {
+        if (out == null && channel == null) {
+            throw new IllegalArgumentException("output is null");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("invalid chunk size: " + chunkSize);
+        }
+        this.out = out;
+        this.channel = channel;
+        this.adapter = adapter;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 写入一个对象，value 可以为 null
+     */
+    public void write(T value) throws IOException {
+        checkState();
+        encoder.wrapObject(value, adapter);
+        count++;
+        if (encoder.size() >= chunkSize || count >= PackConfig.maxObjectArraySize) {
+            writeChunk();
+        }
+    }
+
+    /**
+     * 输出已写入的对象（即使还没有写满一块）
+     */
+    @Override
+    public void flush() throws IOException {
+        checkState();
+        writeChunk();
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    /**
+     * 输出剩余的对象和结束标记，然后关闭 OutputStream/Channel
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            writeChunk();
+            EncodeBuffer buffer = new EncodeBuffer(header);
+            buffer.writeInt(0);
+            writeFully(header, 4, null, 0);
+            if (out != null) {
+                out.flush();
+            }
+        } finally {
+            closed = true;
+            encoder.recycle();
+            if (out != null) {
+                out.close();
+            } else {
+                channel.close();
+            }
+        }
+    }
+
+    private void checkState() {
+        if (closed) {
+            throw new IllegalStateException("writer had been closed");
+        }
+    }
+
+    private void writeChunk() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        int size = encoder.size();
+        EncodeBuffer buffer = new EncodeBuffer(header);
+        buffer.writeInt(EncodeBuffer.getVarInt32Size(count) + size);
+        buffer.writeVarInt32(count);
+        writeFully(header, buffer.position, encoder.array(), size);
+        encoder.clear();
+        count = 0;
+    }
+
+    private void writeFully(byte[] head, int headLen, byte[] body, int bodyLen) throws IOException {
+        if (out != null) {
+            out.write(head, 0, headLen);
+            if (bodyLen > 0) {
+                out.write(body, 0, bodyLen);
+            }
+            return;
+        }
+        ByteBuffer a = ByteBuffer.wrap(head, 0, headLen);
+        ByteBuffer b = bodyLen > 0 ? ByteBuffer.wrap(body, 0, bodyLen) : null;
+        if (b != null && channel instanceof GatheringByteChannel) {
+            ByteBuffer[] buffers = {a, b};
+            GatheringByteChannel gathering = (GatheringByteChannel) channel;
+            while (b.hasRemaining()) {
+                gathering.write(buffers);
+            }
+            return;
+        }
+        while (a.hasRemaining()) {
+            channel.write(a);
+        }
+        while (b != null && b.hasRemaining()) {
+            channel.write(b);
+        }
+    }
+}
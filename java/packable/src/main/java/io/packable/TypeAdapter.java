@@ -22,4 +22,19 @@ public interface TypeAdapter<T> {
      * @return 返回对象实例
      */
     T decode(PackDecoder decoder);
+
+    /**
+     * 从decoder中解码出目标对象，并尽量复用已有的对象 reuse（包括其中的数组），以减少内存分配。
+     * <br>
+     * 默认实现忽略 reuse，直接调用 {@link #decode}；
+     * 需要复用对象的类型可以重写此方法，将字段逐个写入 reuse 并返回 reuse。
+     * 注意：字段缺失时需要重置为默认值，否则会残留上一次解码的值。
+     *
+     * @param decoder 解码器.
+     * @param reuse 可复用的对象（不为 null）
+     * @return 返回对象实例（reuse 或者新的实例）
+     */
+    default T decodeInto(PackDecoder decoder, T reuse) {
+        return decode(decoder);
+    }
 }
@@ -0,0 +1,95 @@
+import io.packable.PackEncoder;
+import io.packable.PackFrameCodec;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本机回环 TCP 上对比两种发送方式的吞吐量（消息数/秒）：
+ * 每条消息单独 write，以及用 PackFrameCodec 合并为 gathering write。
+ */
+public class FrameBenchmark {
+    private static final int MESSAGE_COUNT = 1_000_000;
+    private static final int BATCH = 256;
+    private static final int OPTIONS = PackFrameCodec.VARINT_HEADER;
+
+    public static void main(String[] args) throws Exception {
+        byte[][] messages = new byte[1024][];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = new PackEncoder()
+                    .putInt(0, i)
+                    .putString(1, "message-" + i)
+                    .putLong(2, System.nanoTime())
+                    .toBytes();
+        }
+
+        // warming up
+        run(messages, false, MESSAGE_COUNT / 10);
+        run(messages, true, MESSAGE_COUNT / 10);
+
+        long naive = run(messages, false, MESSAGE_COUNT);
+        long batched = run(messages, true, MESSAGE_COUNT);
+        System.out.println("per-message write: " + naive + " msg/s");
+        System.out.println("gathering write:   " + batched + " msg/s");
+    }
+
+    private static long run(byte[][] messages, boolean batched, int count) throws Exception {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("127.0.0.1", 0));
+            AtomicInteger received = new AtomicInteger();
+            Thread reader = new Thread(() -> {
+                try (SocketChannel channel = server.accept()) {
+                    PackFrameCodec codec = new PackFrameCodec(OPTIONS);
+                    ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+                    while (received.get() < count && channel.read(buffer) >= 0) {
+                        buffer.flip();
+                        codec.feed(buffer, (array, offset, len, flags) -> received.incrementAndGet());
+                        buffer.clear();
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+            reader.start();
+
+            try (SocketChannel channel = SocketChannel.open(server.getLocalAddress())) {
+                channel.socket().setTcpNoDelay(true);
+                long t1 = System.nanoTime();
+                if (batched) {
+                    PackFrameCodec codec = new PackFrameCodec(OPTIONS);
+                    for (int i = 0; i < count; i++) {
+                        codec.add(messages[i & (messages.length - 1)]);
+                        if ((i + 1) % BATCH == 0) {
+                            codec.flush(channel);
+                        }
+                    }
+                    codec.flush(channel);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        byte[] m = messages[i & (messages.length - 1)];
+                        ByteBuffer frame = ByteBuffer.allocate(5 + m.length);
+                        int len = m.length;
+                        while ((len & ~0x7f) != 0) {
+                            frame.put((byte) ((len & 0x7f) | 0x80));
+                            len >>>= 7;
+                        }
+                        frame.put((byte) len).put(m).flip();
+                        while (frame.hasRemaining()) {
+                            channel.write(frame);
+                        }
+                    }
+                }
+                reader.join();
+                long t2 = System.nanoTime();
+                if (received.get() != count) {
+                    throw new IllegalStateException("received " + received.get() + " of " + count);
+                }
+                return count * 1_000_000_000L / (t2 - t1);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+import io.packable.PackEncoder;
+import io.packable.store.PackLog;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PackLog 的性能：
+ * 追加（不 sync），每条都 sync（多个线程，组提交），以及 scan 的速度（MB/s）。
+ */
+public class LogBenchmark {
+    private static final int RECORD_COUNT = 1_000_000;
+    private static final int SYNC_THREADS = 8;
+    private static final int SYNC_PER_THREAD = 500;
+
+    public static void main(String[] args) throws Exception {
+        byte[][] records = new byte[1024][];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = new PackEncoder()
+                    .putInt(0, i)
+                    .putString(1, "record-" + i)
+                    .putLong(2, System.nanoTime())
+                    .toBytes();
+        }
+        File file = File.createTempFile("bench", ".log");
+        file.deleteOnExit();
+        try {
+            for (int round = 0; round < 2; round++) {
+                if (!file.delete()) {
+                    throw new IllegalStateException("can not delete " + file);
+                }
+                try (PackLog log = PackLog.open(file)) {
+                    long t1 = System.nanoTime();
+                    for (int i = 0; i < RECORD_COUNT; i++) {
+                        log.append(records[i & (records.length - 1)]);
+                    }
+                    log.sync();
+                    long t2 = System.nanoTime();
+
+                    long[] bytes = {0};
+                    log.scan((offset, record) -> bytes[0] += record.remaining());
+                    long t3 = System.nanoTime();
+
+                    long syncAppends = syncAppends(log, records);
+                    if (round == 1) {
+                        System.out.println("append:        " + RECORD_COUNT * 1_000_000_000L / (t2 - t1) + " records/s");
+                        System.out.println("scan:          " + (bytes[0] * 1000 / (t3 - t2)) + " MB/s");
+                        System.out.println("append + sync: " + syncAppends + " records/s (" + SYNC_THREADS + " threads)");
+                    }
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static long syncAppends(PackLog log, byte[][] records) throws InterruptedException {
+        Thread[] threads = new Thread[SYNC_THREADS];
+        AtomicLong done = new AtomicLong();
+        long t1 = System.nanoTime();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < SYNC_PER_THREAD; i++) {
+                        log.append(records[i & (records.length - 1)]);
+                        log.sync();
+                        done.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return done.get() * 1_000_000_000L / (System.nanoTime() - t1);
+    }
+}
@@ -23,7 +23,7 @@ public class Main {
 
     private static void testPerformance(int n, boolean printResult) throws Exception {
 
-        long a1 = 0, a2 = 0, a3 = 0, a4 = 0, a5 = 0, a6 = 0;
+        long a1 = 0, a2 = 0, a3 = 0, a4 = 0, a5 = 0, a6 = 0, a7 = 0;
         long l1 = 0, l2 = 0, l3 = 0;
         int r = 5;
         for (int i = 0; i < r; i++) {
@@ -40,6 +40,10 @@ public class Main {
 
             long t3 = System.nanoTime();
 
+            PackVo.Response trustedResult = PackDecoder.decodeTrusted(packData, PackVoAdapter.RESPONSE_ADAPTER);
+
+            long t3t = System.nanoTime();
+
             byte[] protoData = protoResponse.toByteArray();
 
             long t4 = System.nanoTime();
@@ -60,10 +64,11 @@ public class Main {
 
             a1 += t2 - t1;
             a2 += t3 - t2;
-            a3 += t4 - t3;
+            a3 += t4 - t3t;
             a4 += t5 - t4;
             a5 += t6 - t5;
             a6 += t7 - t6;
+            a7 += t3t - t3;
 
             if (l1 != 0L && l1 != packData.length) {
                 throw new Exception("packData.length error");
@@ -75,6 +80,9 @@ public class Main {
             if (!packResponse.equals(packResult)) {
                 throw new Exception("packResponse != packResult");
             }
+            if (!packResponse.equals(trustedResult)) {
+                throw new Exception("packResponse != trustedResult");
+            }
             if (!packResponse.equals(protoResult)) {
                 throw new Exception("packResponse != packVoFromProto");
             }
@@ -90,9 +98,10 @@ public class Main {
             a4 = a4 / r / 1000000;
             a5 = a5 / r / 1000000;
             a6 = a6 / r / 1000000;
+            a7 = a7 / r / 1000000;
 
             System.out.println("data count:" + n);
-            System.out.println("packable bytes:" + l1 + " encode:" + a1 + " decode:" + a2);
+            System.out.println("packable bytes:" + l1 + " encode:" + a1 + " decode:" + a2 + " trusted decode:" + a7);
             System.out.println("protobuf bytes:" + l2 + " encode:" + a3 + " decode:" + a4);
             System.out.println("gson     bytes:" + l3 + " encode:" + a5 + " decode:" + a6);
             System.out.println(" ");
@@ -18,7 +18,11 @@ public class PackVoAdapter {
 
         @Override
         public PackVo.Category decode(PackDecoder decoder) {
-            PackVo.Category c = new PackVo.Category();
+            return decodeInto(decoder, new PackVo.Category());
+        }
+
+        @Override
+        public PackVo.Category decodeInto(PackDecoder decoder, PackVo.Category c) {
             c.name = decoder.getString(0);
             c.level = decoder.getInt(1);
             c.i_column = decoder.getLong(2);
@@ -57,7 +61,11 @@ public class PackVoAdapter {
 
         @Override
         public PackVo.Data decode(PackDecoder decoder) {
-            PackVo.Data d = new PackVo.Data();
+            return decodeInto(decoder, new PackVo.Data());
+        }
+
+        @Override
+        public PackVo.Data decodeInto(PackDecoder decoder, PackVo.Data d) {
             d.d_bool = decoder.getBoolean(0);
             d.d_float = decoder.getFloat(1);
             d.d_double = decoder.getDouble(2);
@@ -72,13 +80,13 @@ public class PackVoAdapter {
             d.long_3 = decoder.getLong(11);
             d.long_4 = decoder.getLong(12);
             d.long_5 = decoder.getLong(13);
-            d.d_category = decoder.getObject(14, CATEGORY_ADAPTER);
-            d.bool_array = decoder.getBooleanArray(15);
-            d.int_array = decoder.getIntArray(16);
-            d.long_array = decoder.getLongArray(17);
-            d.float_array = decoder.getFloatArray(18);
-            d.double_array = decoder.getDoubleArray(19);
-            d.string_array = decoder.getStringArray(20);
+            d.d_category = decoder.getObjectInto(14, CATEGORY_ADAPTER, d.d_category);
+            d.bool_array = decoder.getBooleanArray(15, d.bool_array);
+            d.int_array = decoder.getIntArray(16, d.int_array);
+            d.long_array = decoder.getLongArray(17, d.long_array);
+            d.float_array = decoder.getFloatArray(18, d.float_array);
+            d.double_array = decoder.getDoubleArray(19, d.double_array);
+            d.string_array = decoder.getStringArray(20, d.string_array);
             return d;
         }
     };
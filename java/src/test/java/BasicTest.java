@@ -5,6 +5,8 @@ import org.junit.Assert;
 import org.junit.Test;
 import model.Person;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -26,6 +28,16 @@ public class BasicTest {
         }
     };
 
+    /**
+     * 返回一个不存在的临时文件，退出时删除
+     */
+    public static File newFile(String suffix) throws IOException {
+        File file = File.createTempFile("pack", suffix);
+        Assert.assertTrue(file.delete());
+        file.deleteOnExit();
+        return file;
+    }
+
     @Test
     public void testPackSimpleObject() {
         Person person = new Person("Tom", 20);
@@ -35,23 +47,7 @@ public class BasicTest {
     }
 
 
-    private static final TypeAdapter<Data> DATA_ADAPTER = new TypeAdapter<Data>() {
-        @Override
-        public void encode(PackEncoder encoder, Data target) {
-            encoder.putString(0, target.msg)
-                    .putObjectList(1, target.items, ITEM_ADAPTER);
-        }
-
-        @Override
-        public Data decode(PackDecoder decoder) {
-            Data data = new Data();
-            data.msg = decoder.getString(0);
-            data.items = decoder.getObjectList(1, ITEM_ADAPTER);
-            return data;
-        }
-    };
-
-    private static final TypeAdapter<Item> ITEM_ADAPTER = new TypeAdapter<Item>() {
+    public static final TypeAdapter<Item> ITEM_ADAPTER = new TypeAdapter<Item>() {
         @Override
         public void encode(PackEncoder encoder, Item target) {
             encoder.putInt(0, target.a);
@@ -65,8 +61,45 @@ public class BasicTest {
                     decoder.getLong(1)
             );
         }
+
+        @Override
+        public Item decodeInto(PackDecoder decoder, Item reuse) {
+            reuse.a = decoder.getInt(0);
+            reuse.b = decoder.getLong(1);
+            return reuse;
+        }
+    };
+
+    public static final TypeAdapter<Data> DATA_ADAPTER = new TypeAdapter<Data>() {
+        @Override
+        public void encode(PackEncoder encoder, Data target) {
+            encoder.putString(0, target.msg)
+                    .putObjectList(1, target.items, ITEM_ADAPTER);
+        }
+
+        @Override
+        public Data decode(PackDecoder decoder) {
+            return decodeInto(decoder, new Data());
+        }
+
+        @Override
+        public Data decodeInto(PackDecoder decoder, Data reuse) {
+            reuse.msg = decoder.getString(0);
+            reuse.items = decoder.getObjectList(1, ITEM_ADAPTER, reuse.items);
+            return reuse;
+        }
     };
 
+    public static Data makeData(String msg, int n) {
+        Data data = new Data();
+        data.msg = msg;
+        data.items = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            data.items.add(new Item(i, i * 100L));
+        }
+        return data;
+    }
+
     @Test
     public void testPackComplexObject() {
         List<Item> itemList = new ArrayList<>();
@@ -105,6 +138,22 @@ public class BasicTest {
         Assert.assertTrue(equal);
     }
 
+    @Test
+    public void testTrustedDecode() {
+        List<Item> itemList = new ArrayList<>();
+        itemList.add(new Item(1, 2));
+        itemList.add(new Item(-100, Long.MIN_VALUE));
+
+        Data data = new Data();
+        data.msg = "message";
+        data.items = itemList;
+
+        byte[] bytes = PackEncoder.encode(data, DATA_ADAPTER);
+        Data decoded = PackDecoder.decodeTrusted(bytes, DATA_ADAPTER);
+
+        Assert.assertEquals(data, decoded);
+    }
+
     @Test
     public void testObjectList() {
         List<Person> personList = new ArrayList<>();
@@ -143,4 +192,17 @@ public class BasicTest {
         List<String> decoded = PackDecoder.decodeStringList(encoded);
         Assert.assertEquals(list, decoded);
     }
+
+    @Test
+    public void testNullInStringArray() {
+        // null 编码为 5 字节的 varint -1，之后的元素和字段不能错位
+        String[] a = new String[]{"a", null, "b", null};
+        byte[] encoded = new PackEncoder()
+                .putStringArray(0, a)
+                .putInt(1, 7)
+                .toBytes();
+        PackDecoder decoder = new PackDecoder(encoded);
+        Assert.assertArrayEquals(a, decoder.getStringArray(0));
+        Assert.assertEquals(7, decoder.getInt(1));
+    }
 }
@@ -0,0 +1,58 @@
+import io.packable.PackDecoder;
+import io.packable.PackEncoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+public class BitSetTest {
+    @Test
+    public void testBitSet() {
+        Random r = new Random(1);
+        BitSet bits = new BitSet();
+        for (int i = 0; i < 100000; i++) {
+            if (r.nextInt(10) == 0) {
+                bits.set(i);
+            }
+        }
+        bits.set(100003);
+        long[] words = {0x8000000000000001L, 0L, 0xffL, 0L, 0L};
+
+        byte[] bytes = new PackEncoder()
+                .putBitSet(0, bits)
+                .putBitSet(1, words)
+                .putBitSet(2, new BitSet())
+                .toBytes();
+        PackDecoder decoder = new PackDecoder(bytes);
+        Assert.assertEquals(bits, decoder.getBitSet(0));
+        Assert.assertArrayEquals(bits.toLongArray(), decoder.getBitSetWords(0));
+        Assert.assertArrayEquals(new long[]{0x8000000000000001L, 0L, 0xffL}, decoder.getBitSetWords(1));
+        Assert.assertEquals(BitSet.valueOf(words), decoder.getBitSet(1));
+        Assert.assertTrue(decoder.getBitSet(2).isEmpty());
+        Assert.assertEquals(0, decoder.getBitSetWords(2).length);
+        Assert.assertNull(decoder.getBitSet(3));
+
+        // 与 BitSet.toByteArray 格式相同
+        PackDecoder d = new PackDecoder(new PackEncoder().putBitSet(0, bits).toBytes());
+        Assert.assertArrayEquals(bits.toByteArray(), d.getByteArray(0));
+    }
+
+    @Test
+    public void testBooleanArrayBulk() {
+        Random r = new Random(2);
+        for (int n = 0; n < 70; n++) {
+            boolean[] a = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = r.nextBoolean();
+            }
+            byte[] bytes = new PackEncoder().putBooleanArray(0, a).toBytes();
+            Assert.assertArrayEquals(a, new PackDecoder(bytes).getBooleanArray(0));
+
+            boolean[] reuse = new boolean[n];
+            Arrays.fill(reuse, true);
+            Assert.assertArrayEquals(a, new PackDecoder(bytes).getBooleanArray(0, reuse));
+        }
+    }
+}
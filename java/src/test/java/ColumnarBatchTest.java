@@ -0,0 +1,120 @@
+import io.packable.ColumnarBatch;
+import io.packable.PackDecoder;
+import io.packable.PackEncoder;
+import io.packable.TypeAdapter;
+import model.Item;
+import model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class ColumnarBatchTest {
+    @Test
+    public void testPersonColumns() {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            // 名字重复较多，使用字典；第 7 个对象起每隔 7 个没有名字
+            persons.add(new Person(i % 7 == 6 ? null : "name" + (i % 5), i * 1000));
+        }
+        byte[] bytes = ColumnarBatch.encode(persons, BasicTest.PERSON_ADAPTER);
+        ColumnarBatch batch = new ColumnarBatch(bytes);
+        Assert.assertEquals(1000, batch.getRowCount());
+        Assert.assertTrue(batch.hasColumn(0));
+        Assert.assertFalse(batch.hasColumn(2));
+
+        String[] names = batch.getStringColumn(0);
+        int[] ages = batch.getIntColumn(1);
+        for (int i = 0; i < persons.size(); i++) {
+            Assert.assertEquals(persons.get(i).name, names[i]);
+            Assert.assertEquals(persons.get(i).age, ages[i]);
+        }
+        Assert.assertArrayEquals(new long[1000], batch.getLongColumn(5));
+        Assert.assertEquals(persons, batch.decodeRows(BasicTest.PERSON_ADAPTER));
+
+        byte[] rowBytes = PackEncoder.encodeObjectList(persons, BasicTest.PERSON_ADAPTER);
+        Assert.assertTrue(bytes.length < rowBytes.length);
+
+        try {
+            batch.getIntColumn(0);
+            Assert.fail();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    public void testNumberColumns() {
+        Random r = new Random(1);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            items.add(new Item(r.nextInt(3) == 0 ? 0 : r.nextInt(), i % 2 == 0 ? i : r.nextLong()));
+        }
+        ColumnarBatch batch = new ColumnarBatch(ColumnarBatch.encode(items, BasicTest.ITEM_ADAPTER));
+        int[] a = batch.getIntColumn(0);
+        long[] b = batch.getLongColumn(1);
+        for (int i = 0; i < items.size(); i++) {
+            Assert.assertEquals(items.get(i).a, a[i]);
+            Assert.assertEquals(items.get(i).b, b[i]);
+        }
+        Assert.assertEquals(items, batch.decodeRows(BasicTest.ITEM_ADAPTER));
+    }
+
+    @Test
+    public void testMixedColumns() {
+        TypeAdapter<Object[]> adapter = new TypeAdapter<Object[]>() {
+            @Override
+            public void encode(PackEncoder encoder, Object[] target) {
+                encoder.putDouble(0, (Double) target[0])
+                        .putBoolean(1, (Boolean) target[1])
+                        .putString(2, (String) target[2])
+                        .putIntArray(3, (int[]) target[3]);
+            }
+
+            @Override
+            public Object[] decode(PackDecoder decoder) {
+                return new Object[]{decoder.getDouble(0), decoder.getBoolean(1),
+                        decoder.getString(2), decoder.getIntArray(3)};
+            }
+        };
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(new Object[]{i * 0.5, i % 3 == 0, i % 4 == 0 ? "" : "s" + i, i % 5 == 0 ? null : new int[]{i, -i}});
+        }
+        ColumnarBatch batch = new ColumnarBatch(ColumnarBatch.encode(rows, adapter));
+        double[] d = batch.getDoubleColumn(0);
+        boolean[] flags = batch.getBooleanColumn(1);
+        String[] s = batch.getStringColumn(2);
+        List<Object[]> decoded = batch.decodeRows(adapter);
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            Assert.assertEquals((Double) row[0], d[i], 0);
+            Assert.assertEquals(row[1], flags[i]);
+            Assert.assertEquals(row[2], s[i]);
+            Assert.assertTrue(Arrays.deepEquals(row, decoded.get(i)));
+        }
+
+        ColumnarBatch empty = new ColumnarBatch(ColumnarBatch.encode(new ArrayList<Object[]>(), adapter));
+        Assert.assertEquals(0, empty.getRowCount());
+        Assert.assertEquals(0, empty.decodeRows(adapter).size());
+    }
+
+    @Test
+    public void testEmptyStringColumn() {
+        // "" 与数值 0 的 tag 类型都是 TYPE_0
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            persons.add(new Person(i == 3 ? null : "", 0));
+        }
+        ColumnarBatch batch = new ColumnarBatch(ColumnarBatch.encode(persons, BasicTest.PERSON_ADAPTER));
+        String[] names = batch.getStringColumn(0);
+        for (int i = 0; i < persons.size(); i++) {
+            Assert.assertEquals(persons.get(i).name, names[i]);
+        }
+        Assert.assertArrayEquals(new int[10], batch.getIntColumn(1));
+        Assert.assertArrayEquals(new String[10], batch.getStringColumn(2));
+        Assert.assertEquals(persons, batch.decodeRows(BasicTest.PERSON_ADAPTER));
+    }
+}
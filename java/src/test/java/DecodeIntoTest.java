@@ -0,0 +1,86 @@
+import io.packable.PackDecoder;
+import io.packable.PackEncoder;
+import model.Data;
+import model.Item;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class DecodeIntoTest {
+    @Test
+    public void testDecodeInto() {
+        Data data1 = BasicTest.makeData("first", 5);
+        Data data2 = BasicTest.makeData("second", 3);
+        Data data3 = BasicTest.makeData("third", 8);
+        data3.items.set(2, null);
+
+        Data reuse = PackDecoder.decode(PackEncoder.encode(data1, BasicTest.DATA_ADAPTER), BasicTest.DATA_ADAPTER);
+        Assert.assertEquals(data1, reuse);
+        List<Item> items = reuse.items;
+        Item first = items.get(0);
+
+        Data decoded = PackDecoder.decodeInto(PackEncoder.encode(data2, BasicTest.DATA_ADAPTER), BasicTest.DATA_ADAPTER, reuse);
+        Assert.assertSame(reuse, decoded);
+        Assert.assertSame(items, decoded.items);
+        Assert.assertSame(first, decoded.items.get(0));
+        Assert.assertEquals(data2, decoded);
+
+        decoded = PackDecoder.decodeInto(PackEncoder.encode(data3, BasicTest.DATA_ADAPTER), BasicTest.DATA_ADAPTER, reuse);
+        Assert.assertEquals(data3, decoded);
+
+        decoded = PackDecoder.decodeInto(PackEncoder.encode(new Data(), BasicTest.DATA_ADAPTER), BasicTest.DATA_ADAPTER, reuse);
+        Assert.assertNull(decoded.msg);
+        Assert.assertNull(decoded.items);
+    }
+
+    @Test
+    public void testReuseArray() {
+        byte[] bytes = new PackEncoder()
+                .putIntArray(0, new int[]{1, 2, 3})
+                .putLongArray(1, new long[]{4L, 5L})
+                .putDoubleArray(2, new double[]{0.5, 1.5})
+                .putFloatArray(3, new float[]{2.5f})
+                .putBooleanArray(4, new boolean[]{true, false, true, false, false, true, true, false, true, true})
+                .putStringArray(5, new String[]{"a", null, "c"})
+                .putByteArray(6, new byte[]{7, 8})
+                .toBytes();
+        PackDecoder decoder = new PackDecoder(bytes);
+
+        int[] ints = new int[3];
+        Assert.assertSame(ints, decoder.getIntArray(0, ints));
+        Assert.assertArrayEquals(new int[]{1, 2, 3}, ints);
+        int[] other = new int[2];
+        int[] result = decoder.getIntArray(0, other);
+        Assert.assertNotSame(other, result);
+        Assert.assertArrayEquals(new int[]{1, 2, 3}, result);
+
+        long[] longs = new long[2];
+        Assert.assertSame(longs, decoder.getLongArray(1, longs));
+        Assert.assertArrayEquals(new long[]{4L, 5L}, longs);
+
+        double[] doubles = new double[2];
+        Assert.assertSame(doubles, decoder.getDoubleArray(2, doubles));
+        Assert.assertArrayEquals(new double[]{0.5, 1.5}, doubles, 0);
+
+        float[] floats = new float[1];
+        Assert.assertSame(floats, decoder.getFloatArray(3, floats));
+        Assert.assertEquals(2.5f, floats[0], 0);
+
+        boolean[] booleans = new boolean[10];
+        Arrays.fill(booleans, true);
+        Assert.assertSame(booleans, decoder.getBooleanArray(4, booleans));
+        Assert.assertArrayEquals(new boolean[]{true, false, true, false, false, true, true, false, true, true}, booleans);
+
+        String[] strings = new String[3];
+        Assert.assertSame(strings, decoder.getStringArray(5, strings));
+        Assert.assertArrayEquals(new String[]{"a", null, "c"}, strings);
+
+        byte[] b = new byte[2];
+        Assert.assertSame(b, decoder.getByteArray(6, b));
+        Assert.assertArrayEquals(new byte[]{7, 8}, b);
+
+        Assert.assertNull(decoder.getIntArray(7, ints));
+    }
+}
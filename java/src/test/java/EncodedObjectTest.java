@@ -0,0 +1,117 @@
+import io.packable.*;
+import model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class EncodedObjectTest {
+    private static String makeString(int n) {
+        char[] a = new char[n];
+        Arrays.fill(a, 'a');
+        return new String(a);
+    }
+
+    @Test
+    public void testPutEncodedObject() {
+        Person small = new Person("Tom", 20);
+        Person big = new Person(makeString(200), 30);
+        Person empty = new Person(null, 0);
+
+        byte[] expected = new PackEncoder()
+                .putObject(0, small, BasicTest.PERSON_ADAPTER)
+                .putObject(1, big, BasicTest.PERSON_ADAPTER)
+                .putObject(2, empty, BasicTest.PERSON_ADAPTER)
+                .toBytes();
+
+        byte[] cachedBig = PackEncoder.encode(big, BasicTest.PERSON_ADAPTER);
+        byte[] buffer = new byte[cachedBig.length + 10];
+        System.arraycopy(cachedBig, 0, buffer, 5, cachedBig.length);
+
+        byte[] bytes = new PackEncoder()
+                .putEncodedObject(0, PackEncoder.encode(small, BasicTest.PERSON_ADAPTER))
+                .putEncodedObject(1, buffer, 5, cachedBig.length)
+                .putEncodedObject(2, PackEncoder.encode(empty, BasicTest.PERSON_ADAPTER))
+                .putEncodedObject(3, (byte[]) null)
+                .toBytes();
+
+        Assert.assertArrayEquals(expected, bytes);
+    }
+
+    @Test
+    public void testPutEncodedObjectList() {
+        List<Person> persons = new ArrayList<>();
+        persons.add(new Person("Tom", 20));
+        persons.add(null);
+        persons.add(new Person(makeString(40000), 30));
+
+        List<byte[]> encoded = new ArrayList<>();
+        for (Person person : persons) {
+            encoded.add(person == null ? null : PackEncoder.encode(person, BasicTest.PERSON_ADAPTER));
+        }
+
+        byte[] expected = new PackEncoder()
+                .putObjectList(0, persons, BasicTest.PERSON_ADAPTER)
+                .putObjectArray(1, persons.toArray(new Person[0]), BasicTest.PERSON_ADAPTER)
+                .toBytes();
+        byte[] bytes = new PackEncoder()
+                .putEncodedObjectList(0, encoded)
+                .putEncodedObjectArray(1, encoded.toArray(new byte[0][]))
+                .toBytes();
+
+        Assert.assertArrayEquals(expected, bytes);
+        Assert.assertEquals(persons, new PackDecoder(bytes).getObjectList(1, BasicTest.PERSON_ADAPTER));
+    }
+
+    @Test
+    public void testRawObject() {
+        Person tom = new Person("Tom", 20);
+        List<Person> persons = new ArrayList<>();
+        persons.add(new Person(makeString(300), 25));
+        persons.add(null);
+        persons.add(new Person("Jerry", 30));
+
+        byte[] message = new PackEncoder()
+                .putInt(0, 7)
+                .putObject(1, tom, BasicTest.PERSON_ADAPTER)
+                .putObjectList(2, persons, BasicTest.PERSON_ADAPTER)
+                .toBytes();
+
+        PackDecoder decoder = new PackDecoder(message);
+        ByteBuffer raw = decoder.getRawObject(1);
+        Assert.assertArrayEquals(PackEncoder.encode(tom, BasicTest.PERSON_ADAPTER), toArray(raw));
+        Assert.assertNull(decoder.getRawObject(3));
+
+        List<ByteBuffer> rawList = decoder.getRawObjectList(2);
+        Assert.assertEquals(3, rawList.size());
+        Assert.assertNull(rawList.get(1));
+        Assert.assertEquals(persons.get(2), PackDecoder.decode(toArray(rawList.get(2)), BasicTest.PERSON_ADAPTER));
+
+        // 转发：不解码，直接写入
+        List<byte[]> forwardList = new ArrayList<>();
+        for (ByteBuffer b : rawList) {
+            forwardList.add(b == null ? null : toArray(b));
+        }
+        ByteBuffer direct = ByteBuffer.allocateDirect(raw.remaining());
+        direct.put(raw.duplicate()).flip();
+        byte[] forwarded = new PackEncoder()
+                .putInt(0, 7)
+                .putEncodedObject(1, direct)
+                .putEncodedObjectList(2, forwardList)
+                .toBytes();
+        Assert.assertArrayEquals(message, forwarded);
+        Assert.assertEquals(0, direct.position());
+
+        byte[] heapForwarded = new PackEncoder().putEncodedObject(1, raw).toBytes();
+        Assert.assertEquals(tom, new PackDecoder(heapForwarded).getObject(1, BasicTest.PERSON_ADAPTER));
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] a = new byte[buffer.remaining()];
+        buffer.duplicate().get(a);
+        return a;
+    }
+}
@@ -0,0 +1,60 @@
+import io.packable.PackDecoder;
+import io.packable.PackEncoder;
+import model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class IndexedObjectArrayTest {
+    @Test
+    public void testGetObjectAt() {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            persons.add(i % 17 == 0 ? null : new Person("name" + i, i));
+        }
+        char[] chars = new char[40000];
+        Arrays.fill(chars, 'x');
+        persons.set(500, new Person(new String(chars), 500));
+
+        byte[] bytes = new PackEncoder()
+                .putIndexedObjectList(0, persons, BasicTest.PERSON_ADAPTER)
+                .putIndexedObjectArray(1, new Person[0], BasicTest.PERSON_ADAPTER)
+                .putIndexedObjectArray(2, new Person[]{new Person("a", 1)}, BasicTest.PERSON_ADAPTER)
+                .toBytes();
+        PackDecoder decoder = new PackDecoder(bytes);
+
+        Assert.assertEquals(persons.size(), decoder.getObjectArraySize(0));
+        for (int i = persons.size() - 1; i >= 0; i -= 3) {
+            Assert.assertEquals(persons.get(i), decoder.getObjectAt(0, i, BasicTest.PERSON_ADAPTER));
+        }
+        Assert.assertEquals(0, decoder.getObjectArraySize(1));
+        Assert.assertEquals(new Person("a", 1), decoder.getObjectAt(2, 0, BasicTest.PERSON_ADAPTER));
+        Assert.assertEquals(-1, decoder.getObjectArraySize(3));
+        Assert.assertNull(decoder.getObjectAt(3, 0, BasicTest.PERSON_ADAPTER));
+
+        try {
+            decoder.getObjectAt(0, persons.size(), BasicTest.PERSON_ADAPTER);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException ignore) {
+        }
+
+        // 偏移表在末尾，可以按普通的对象数组解码
+        Assert.assertEquals(persons, decoder.getObjectList(0, BasicTest.PERSON_ADAPTER));
+        Assert.assertTrue(decoder.getObjectList(1, BasicTest.PERSON_ADAPTER).isEmpty());
+    }
+
+    @Test
+    public void testInvalidCount() {
+        // 元素个数为 2^30，n << 2 溢出为 0
+        byte[] field = new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 4, 0, 0, 0, 0};
+        PackDecoder decoder = new PackDecoder(new PackEncoder().putByteArray(0, field).toBytes());
+        try {
+            decoder.getObjectAt(0, 0, BasicTest.PERSON_ADAPTER);
+            Assert.fail();
+        } catch (IllegalStateException ignore) {
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import io.packable.PackDecoder;
+import io.packable.PackEncoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class LossyFloatArrayTest {
+    @Test
+    public void testHalfFloatArray() {
+        float[] exact = {0f, -0f, 1f, -2.5f, 65504f, 6.1035156E-5f, 5.9604645E-8f,
+                Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        float[] rounded = {1.0004883f, 70000f, 1e-9f, 2049f, 2051f};
+        float[] expected = {1.0f, Float.POSITIVE_INFINITY, 0f, 2048f, 2052f};
+        byte[] bytes = new PackEncoder()
+                .putHalfFloatArray(0, exact)
+                .putHalfFloatArray(1, rounded)
+                .putHalfFloatArray(2, new float[]{Float.NaN})
+                .toBytes();
+        PackDecoder decoder = new PackDecoder(bytes);
+        Assert.assertArrayEquals(exact, decoder.getHalfFloatArray(0), 0f);
+        Assert.assertEquals(Float.floatToRawIntBits(-0f), Float.floatToRawIntBits(decoder.getHalfFloatArray(0)[1]));
+        Assert.assertArrayEquals(expected, decoder.getHalfFloatArray(1), 0f);
+        Assert.assertTrue(Float.isNaN(decoder.getHalfFloatArray(2)[0]));
+        Assert.assertNull(decoder.getHalfFloatArray(3));
+
+        Random r = new Random(1);
+        float[] a = new float[1000];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (float) r.nextGaussian() * 100;
+        }
+        float[] b = new PackDecoder(new PackEncoder().putHalfFloatArray(0, a).toBytes()).getHalfFloatArray(0);
+        for (int i = 0; i < a.length; i++) {
+            // 10 位尾数，相对误差不超过 2^-11
+            Assert.assertEquals(a[i], b[i], Math.max(Math.abs(a[i]) / 2048, 3e-5f));
+        }
+    }
+
+    @Test
+    public void testBFloat16Array() {
+        float[] a = {0f, 1f, -3.5f, 1e30f, -1e-30f, Float.MAX_VALUE, Float.NaN, 1.00390625f, 1.01171875f};
+        byte[] bytes = new PackEncoder().putBFloat16Array(0, a).toBytes();
+        float[] b = new PackDecoder(bytes).getBFloat16Array(0);
+        Assert.assertEquals(a.length, b.length);
+        Assert.assertEquals(2 + a.length * 2, bytes.length);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(a[i], b[i], Math.abs(a[i]) / 256);
+        }
+        Assert.assertEquals(Float.POSITIVE_INFINITY, b[5], 0f);
+        Assert.assertTrue(Float.isNaN(b[6]));
+        // 舍入到偶数
+        Assert.assertEquals(1f, b[7], 0f);
+        Assert.assertEquals(1.015625f, b[8], 0f);
+    }
+
+    @Test
+    public void testQuantizedFloatArray() {
+        Random r = new Random(2);
+        float[] a = new float[512];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = r.nextFloat() * 4 - 1;
+        }
+        a[0] = -1f;
+        a[1] = 3f;
+        byte[] bytes = new PackEncoder()
+                .putQuantizedFloatArray(0, a)
+                .putQuantizedFloatArray(1, new float[]{7.25f, 7.25f})
+                .putQuantizedFloatArray(2, new float[0])
+                .toBytes();
+        PackDecoder decoder = new PackDecoder(bytes);
+        float[] b = decoder.getQuantizedFloatArray(0);
+        Assert.assertEquals(a.length, b.length);
+        for (int i = 0; i < a.length; i++) {
+            Assert.assertEquals(a[i], b[i], 4f / 510 + 1e-6f);
+        }
+        Assert.assertArrayEquals(new float[]{7.25f, 7.25f}, decoder.getQuantizedFloatArray(1), 0f);
+        Assert.assertEquals(0, decoder.getQuantizedFloatArray(2).length);
+
+        try {
+            new PackEncoder().putQuantizedFloatArray(0, new float[]{1f, Float.NaN});
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
@@ -16,13 +16,20 @@ public class MapTest {
             a.put(RandomUtil.randomShortString(), RandomUtil.randomNullableString());
         }
 
+        a.put("null", null);
+        Map<String, String> copy = new HashMap<>(a);
+
         PackEncoder encoder = new PackEncoder();
         byte[] bytes = encoder.putMap(0, a).toBytes();
 
+        // putMap 不修改传入的map，value 为 null 的元素不编码
+        Assert.assertEquals(copy, a);
+        copy.values().removeIf(Objects::isNull);
+
         PackDecoder decoder = new PackDecoder(bytes);
         Map<String, String> b = decoder.getMap(0, String.class ,String.class);
 
-        Assert.assertEquals(a, b);
+        Assert.assertEquals(copy, b);
     }
 
     @Test
@@ -142,6 +149,124 @@ public class MapTest {
         Assert.assertEquals(a, b);
     }
 
+    @Test
+    public void testIntLongMap() {
+        IntLongMap a = new IntLongMap();
+        Map<Integer, Long> expected = new HashMap<>();
+        for (int i = -500; i < 500; i += 3) {
+            long value = RandomUtil.randomLong();
+            a.put(i * 7919, value);
+            expected.put(i * 7919, value);
+        }
+        for (int i = -500; i < 0; i += 9) {
+            a.remove(i * 7919);
+            expected.remove(i * 7919);
+        }
+        Assert.assertEquals(expected.size(), a.size());
+        for (Map.Entry<Integer, Long> e : expected.entrySet()) {
+            Assert.assertEquals((long) e.getValue(), a.get(e.getKey()));
+        }
+
+        byte[] bytes = new PackEncoder().putIntLongMap(0, a).toBytes();
+        PackDecoder decoder = new PackDecoder(bytes);
+        Assert.assertEquals(a, decoder.getIntLongMap(0));
+        // 与 putMap 的编码格式相同
+        Assert.assertEquals(expected, decoder.getMap(0, Integer.class, Long.class));
+        Assert.assertEquals(a, new PackDecoder(new PackEncoder().putMap(0, expected).toBytes()).getIntLongMap(0));
+
+        int[] keys = {1, 0, -3};
+        long[] values = {10L, 20L, 30L};
+        IntLongMap b = new PackDecoder(new PackEncoder().putIntLongMap(0, keys, values).toBytes()).getIntLongMap(0);
+        Assert.assertEquals(3, b.size());
+        Assert.assertEquals(20L, b.get(0));
+        Assert.assertEquals(30L, b.get(-3));
+        Assert.assertEquals(-1L, b.get(5, -1L));
+    }
+
+    @Test
+    public void testLongDoubleAndIntObjectMap() {
+        LongDoubleMap a = new LongDoubleMap(4);
+        for (long i = 0; i < 2000; i++) {
+            a.put(i << 20, i * 0.5);
+        }
+        IntObjectMap<TestVo> c = new IntObjectMap<>();
+        for (int i = 0; i < 50; i++) {
+            c.put(i, new TestVo(i, -i));
+        }
+
+        byte[] bytes = new PackEncoder()
+                .putLongDoubleMap(0, a)
+                .putIntObjectMap(1, c, TEST_VO_ADAPTER)
+                .putLongDoubleMap(2, new LongDoubleMap())
+                .toBytes();
+        PackDecoder decoder = new PackDecoder(bytes);
+        Assert.assertEquals(a, decoder.getLongDoubleMap(0));
+        Assert.assertEquals(c, decoder.getIntObjectMap(1, TEST_VO_ADAPTER));
+        Assert.assertTrue(decoder.getLongDoubleMap(2).isEmpty());
+        Assert.assertNull(decoder.getIntObjectMap(3, TEST_VO_ADAPTER));
+
+        // values 为 null 时与其他 put 方法一样，视为字段不存在
+        decoder = new PackDecoder(new PackEncoder()
+                .putIntLongMap(0, new int[]{1}, null)
+                .putLongDoubleMap(1, new long[]{1L}, null)
+                .putIntObjectMap(2, new int[]{1}, null, TEST_VO_ADAPTER)
+                .toBytes());
+        Assert.assertNull(decoder.getIntLongMap(0));
+        Assert.assertNull(decoder.getLongDoubleMap(1));
+        Assert.assertNull(decoder.getIntObjectMap(2, TEST_VO_ADAPTER));
+    }
+
+    @Test
+    public void testSortedMap() {
+        Map<String, TestVo> a = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            a.put(RandomUtil.randomShortString(), new TestVo(i, i * 3L));
+        }
+        a.put("", new TestVo(-1, -1));
+        a.put("\u4e2d\u6587", new TestVo(-2, -2));
+        a.put("\ud83d\ude00", new TestVo(-3, -3));
+
+        Map<Long, Double> b = new HashMap<>();
+        for (long i = -100; i < 100; i += 7) {
+            b.put(i * 1000000007L, i * 0.5);
+        }
+        Map<Integer, String> c = new HashMap<>();
+        for (int i = -50; i < 50; i += 2) {
+            c.put(i, "v" + i);
+        }
+
+        byte[] bytes = new PackEncoder()
+                .putSortedMap(0, a, TEST_VO_ADAPTER)
+                .putSortedMap(1, b)
+                .putSortedMap(2, c)
+                .putSortedMap(3, new HashMap<Integer, Integer>())
+                .toBytes();
+        PackDecoder decoder = new PackDecoder(bytes);
+        for (Map.Entry<String, TestVo> e : a.entrySet()) {
+            Assert.assertEquals(e.getValue(), decoder.lookupMapValue(0, e.getKey(), TEST_VO_ADAPTER));
+        }
+        Assert.assertNull(decoder.lookupMapValue(0, "not exists key " + a.size(), TEST_VO_ADAPTER));
+        for (Map.Entry<Long, Double> e : b.entrySet()) {
+            Assert.assertEquals(e.getValue(), decoder.lookupMapValue(1, e.getKey(), Double.class));
+        }
+        Assert.assertNull(decoder.lookupMapValue(1, 1L, Double.class));
+        for (int i = -51; i <= 51; i++) {
+            Assert.assertEquals(c.get(i), decoder.lookupMapValue(2, i, String.class));
+        }
+        Assert.assertNull(decoder.lookupMapValue(3, 1, Integer.class));
+        Assert.assertNull(decoder.lookupMapValue(4, 1, Integer.class));
+        try {
+            decoder.lookupMapValue(1, 1.5, Double.class);
+            Assert.fail();
+        } catch (IllegalArgumentException ignore) {
+        }
+
+        // 偏移表在末尾，也可以整体解码
+        Assert.assertEquals(a, decoder.getMap(0, String.class, TestVo.class, null, TEST_VO_ADAPTER));
+        Assert.assertEquals(b, decoder.getMap(1, Long.class, Double.class));
+        Assert.assertEquals(c, decoder.getMap(2, Integer.class, String.class));
+    }
+
     private static final TypeAdapter<TestVo> TEST_VO_ADAPTER = new TypeAdapter<TestVo>() {
         @Override
         public void encode(PackEncoder encoder, TestVo target) {
@@ -0,0 +1,55 @@
+import io.packable.*;
+import model.Data;
+import model.Item;
+import model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PackCursorTest {
+    private static byte[] encodeData() {
+        List<Item> itemList = new ArrayList<>(Arrays.asList(
+                new Item(1, 2),
+                null,
+                new Item(-100, Long.MIN_VALUE),
+                new Item(70000, 1L << 40)
+        ));
+        Data data = new Data();
+        data.msg = "消息";
+        data.items = itemList;
+        PackEncoder encoder = new PackEncoder();
+        BasicTest.DATA_ADAPTER.encode(encoder, data);
+        encoder.putObject(2, new Person("Tom", 20), BasicTest.PERSON_ADAPTER);
+        return encoder.toBytes();
+    }
+
+    @Test
+    public void testReadPath() {
+        PackCursor cursor = new PackCursor(encodeData());
+
+        Assert.assertEquals("消息", cursor.getString(0));
+        Assert.assertEquals(4, cursor.field(1).size());
+        Assert.assertEquals(-100, cursor.reset().field(1).element(2).getInt(0));
+        Assert.assertEquals(Long.MIN_VALUE, cursor.reset().field(1).element(2).getLong(1));
+        Assert.assertEquals(70000, cursor.reset().field(1).element(3).getInt(0));
+        Assert.assertEquals(1L << 40, cursor.reset().field(1).element(3).getLong(1));
+        Assert.assertEquals(new Item(1, 2), cursor.reset().field(1).element(0).decode(BasicTest.ITEM_ADAPTER));
+        Assert.assertEquals("Tom", cursor.reset().field(2).getString(0));
+        Assert.assertEquals(new Person("Tom", 20), cursor.reset().getObject(2, BasicTest.PERSON_ADAPTER));
+    }
+
+    @Test
+    public void testMissingPath() {
+        PackCursor cursor = new PackCursor(encodeData());
+
+        Assert.assertFalse(cursor.field(1).element(1).exists());
+        Assert.assertEquals(-1, cursor.getInt(0, -1));
+        Assert.assertNull(cursor.field(3).getString(0));
+        Assert.assertFalse(cursor.reset().field(5).field(1).exists());
+        Assert.assertTrue(cursor.reset().field(1).exists());
+        Assert.assertFalse(cursor.reset().contains(4));
+    }
+}
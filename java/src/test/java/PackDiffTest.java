@@ -0,0 +1,76 @@
+import io.packable.*;
+import model.Data;
+import model.Item;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class PackDiffTest {
+    private static void checkDiff(byte[] oldBytes, byte[] newBytes) {
+        byte[] delta = PackDiff.diff(oldBytes, newBytes);
+        Assert.assertArrayEquals(newBytes, PackMerge.merge(oldBytes, delta));
+    }
+
+    @Test
+    public void testSameObject() {
+        byte[] bytes = PackEncoder.encode(BasicTest.makeData("message", 10), BasicTest.DATA_ADAPTER);
+        byte[] delta = PackDiff.diff(bytes, bytes.clone());
+        Assert.assertEquals(0, delta.length);
+        Assert.assertArrayEquals(bytes, PackMerge.merge(bytes, delta));
+    }
+
+    @Test
+    public void testChangeListElement() {
+        Data data = BasicTest.makeData("message", 1000);
+        byte[] oldBytes = PackEncoder.encode(data, BasicTest.DATA_ADAPTER);
+        data.items.set(500, new Item(-1, Long.MAX_VALUE));
+        byte[] newBytes = PackEncoder.encode(data, BasicTest.DATA_ADAPTER);
+
+        byte[] delta = PackDiff.diff(oldBytes, newBytes);
+        Assert.assertTrue(delta.length < 64);
+        Assert.assertArrayEquals(newBytes, PackMerge.merge(oldBytes, delta));
+        Assert.assertEquals(data, PackDecoder.decode(PackMerge.merge(oldBytes, delta), BasicTest.DATA_ADAPTER));
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        Data data = BasicTest.makeData("message", 3);
+        byte[] oldBytes = PackEncoder.encode(data, BasicTest.DATA_ADAPTER);
+
+        data.msg = null;
+        data.items.add(null);
+        data.items.add(new Item(7, 8));
+        checkDiff(oldBytes, PackEncoder.encode(data, BasicTest.DATA_ADAPTER));
+
+        data.items.remove(0);
+        checkDiff(oldBytes, PackEncoder.encode(data, BasicTest.DATA_ADAPTER));
+
+        data.items = null;
+        checkDiff(oldBytes, PackEncoder.encode(data, BasicTest.DATA_ADAPTER));
+    }
+
+    @Test
+    public void testNonObjectValues() {
+        byte[] oldBytes = new PackEncoder()
+                .putString(0, "hello")
+                .putIntArray(1, new int[]{1, 2, 3})
+                .putStringArray(2, new String[]{"a", "b"})
+                .toBytes();
+        byte[] newBytes = new PackEncoder()
+                .putString(0, "hellO")
+                .putIntArray(1, new int[]{1, 2, 4})
+                .putStringArray(2, new String[]{"a", "c"})
+                .toBytes();
+        checkDiff(oldBytes, newBytes);
+
+        // 字段顺序不同时整体替换
+        byte[] reordered = new PackEncoder()
+                .putIntArray(1, new int[]{1, 2, 3})
+                .putString(0, "hello")
+                .toBytes();
+        checkDiff(oldBytes, reordered);
+        Assert.assertArrayEquals(oldBytes, PackMerge.merge(reordered, PackDiff.diff(reordered, oldBytes)));
+        Assert.assertEquals(Arrays.asList("a", "b"), new PackDecoder(oldBytes).getStringList(2));
+    }
+}
@@ -0,0 +1,70 @@
+import io.packable.*;
+import model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PackFilterTest {
+    private static List<Person> makePersons() {
+        List<Person> list = new ArrayList<>();
+        list.add(new Person("Tom", 20));
+        list.add(new Person("Jerry", 19));
+        list.add(null);
+        list.add(new Person("汤姆", 30));
+        list.add(new Person(null, 40));
+        list.add(new Person("Tom", 10));
+        return list;
+    }
+
+    @Test
+    public void testSelect() {
+        byte[] bytes = PackEncoder.encodeObjectList(makePersons(), BasicTest.PERSON_ADAPTER);
+
+        int[] indexes = new PackFilter().intGreaterThan(1, 19).select(bytes);
+        Assert.assertArrayEquals(new int[]{0, 3, 4}, indexes);
+
+        indexes = new PackFilter().stringEquals(0, "Tom").select(bytes);
+        Assert.assertArrayEquals(new int[]{0, 5}, indexes);
+
+        indexes = new PackFilter().stringEquals(0, null).select(bytes);
+        Assert.assertArrayEquals(new int[]{4}, indexes);
+
+        Assert.assertEquals(0, new PackFilter().select(new byte[0]).length);
+    }
+
+    @Test
+    public void testFilter() {
+        List<Person> persons = makePersons();
+        byte[] bytes = PackEncoder.encodeObjectList(persons, BasicTest.PERSON_ADAPTER);
+
+        List<Person> matched = new PackFilter()
+                .stringEquals(0, "Tom")
+                .intGreaterThan(1, 18)
+                .filter(bytes, BasicTest.PERSON_ADAPTER);
+        Assert.assertEquals(Arrays.asList(new Person("Tom", 20)), matched);
+
+        matched = new PackFilter()
+                .stringEquals(0, "汤姆")
+                .filter(bytes, BasicTest.PERSON_ADAPTER);
+        Assert.assertEquals(Arrays.asList(new Person("汤姆", 30)), matched);
+    }
+
+    @Test
+    public void testFilterField() {
+        byte[] bytes = new PackEncoder()
+                .putString(0, "persons")
+                .putObjectList(1, makePersons(), BasicTest.PERSON_ADAPTER)
+                .toBytes();
+
+        PackDecoder decoder = new PackDecoder(bytes);
+        List<Person> matched = new PackFilter()
+                .intLessThan(1, 20)
+                .filter(decoder, 1, BasicTest.PERSON_ADAPTER);
+        Assert.assertEquals(Arrays.asList(new Person("Jerry", 19), new Person("Tom", 10)), matched);
+        Assert.assertNull(new PackFilter().filter(decoder, 2, BasicTest.PERSON_ADAPTER));
+        Assert.assertEquals("persons", decoder.getString(0));
+    }
+}
@@ -0,0 +1,124 @@
+import io.packable.PackDecoder;
+import io.packable.PackFrameCodec;
+import model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class PackFrameCodecTest {
+    /**
+     * 把 WritableByteChannel 包装为 GatheringByteChannel，并记录 write 的调用次数
+     */
+    private static class CountingChannel implements GatheringByteChannel {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final WritableByteChannel channel = Channels.newChannel(out);
+        int gatheringWrites;
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            gatheringWrites++;
+            long n = 0;
+            for (int i = offset; i < offset + length; i++) {
+                n += channel.write(srcs[i]);
+            }
+            return n;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) throws IOException {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return channel.write(src);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testFrames() throws IOException {
+        int[] optionsList = {0, PackFrameCodec.VARINT_HEADER,
+                PackFrameCodec.VARINT_HEADER | PackFrameCodec.FLAGS | PackFrameCodec.CHECKSUM, PackFrameCodec.CHECKSUM};
+        Random r = new Random(1);
+        for (int options : optionsList) {
+            List<byte[]> messages = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                byte[] m = new byte[i % 50 == 0 ? 2000 + r.nextInt(30000) : r.nextInt(100)];
+                r.nextBytes(m);
+                messages.add(m);
+            }
+            PackFrameCodec writer = new PackFrameCodec(options);
+            for (int i = 0; i < messages.size(); i++) {
+                writer.add(messages.get(i), 0, messages.get(i).length, i & 0xff);
+            }
+            CountingChannel channel = new CountingChannel();
+            writer.flush(channel);
+            Assert.assertFalse(writer.hasPending());
+            Assert.assertEquals(1, channel.gatheringWrites);
+            byte[] bytes = channel.out.toByteArray();
+
+            PackFrameCodec reader = new PackFrameCodec(options);
+            List<byte[]> received = new ArrayList<>();
+            List<Integer> flags = new ArrayList<>();
+            int p = 0;
+            while (p < bytes.length) {
+                int n = Math.min(bytes.length - p, 1 + r.nextInt(5000));
+                reader.feed(ByteBuffer.wrap(bytes, p, n), (array, offset, len, f) -> {
+                    received.add(Arrays.copyOfRange(array, offset, offset + len));
+                    flags.add(f);
+                });
+                p += n;
+            }
+            Assert.assertEquals(messages.size(), received.size());
+            for (int i = 0; i < messages.size(); i++) {
+                Assert.assertArrayEquals(messages.get(i), received.get(i));
+                if ((options & PackFrameCodec.FLAGS) != 0) {
+                    Assert.assertEquals(i & 0xff, (int) flags.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEncodedObjectAndChecksum() throws IOException {
+        int options = PackFrameCodec.VARINT_HEADER | PackFrameCodec.CHECKSUM;
+        PackFrameCodec writer = new PackFrameCodec(options);
+        writer.add(new Person("frame", 18), BasicTest.PERSON_ADAPTER);
+        writer.add(new byte[0]);
+        CountingChannel channel = new CountingChannel();
+        writer.flush(channel);
+        byte[] bytes = channel.out.toByteArray();
+
+        List<Object> received = new ArrayList<>();
+        new PackFrameCodec(options).feed(ByteBuffer.wrap(bytes), (array, offset, len, f) ->
+                received.add(len == 0 ? "empty" : PackDecoder.decode(array, offset, len, BasicTest.PERSON_ADAPTER)));
+        Assert.assertEquals(Arrays.asList(new Person("frame", 18), "empty"), received);
+
+        bytes[3] ^= 1;
+        try {
+            new PackFrameCodec(options).feed(ByteBuffer.wrap(bytes), (array, offset, len, f) -> {
+            });
+            Assert.fail();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import io.packable.PackDecoder;
+import io.packable.PackEncoder;
+import io.packable.PackIncrementalDecoder;
+import io.packable.PackStreamWriter;
+import io.packable.TypeAdapter;
+import model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class PackIncrementalDecoderTest {
+    private static List<Person> persons() {
+        List<Person> list = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            // 包含长度超过 0x7fff 的元素（4 字节长度前缀）
+            builder.setLength(0);
+            int n = i % 500 == 7 ? 40000 : i % 10;
+            for (int j = 0; j < n; j++) {
+                builder.append('x');
+            }
+            list.add(i % 97 == 3 ? null : new Person("p" + i + builder, i));
+        }
+        return list;
+    }
+
+    private static List<Person> feedRandomly(PackIncrementalDecoder<Person> decoder, byte[] bytes, long seed) {
+        Random r = new Random(seed);
+        List<Person> result = new ArrayList<>();
+        int p = 0;
+        while (p < bytes.length) {
+            int n = Math.min(bytes.length - p, 1 + r.nextInt(r.nextBoolean() ? 8 : 3000));
+            ByteBuffer fragment;
+            if (r.nextBoolean()) {
+                fragment = ByteBuffer.allocateDirect(n);
+                fragment.put(bytes, p, n).flip();
+            } else {
+                fragment = ByteBuffer.wrap(bytes, p, n).slice();
+            }
+            decoder.feed(fragment, result::add);
+            Assert.assertFalse(fragment.hasRemaining());
+            p += n;
+        }
+        return result;
+    }
+
+    @Test
+    public void testObjectList() {
+        List<Person> list = persons();
+        byte[] bytes = PackEncoder.encodeObjectList(list, BasicTest.PERSON_ADAPTER);
+        for (long seed = 0; seed < 5; seed++) {
+            PackIncrementalDecoder<Person> decoder = PackIncrementalDecoder.forObjectList(BasicTest.PERSON_ADAPTER);
+            Assert.assertEquals(list, feedRandomly(decoder, bytes, seed));
+            Assert.assertTrue(decoder.isFinished());
+        }
+
+        // 前一半数据到达时，已经可以得到部分元素
+        PackIncrementalDecoder<Person> decoder = PackIncrementalDecoder.forObjectList(BasicTest.PERSON_ADAPTER);
+        List<Person> received = new ArrayList<>();
+        decoder.feed(ByteBuffer.wrap(bytes, 0, bytes.length / 2), received::add);
+        Assert.assertTrue(received.size() > 0);
+        Assert.assertFalse(decoder.isFinished());
+        Assert.assertEquals(list.subList(0, received.size()), received);
+        decoder.feed(ByteBuffer.wrap(bytes, bytes.length / 2, bytes.length - bytes.length / 2), received::add);
+        Assert.assertTrue(decoder.isFinished());
+        Assert.assertEquals(list, received);
+        try {
+            decoder.feed(ByteBuffer.wrap(new byte[]{0}), received::add);
+            Assert.fail();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    public void testStream() throws IOException {
+        List<Person> list = persons();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PackStreamWriter<Person> writer = new PackStreamWriter<>(out, BasicTest.PERSON_ADAPTER, 1000)) {
+            for (Person p : list) {
+                writer.write(p);
+            }
+        }
+        byte[] bytes = out.toByteArray();
+        for (long seed = 0; seed < 5; seed++) {
+            PackIncrementalDecoder<Person> decoder = PackIncrementalDecoder.forStream(BasicTest.PERSON_ADAPTER);
+            Assert.assertEquals(list, feedRandomly(decoder, bytes, seed));
+            Assert.assertTrue(decoder.isFinished());
+        }
+    }
+
+    @Test
+    public void testEmptyBody() throws IOException {
+        // 只编码 name, name 为 null 时元素的 body 长度为 0
+        TypeAdapter<Person> adapter = new TypeAdapter<Person>() {
+            @Override
+            public void encode(PackEncoder encoder, Person target) {
+                encoder.putString(0, target.name);
+            }
+
+            @Override
+            public Person decode(PackDecoder decoder) {
+                return new Person(decoder.getString(0), 0);
+            }
+        };
+        List<Person> list = Arrays.asList(new Person("x", 0), new Person(null, 0), new Person(null, 0));
+        byte[] bytes = PackEncoder.encodeObjectList(list, adapter);
+
+        PackIncrementalDecoder<Person> decoder = PackIncrementalDecoder.forObjectList(adapter);
+        List<Person> received = new ArrayList<>();
+        decoder.feed(ByteBuffer.wrap(bytes), received::add);
+        Assert.assertEquals(list, received);
+        Assert.assertTrue(decoder.isFinished());
+
+        // 逐字节传入，每个元素在前缀到齐时就回调
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PackStreamWriter<Person> writer = new PackStreamWriter<>(out, adapter, 1000)) {
+            for (Person p : list) {
+                writer.write(p);
+            }
+        }
+        byte[] stream = out.toByteArray();
+        decoder = PackIncrementalDecoder.forStream(adapter);
+        received.clear();
+        for (int i = 0; i < stream.length - 4; i++) {
+            decoder.feed(ByteBuffer.wrap(stream, i, 1), received::add);
+        }
+        Assert.assertEquals(list, received);
+        Assert.assertFalse(decoder.isFinished());
+        decoder.feed(ByteBuffer.wrap(stream, stream.length - 4, 4), received::add);
+        Assert.assertTrue(decoder.isFinished());
+    }
+}
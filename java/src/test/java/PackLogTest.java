@@ -0,0 +1,189 @@
+import io.packable.PackDecoder;
+import io.packable.store.PackLog;
+import model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PackLogTest {
+
+    @Test
+    public void testAppendAndRead() throws IOException {
+        File file = BasicTest.newFile(".log");
+        List<Long> positions = new ArrayList<>();
+        try (PackLog log = PackLog.open(file)) {
+            Assert.assertEquals(0, log.getTruncatedBytes());
+            for (int i = 0; i < 10000; i++) {
+                positions.add(log.append(new Person("p" + i, i), BasicTest.PERSON_ADAPTER));
+            }
+            // 读取会先写入缓冲区中的记录
+            Assert.assertEquals(new Person("p5", 5), log.read(positions.get(5), BasicTest.PERSON_ADAPTER));
+            log.append(new byte[0]);
+            log.sync();
+            Assert.assertEquals(0, log.read(log.size() - 8).length);
+        }
+
+        try (PackLog log = PackLog.open(file)) {
+            Assert.assertEquals(0, log.getTruncatedBytes());
+            List<Person> persons = new ArrayList<>();
+            List<Long> offsets = new ArrayList<>();
+            log.scan(BasicTest.PERSON_ADAPTER, (offset, p) -> {
+                offsets.add(offset);
+                persons.add(p);
+            });
+            Assert.assertEquals(10001, persons.size());
+            for (int i = 0; i < 10000; i++) {
+                Assert.assertEquals(new Person("p" + i, i), persons.get(i));
+                Assert.assertEquals(positions.get(i), offsets.get(i));
+            }
+
+            // 重新打开后继续追加
+            long p = log.append(new Person("new", 1), BasicTest.PERSON_ADAPTER);
+            int[] count = {0};
+            log.scan(p, log.size(), (offset, record) -> {
+                byte[] bytes = new byte[record.remaining()];
+                record.get(bytes);
+                Assert.assertEquals(new Person("new", 1), PackDecoder.decode(bytes, BasicTest.PERSON_ADAPTER));
+                count[0]++;
+            });
+            Assert.assertEquals(1, count[0]);
+        }
+    }
+
+    @Test
+    public void testReadAfterWrite() throws IOException {
+        File file = BasicTest.newFile(".log");
+        long size;
+        try (PackLog log = PackLog.open(file)) {
+            List<Long> positions = new ArrayList<>();
+            for (int i = 0; i < 100000; i++) {
+                long p = log.append(new Person("p" + i, i), BasicTest.PERSON_ADAPTER);
+                positions.add(p);
+                // 刚追加的记录（在缓冲区中）和较早的记录（在映射区域中）
+                Assert.assertEquals(new Person("p" + i, i), log.read(p, BasicTest.PERSON_ADAPTER));
+                int k = i * 7 / 10;
+                Assert.assertEquals(new Person("p" + k, k), log.read(positions.get(k), BasicTest.PERSON_ADAPTER));
+            }
+            size = log.size();
+            // 映射区域预留了空间
+            Assert.assertTrue(file.length() > size);
+        }
+        // 关闭时去掉预留的空间
+        Assert.assertEquals(size, file.length());
+        try (PackLog log = PackLog.open(file)) {
+            Assert.assertEquals(0, log.getTruncatedBytes());
+            Assert.assertEquals(100000, count(log));
+        }
+    }
+
+    @Test
+    public void testTornTail() throws IOException {
+        File file = BasicTest.newFile(".log");
+        long validEnd;
+        PackLog first = PackLog.open(file);
+        try {
+            for (int i = 0; i < 100; i++) {
+                first.append(new Person("p" + i, i), BasicTest.PERSON_ADAPTER);
+            }
+            validEnd = first.size();
+            first.append(new Person("torn", 100), BasicTest.PERSON_ADAPTER);
+        } finally {
+            first.close();
+        }
+        // close 已经 force，之后的 sync 直接返回
+        first.sync();
+        long fullSize = file.length();
+
+        // 最后一条记录只写入了一部分
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(fullSize - 3);
+        }
+        try (PackLog log = PackLog.open(file)) {
+            Assert.assertEquals(fullSize - 3 - validEnd, log.getTruncatedBytes());
+            Assert.assertEquals(validEnd, log.size());
+            Assert.assertEquals(100, count(log));
+            log.append(new Person("torn", 100), BasicTest.PERSON_ADAPTER);
+        }
+        Assert.assertEquals(fullSize, file.length());
+
+        // 最后一条记录的内容损坏
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(fullSize - 1);
+            int b = raf.read();
+            raf.seek(fullSize - 1);
+            raf.write(b ^ 1);
+        }
+        try (PackLog log = PackLog.open(file)) {
+            Assert.assertEquals(fullSize - validEnd, log.getTruncatedBytes());
+            Assert.assertEquals(100, count(log));
+        }
+
+        // 文件末尾被填充了 0（例如预分配的空间）
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(validEnd + 64);
+        }
+        try (PackLog log = PackLog.open(file)) {
+            Assert.assertEquals(64, log.getTruncatedBytes());
+            Assert.assertEquals(100, count(log));
+        }
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        File file = BasicTest.newFile(".log");
+        try (PackLog log = PackLog.open(file)) {
+            Thread[] threads = new Thread[8];
+            Throwable[] errors = new Throwable[threads.length];
+            for (int t = 0; t < threads.length; t++) {
+                int k = t;
+                threads[t] = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 200; i++) {
+                            log.append(new Person("t" + k, i), BasicTest.PERSON_ADAPTER);
+                            log.sync();
+                        }
+                    } catch (Throwable e) {
+                        errors[k] = e;
+                    }
+                });
+                threads[t].start();
+            }
+            for (int t = 0; t < threads.length; t++) {
+                threads[t].join();
+                Assert.assertNull(errors[t]);
+            }
+            Assert.assertEquals(1600, count(log));
+        }
+        try (PackLog log = PackLog.open(file)) {
+            int[] next = new int[8];
+            log.scan(BasicTest.PERSON_ADAPTER, (offset, p) -> {
+                int k = p.name.charAt(1) - '0';
+                Assert.assertEquals(next[k]++, p.age);
+            });
+        }
+    }
+
+    @Test
+    public void testInvalidFile() throws IOException {
+        File file = BasicTest.newFile(".log");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        }
+        try {
+            PackLog.open(file).close();
+            Assert.fail();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static int count(PackLog log) throws IOException {
+        int[] n = {0};
+        log.scan((offset, record) -> n[0]++);
+        return n[0];
+    }
+}
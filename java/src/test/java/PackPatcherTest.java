@@ -0,0 +1,67 @@
+import io.packable.*;
+import model.Data;
+import model.Item;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class PackPatcherTest {
+    @Test
+    public void testPatchInPlace() {
+        Data data = BasicTest.makeData("message", 3);
+        byte[] bytes = PackEncoder.encode(data, BasicTest.DATA_ADAPTER);
+
+        PackPatcher patcher = new PackPatcher(bytes);
+        patcher.field(1).element(2).setLong(1, 255L).setInt(0, 1);
+
+        Assert.assertSame(bytes, patcher.getBytes());
+        data.items.set(2, new Item(1, 255L));
+        Assert.assertEquals(data, PackDecoder.decode(patcher.getBytes(), BasicTest.DATA_ADAPTER));
+    }
+
+    @Test
+    public void testPatchSplice() {
+        Data data = BasicTest.makeData("message", 3);
+        byte[] bytes = PackEncoder.encode(data, BasicTest.DATA_ADAPTER);
+
+        PackPatcher patcher = new PackPatcher(bytes);
+        patcher.field(1).element(0).setLong(1, Long.MIN_VALUE).setInt(0, -1);
+        patcher.reset().field(1).element(1).setLong(1, 1L << 40);
+
+        Assert.assertNotSame(bytes, patcher.getBytes());
+        data.items.set(0, new Item(-1, Long.MIN_VALUE));
+        data.items.set(1, new Item(1, 1L << 40));
+        Assert.assertEquals(data, PackDecoder.decode(patcher.getBytes(), BasicTest.DATA_ADAPTER));
+    }
+
+    @Test
+    public void testSpliceGrowsHeader() {
+        // 列表长度接近 255 字节，拼接之后长度前缀需要从 1 字节变为 2 字节
+        Data data = BasicTest.makeData("message", 40);
+        byte[] bytes = PackEncoder.encode(data, BasicTest.DATA_ADAPTER);
+
+        PackPatcher patcher = new PackPatcher(bytes);
+        for (int i = 0; i < data.items.size(); i++) {
+            patcher.reset().field(1).element(i).setLong(1, -i);
+            data.items.set(i, new Item(i, -i));
+        }
+        patcher.reset().setInt(2, 7);
+
+        byte[] patched = patcher.getBytes();
+        Assert.assertEquals(data, PackDecoder.decode(patched, BasicTest.DATA_ADAPTER));
+        Assert.assertEquals(7, new PackDecoder(patched).getInt(2));
+    }
+
+    @Test
+    public void testPatchMissingPath() {
+        Data data = BasicTest.makeData("message", 0);
+        data.items = null;
+        byte[] bytes = PackEncoder.encode(data, BasicTest.DATA_ADAPTER);
+        PackPatcher patcher = new PackPatcher(bytes).field(1);
+        try {
+            patcher.setLong(1, 1L);
+            Assert.fail();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import io.packable.PackEncoder;
+import io.packable.store.PackStore;
+import model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class PackStoreTest {
+
+    @Test
+    public void testPutGetRemove() throws IOException {
+        File file = BasicTest.newFile(".store");
+        try (PackStore store = PackStore.open(file)) {
+            Assert.assertNull(store.get("a", BasicTest.PERSON_ADAPTER));
+            store.put("a", new Person("a", 1), BasicTest.PERSON_ADAPTER);
+            store.put("b", new Person("b", 2), BasicTest.PERSON_ADAPTER);
+            store.put("a", new Person("a", 3), BasicTest.PERSON_ADAPTER);
+            store.putBytes("中文", PackEncoder.encode(new Person("c", 4), BasicTest.PERSON_ADAPTER));
+            Assert.assertEquals(new Person("a", 3), store.get("a", BasicTest.PERSON_ADAPTER));
+            Assert.assertEquals(new Person("c", 4), store.get("中文", BasicTest.PERSON_ADAPTER));
+            Assert.assertTrue(store.remove("b"));
+            Assert.assertFalse(store.remove("b"));
+            Assert.assertFalse(store.contains("b"));
+            Assert.assertEquals(2, store.size());
+            Assert.assertTrue(store.getGarbageBytes() > 0);
+        }
+        try (PackStore store = PackStore.open(file)) {
+            Assert.assertEquals(2, store.size());
+            Assert.assertEquals(new Person("a", 3), store.get("a", BasicTest.PERSON_ADAPTER));
+            Assert.assertNull(store.getBytes("b"));
+            Assert.assertArrayEquals(PackEncoder.encode(new Person("c", 4), BasicTest.PERSON_ADAPTER),
+                    store.getBytes("中文"));
+        }
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+        File file = BasicTest.newFile(".store");
+        Map<String, Person> expected = new HashMap<>();
+        try (PackStore store = PackStore.open(file)) {
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < 1000; i++) {
+                    Person p = new Person("p" + i, round);
+                    store.put("k" + i, p, BasicTest.PERSON_ADAPTER);
+                    expected.put("k" + i, p);
+                }
+            }
+            for (int i = 0; i < 1000; i += 3) {
+                store.remove("k" + i);
+                expected.remove("k" + i);
+            }
+            long before = file.length();
+            store.compact();
+            Assert.assertEquals(0, store.getGarbageBytes());
+            Assert.assertTrue(file.length() < before / 5);
+            assertContent(store, expected);
+
+            store.put("k1", new Person("after", 1), BasicTest.PERSON_ADAPTER);
+            expected.put("k1", new Person("after", 1));
+        }
+        Assert.assertFalse(new File(file.getPath() + ".compact").exists());
+        try (PackStore store = PackStore.open(file)) {
+            assertContent(store, expected);
+        }
+    }
+
+    @Test
+    public void testBackgroundCompact() throws Exception {
+        File file = BasicTest.newFile(".store");
+        Map<String, Person> expected = new HashMap<>();
+        Random r = new Random(1);
+        long written = 0;
+        try (PackStore store = PackStore.open(file, 0.5f, 16 * 1024)) {
+            for (int i = 0; i < 50000; i++) {
+                String key = "k" + r.nextInt(200);
+                if (r.nextInt(10) == 0) {
+                    if (store.remove(key)) {
+                        written += 11 + key.length();
+                    }
+                    expected.remove(key);
+                } else {
+                    Person p = new Person("p" + i, i);
+                    store.put(key, p, BasicTest.PERSON_ADAPTER);
+                    expected.put(key, p);
+                    written += 11 + key.length() + PackEncoder.encode(p, BasicTest.PERSON_ADAPTER).length;
+                }
+                if (i % 100 == 0) {
+                    // 与后台压缩并发，压缩替换日志时 sync 不会失败
+                    store.sync();
+                }
+                if (i % 5000 == 0) {
+                    assertContent(store, expected);
+                }
+            }
+            assertContent(store, expected);
+        }
+        // 压缩在后台进行，文件小于所有写入的记录
+        Assert.assertTrue(file.length() < written);
+        try (PackStore store = PackStore.open(file)) {
+            assertContent(store, expected);
+        }
+    }
+
+    private static void assertContent(PackStore store, Map<String, Person> expected) throws IOException {
+        Assert.assertEquals(expected.size(), store.size());
+        for (Map.Entry<String, Person> entry : expected.entrySet()) {
+            Assert.assertEquals(entry.getValue(), store.get(entry.getKey(), BasicTest.PERSON_ADAPTER));
+        }
+    }
+}
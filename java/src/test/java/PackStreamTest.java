@@ -0,0 +1,93 @@
+import io.packable.PackStreamReader;
+import io.packable.PackStreamWriter;
+import model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PackStreamTest {
+    private static Person person(int i) {
+        return i % 1000 == 999 ? null : new Person("person" + i, i);
+    }
+
+    @Test
+    public void testStream() throws IOException {
+        int n = 100000;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PackStreamWriter<Person> writer = new PackStreamWriter<>(out, BasicTest.PERSON_ADAPTER, 4096)) {
+            for (int i = 0; i < n; i++) {
+                writer.write(person(i));
+            }
+        }
+        byte[] bytes = out.toByteArray();
+
+        int count = 0;
+        try (PackStreamReader<Person> reader = new PackStreamReader<>(new ByteArrayInputStream(bytes), BasicTest.PERSON_ADAPTER)) {
+            while (reader.hasNext()) {
+                Assert.assertEquals(person(count), reader.next());
+                count++;
+            }
+            Assert.assertFalse(reader.hasNext());
+        }
+        Assert.assertEquals(n, count);
+
+        // 通过 Channel 读写，结果相同
+        ByteArrayOutputStream channelOut = new ByteArrayOutputStream();
+        try (PackStreamWriter<Person> writer = new PackStreamWriter<>(Channels.newChannel(channelOut), BasicTest.PERSON_ADAPTER, 4096)) {
+            for (int i = 0; i < n; i++) {
+                writer.write(person(i));
+            }
+        }
+        Assert.assertArrayEquals(bytes, channelOut.toByteArray());
+        PackStreamReader<Person> reader = new PackStreamReader<>(
+                Channels.newChannel(new ByteArrayInputStream(bytes)), BasicTest.PERSON_ADAPTER);
+        count = 0;
+        while (reader.hasNext()) {
+            Assert.assertEquals(person(count++), reader.next());
+        }
+        Assert.assertEquals(n, count);
+    }
+
+    @Test
+    public void testFlushAndTruncate() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PackStreamWriter<Person> writer = new PackStreamWriter<>(out, BasicTest.PERSON_ADAPTER);
+        writer.write(new Person("a", 1));
+        writer.flush();
+        int flushed = out.size();
+        Assert.assertTrue(flushed > 0);
+        writer.write(new Person("b", 2));
+        writer.close();
+
+        List<Person> list = new ArrayList<>();
+        PackStreamReader<Person> reader = new PackStreamReader<>(new ByteArrayInputStream(out.toByteArray()), BasicTest.PERSON_ADAPTER);
+        while (reader.hasNext()) {
+            list.add(reader.next());
+        }
+        Assert.assertEquals(Arrays.asList(new Person("a", 1), new Person("b", 2)), list);
+
+        // 没有结束标记
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), flushed);
+        reader = new PackStreamReader<>(new ByteArrayInputStream(truncated), BasicTest.PERSON_ADAPTER);
+        Assert.assertEquals(new Person("a", 1), reader.next());
+        try {
+            reader.hasNext();
+            Assert.fail();
+        } catch (EOFException ignored) {
+        }
+
+        // 空的流
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        new PackStreamWriter<>(empty, BasicTest.PERSON_ADAPTER).close();
+        Assert.assertEquals(4, empty.size());
+        Assert.assertFalse(new PackStreamReader<>(new ByteArrayInputStream(empty.toByteArray()), BasicTest.PERSON_ADAPTER).hasNext());
+    }
+}
@@ -0,0 +1,118 @@
+import io.packable.PackDecoder;
+import io.packable.store.PackTable;
+import io.packable.store.PackTableWriter;
+import model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PackTableTest {
+
+    private static String key(int i) {
+        return String.format("key%06d", i);
+    }
+
+    @Test
+    public void testGet() throws IOException {
+        File file = BasicTest.newFile(".table");
+        // 只写入偶数，奇数用于测试不存在的 key
+        try (PackTableWriter writer = new PackTableWriter(file, 256)) {
+            for (int i = 0; i < 20000; i += 2) {
+                writer.add(key(i), new Person("p" + i, i), BasicTest.PERSON_ADAPTER);
+            }
+        }
+        try (PackTable table = PackTable.open(file)) {
+            Assert.assertEquals(10000, table.size());
+            Assert.assertTrue(table.getBlockCount() > 100);
+            for (int i = 0; i < 20000; i++) {
+                Person p = table.get(key(i), BasicTest.PERSON_ADAPTER);
+                if (i % 2 == 0) {
+                    Assert.assertEquals(new Person("p" + i, i), p);
+                } else {
+                    Assert.assertNull(p);
+                }
+            }
+            Assert.assertNull(table.getBytes(""));
+            Assert.assertNull(table.getBytes("a"));
+            Assert.assertNull(table.getBytes("key"));
+            Assert.assertNull(table.getBytes("z"));
+
+            List<String> keys = new ArrayList<>();
+            table.scan((key, value) -> {
+                byte[] bytes = new byte[value.remaining()];
+                value.get(bytes);
+                Person p = PackDecoder.decode(bytes, BasicTest.PERSON_ADAPTER);
+                Assert.assertEquals(key(p.age), key);
+                keys.add(key);
+            });
+            Assert.assertEquals(10000, keys.size());
+        }
+    }
+
+    @Test
+    public void testEmptyAndLargeValues() throws IOException {
+        File file = BasicTest.newFile(".table");
+        new PackTableWriter(file).close();
+        try (PackTable table = PackTable.open(file)) {
+            Assert.assertEquals(0, table.size());
+            Assert.assertNull(table.getBytes("a"));
+        }
+
+        byte[] large = new byte[100000];
+        large[99999] = 1;
+        try (PackTableWriter writer = new PackTableWriter(file, 64)) {
+            writer.add("a", new byte[0]);
+            writer.add("b", large);
+            writer.add("中文", new byte[]{2});
+        }
+        try (PackTable table = PackTable.open(file)) {
+            Assert.assertArrayEquals(new byte[0], table.getBytes("a"));
+            Assert.assertArrayEquals(large, table.getBytes("b"));
+            Assert.assertArrayEquals(new byte[]{2}, table.getBytes("中文"));
+            Assert.assertNull(table.getBytes("c"));
+        }
+    }
+
+    @Test
+    public void testInvalid() throws IOException {
+        File file = BasicTest.newFile(".table");
+        try (PackTableWriter writer = new PackTableWriter(file)) {
+            writer.add("b", new byte[]{1});
+            try {
+                writer.add("a", new byte[]{1});
+                Assert.fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+            try {
+                writer.add("b", new byte[]{1});
+                Assert.fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+
+        // 损坏块中的数据
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(3);
+            raf.write(9);
+        }
+        try (PackTable table = PackTable.open(file)) {
+            table.getBytes("b");
+            Assert.fail();
+        } catch (IOException ignored) {
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        try {
+            PackTable.open(file).close();
+            Assert.fail();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import io.packable.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+public class PrimitiveListTest {
+    @Test
+    public void testIntList() {
+        IntList list = new IntList();
+        for (int i = 0; i < 100; i++) {
+            list.addInt(i * 3);
+        }
+        list.add(0, -1);
+        list.remove(5);
+        list.set(1, 42);
+        Assert.assertEquals(100, list.size());
+        Assert.assertEquals(42, list.getInt(1));
+
+        List<Integer> boxed = new ArrayList<>(list);
+        Assert.assertEquals(boxed, list);
+        Assert.assertEquals(list, boxed);
+        Assert.assertEquals(boxed.hashCode(), list.hashCode());
+
+        byte[] expected = new PackEncoder().putIntArray(0, list.toIntArray()).toBytes();
+        Assert.assertArrayEquals(expected, new PackEncoder().putIntList(0, list).toBytes());
+        Assert.assertArrayEquals(expected, new PackEncoder().putIntList(0, boxed).toBytes());
+        Assert.assertArrayEquals(expected, new PackEncoder().putIntList(0, new LinkedList<>(boxed)).toBytes());
+
+        IntList decoded = new PackDecoder(expected).getIntList(0);
+        Assert.assertEquals(list, decoded);
+        Assert.assertNull(new PackDecoder(expected).getIntList(1));
+    }
+
+    @Test
+    public void testOtherLists() {
+        LongList longs = LongList.wrap(new long[]{1L, Long.MAX_VALUE, -5L});
+        FloatList floats = FloatList.wrap(new float[]{1.5f, Float.NaN});
+        DoubleList doubles = new DoubleList(4);
+        doubles.addDouble(0.25);
+        doubles.add(Double.MIN_VALUE);
+
+        byte[] bytes = new PackEncoder()
+                .putLongList(0, longs)
+                .putFloatList(1, floats)
+                .putDoubleList(2, doubles)
+                .putDoubleList(3, new DoubleList())
+                .putLongList(4, Arrays.asList(7L, 8L))
+                .toBytes();
+        PackDecoder decoder = new PackDecoder(bytes);
+        Assert.assertEquals(longs, decoder.getLongList(0));
+        Assert.assertEquals(floats, decoder.getFloatList(1));
+        Assert.assertEquals(doubles, decoder.getDoubleList(2));
+        Assert.assertTrue(decoder.getDoubleList(3).isEmpty());
+        Assert.assertEquals(Arrays.asList(7L, 8L), decoder.getLongList(4));
+    }
+
+    @Test
+    public void testAddFailFast() {
+        IntList ints = new IntList(4);
+        LongList longs = new LongList(4);
+        FloatList floats = new FloatList(4);
+        DoubleList doubles = new DoubleList(4);
+        ints.addInt(1);
+        longs.addLong(1L);
+        floats.addFloat(1f);
+        doubles.addDouble(1.0);
+
+        // 容量足够，add 不扩容，迭代器仍然要检测到修改
+        Iterator<Integer> intIt = ints.iterator();
+        ints.addInt(2);
+        assertModified(intIt);
+        Iterator<Long> longIt = longs.iterator();
+        longs.addLong(2L);
+        assertModified(longIt);
+        Iterator<Float> floatIt = floats.iterator();
+        floats.addFloat(2f);
+        assertModified(floatIt);
+        Iterator<Double> doubleIt = doubles.iterator();
+        doubles.addDouble(2.0);
+        assertModified(doubleIt);
+    }
+
+    private static void assertModified(Iterator<?> it) {
+        try {
+            it.next();
+            Assert.fail();
+        } catch (ConcurrentModificationException ignore) {
+        }
+    }
+
+    @Test
+    public void testNullElement() {
+        PackEncoder encoder = new PackEncoder().putInt(0, 1);
+        try {
+            encoder.putIntList(1, Arrays.asList(1, null, 3));
+            Assert.fail();
+        } catch (IllegalArgumentException ignore) {
+        }
+        Assert.assertArrayEquals(new PackEncoder().putInt(0, 1).toBytes(), encoder.toBytes());
+    }
+}
@@ -0,0 +1,119 @@
+import io.packable.rpc.RpcClient;
+import io.packable.rpc.RpcException;
+import io.packable.rpc.RpcServer;
+import model.Person;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class RpcTest {
+    private ExecutorService executor;
+    private RpcServer server;
+    private InetSocketAddress address;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        server = new RpcServer(executor)
+                .register("grow", BasicTest.PERSON_ADAPTER, BasicTest.PERSON_ADAPTER,
+                        p -> new Person(p.name, p.age + 1))
+                .register("fail", BasicTest.PERSON_ADAPTER, BasicTest.PERSON_ADAPTER, p -> {
+                    throw new IllegalArgumentException("bad person: " + p.name);
+                });
+        address = server.bind(new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testPipelinedCalls() throws Exception {
+        try (RpcClient client = RpcClient.connect(address)) {
+            List<CompletableFuture<Person>> futures = new ArrayList<>();
+            for (int i = 0; i < 10000; i++) {
+                futures.add(client.call("grow", new Person("p" + i, i),
+                        BasicTest.PERSON_ADAPTER, BasicTest.PERSON_ADAPTER));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                Assert.assertEquals(new Person("p" + i, i + 1), futures.get(i).get(10, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentCallers() throws Exception {
+        try (RpcClient client = RpcClient.connect(address)) {
+            Thread[] threads = new Thread[4];
+            Throwable[] errors = new Throwable[threads.length];
+            for (int t = 0; t < threads.length; t++) {
+                int k = t;
+                threads[t] = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 1000; i++) {
+                            Person p = client.call("grow", new Person("t" + k, i),
+                                    BasicTest.PERSON_ADAPTER, BasicTest.PERSON_ADAPTER).get(10, TimeUnit.SECONDS);
+                            Assert.assertEquals(new Person("t" + k, i + 1), p);
+                        }
+                    } catch (Throwable e) {
+                        errors[k] = e;
+                    }
+                });
+                threads[t].start();
+            }
+            for (int t = 0; t < threads.length; t++) {
+                threads[t].join();
+                Assert.assertNull(errors[t]);
+            }
+        }
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        try (RpcClient client = RpcClient.connect(address)) {
+            assertRpcError(client.call("fail", new Person("x", 1),
+                    BasicTest.PERSON_ADAPTER, BasicTest.PERSON_ADAPTER), "bad person: x");
+            assertRpcError(client.call("missing", new Person("x", 1),
+                    BasicTest.PERSON_ADAPTER, BasicTest.PERSON_ADAPTER), "unknown method: missing");
+            // 出错之后连接仍然可用
+            Assert.assertEquals(new Person("y", 3), client.call("grow", new Person("y", 2),
+                    BasicTest.PERSON_ADAPTER, BasicTest.PERSON_ADAPTER).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testServerClosed() throws Exception {
+        RpcClient client = RpcClient.connect(address);
+        Assert.assertEquals(new Person("a", 1), client.call("grow", new Person("a", 0),
+                BasicTest.PERSON_ADAPTER, BasicTest.PERSON_ADAPTER).get(10, TimeUnit.SECONDS));
+        server.close();
+        CompletableFuture<Person> future = client.call("grow", new Person("b", 0),
+                BasicTest.PERSON_ADAPTER, BasicTest.PERSON_ADAPTER);
+        assertRpcError(future, "connection closed");
+        client.close();
+        assertRpcError(client.call("grow", new Person("c", 0),
+                BasicTest.PERSON_ADAPTER, BasicTest.PERSON_ADAPTER), "closed");
+    }
+
+    private static void assertRpcError(CompletableFuture<?> future, String message) throws Exception {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RpcException);
+            Assert.assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains(message));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+import io.packable.PackDecoder;
+import io.packable.PackEncoder;
+import io.packable.TypeAdapter;
+import model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.Pipe;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SegmentedEncoderTest {
+    private static final TypeAdapter<List<Person>> RECORD_ADAPTER = new TypeAdapter<List<Person>>() {
+        @Override
+        public void encode(PackEncoder encoder, List<Person> target) {
+            Map<String, Integer> map = new HashMap<>();
+            for (int i = 0; i < 20; i++) {
+                map.put("k" + i, i);
+            }
+            int[] ints = new int[300];
+            for (int i = 0; i < ints.length; i++) {
+                ints[i] = i * 31;
+            }
+            encoder.putInt(0, target.size())
+                    .putString(1, "segmented encoder")
+                    .putObjectList(2, target, BasicTest.PERSON_ADAPTER)
+                    .putIntArray(3, ints)
+                    .putObject(4, target.get(0), BasicTest.PERSON_ADAPTER)
+                    .putMap(5, map)
+                    .putLong(6, Long.MAX_VALUE)
+                    .putStringArray(7, new String[]{"a", null, "c"})
+                    .putXorDoubleArray(8, new double[]{1, 1, 2, 3.5})
+                    .putIntList(20, new ArrayList<>(Arrays.asList(1, 2, 3)))
+                    .putDouble(21, 0.5);
+        }
+
+        @Override
+        public List<Person> decode(PackDecoder decoder) {
+            return decoder.getObjectList(2, BasicTest.PERSON_ADAPTER);
+        }
+    };
+
+    private static List<Person> persons(int n) {
+        List<Person> list = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            list.add(new Person("p" + i, i));
+        }
+        return list;
+    }
+
+    @Test
+    public void testSameBytes() {
+        List<Person> list = persons(200);
+        byte[] expected = PackEncoder.encode(list, RECORD_ADAPTER);
+        for (int segmentSize : new int[]{1, 16, 100, 4096}) {
+            PackEncoder encoder = PackEncoder.newSegmentedEncoder(segmentSize);
+            RECORD_ADAPTER.encode(encoder, list);
+            Assert.assertEquals(expected.length, encoder.totalSize());
+            Assert.assertArrayEquals(expected, encoder.toBytes());
+
+            encoder = PackEncoder.newSegmentedEncoder(segmentSize);
+            RECORD_ADAPTER.encode(encoder, list);
+            ByteBuffer[] buffers = encoder.toByteBuffers();
+            if (segmentSize < expected.length) {
+                Assert.assertTrue(buffers.length > 1);
+            }
+            Assert.assertArrayEquals(expected, concat(buffers));
+        }
+        Assert.assertEquals(list, PackDecoder.decode(expected, RECORD_ADAPTER));
+    }
+
+    @Test
+    public void testObjectList() throws IOException {
+        List<Person> list = persons(10000);
+        list.set(7, null);
+        byte[] expected = PackEncoder.encodeObjectList(list, BasicTest.PERSON_ADAPTER);
+        PackEncoder encoder = PackEncoder.encodeObjectListSegmented(list, BasicTest.PERSON_ADAPTER);
+        Assert.assertEquals(expected.length, encoder.totalSize());
+
+        File file = File.createTempFile("segmented", ".pack");
+        try {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                Assert.assertEquals(expected.length, encoder.writeTo(channel));
+            }
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            Assert.assertArrayEquals(expected, bytes);
+            Assert.assertEquals(list, PackDecoder.decodeObjectList(bytes, BasicTest.PERSON_ADAPTER));
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+        Assert.assertEquals(0, PackEncoder.encodeObjectListSegmented(new ArrayList<Person>(), BasicTest.PERSON_ADAPTER).totalSize());
+    }
+
+    @Test
+    public void testScalarFieldsSeal() {
+        PackEncoder encoder = PackEncoder.newSegmentedEncoder(16);
+        for (int i = 0; i < 60; i += 3) {
+            encoder.putByte(i, (byte) 1).putFloat(i + 1, 1.5f).putDouble(i + 2, 2.5);
+        }
+        ByteBuffer[] buffers = encoder.toByteBuffers();
+        Assert.assertTrue(buffers.length > 1);
+        for (ByteBuffer b : buffers) {
+            // 每个分段最多超出 segmentSize 一个字段
+            Assert.assertTrue(b.remaining() < 16 + 10);
+        }
+        PackDecoder decoder = new PackDecoder(concat(buffers));
+        Assert.assertEquals(1, decoder.getByte(57));
+        Assert.assertEquals(1.5f, decoder.getFloat(58), 0);
+        Assert.assertEquals(2.5, decoder.getDouble(59), 0);
+    }
+
+    @Test
+    public void testWriteToNonBlocking() throws IOException {
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.sink().configureBlocking(false);
+            PackEncoder encoder = new PackEncoder().putInt(0, 1);
+            try {
+                encoder.writeTo(pipe.sink());
+                Assert.fail();
+            } catch (IllegalBlockingModeException ignore) {
+            }
+            // 拒绝之后 Encoder 仍然可用
+            Assert.assertArrayEquals(new PackEncoder().putInt(0, 1).toBytes(), encoder.toBytes());
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+
+    private static byte[] concat(ByteBuffer[] buffers) {
+        int total = 0;
+        for (ByteBuffer b : buffers) {
+            total += b.remaining();
+        }
+        ByteBuffer out = ByteBuffer.allocate(total);
+        for (ByteBuffer b : buffers) {
+            out.put(b);
+        }
+        return out.array();
+    }
+}
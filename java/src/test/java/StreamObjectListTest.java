@@ -0,0 +1,52 @@
+import io.packable.PackDecoder;
+import io.packable.PackEncoder;
+import model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+public class StreamObjectListTest {
+    @Test
+    public void testStreamObjectList() {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            persons.add(i % 101 == 0 ? null : new Person("name" + i, i));
+        }
+        byte[] bytes = PackEncoder.encodeObjectList(persons, BasicTest.PERSON_ADAPTER);
+
+        List<Person> sequential = PackDecoder.streamObjectList(bytes, BasicTest.PERSON_ADAPTER, false)
+                .collect(Collectors.toList());
+        Assert.assertEquals(persons, sequential);
+
+        List<Person> parallel = PackDecoder.streamObjectList(bytes, BasicTest.PERSON_ADAPTER, true)
+                .collect(Collectors.toList());
+        Assert.assertEquals(persons, parallel);
+
+        long expectedSum = 0;
+        for (Person p : persons) {
+            if (p != null && p.age % 3 == 0) {
+                expectedSum += p.age;
+            }
+        }
+        long sum = PackDecoder.streamObjectList(bytes, BasicTest.PERSON_ADAPTER, true)
+                .filter(Objects::nonNull)
+                .filter(p -> p.age % 3 == 0)
+                .mapToLong(p -> p.age)
+                .sum();
+        Assert.assertEquals(expectedSum, sum);
+
+        // 短路操作只通过 tryAdvance 遍历一部分元素
+        Assert.assertEquals(persons.get(1), PackDecoder.streamObjectList(bytes, BasicTest.PERSON_ADAPTER, false)
+                .filter(Objects::nonNull).findFirst().orElse(null));
+        Assert.assertTrue(PackDecoder.streamObjectList(bytes, BasicTest.PERSON_ADAPTER, true)
+                .anyMatch(p -> p != null && p.age == 5000));
+        Assert.assertEquals(persons.subList(0, 5), PackDecoder.streamObjectList(bytes, BasicTest.PERSON_ADAPTER, false)
+                .limit(5).collect(Collectors.toList()));
+
+        Assert.assertEquals(0, PackDecoder.streamObjectList(new byte[0], BasicTest.PERSON_ADAPTER, true).count());
+    }
+}
@@ -0,0 +1,68 @@
+import io.packable.PackDecoder;
+import io.packable.PackEncoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class XorArrayTest {
+    @Test
+    public void testXorDoubleArray() {
+        Random r = new Random(1);
+        double[] series = new double[10000];
+        double v = 100;
+        for (int i = 0; i < series.length; i++) {
+            // 变化缓慢的整数指标，部分值重复
+            if (r.nextInt(4) != 0) {
+                v += r.nextInt(5) - 2;
+            }
+            series[i] = v;
+        }
+        double[] special = {0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.MIN_VALUE,
+                Double.MAX_VALUE, 1.5, 1.5, -3.25};
+        PackEncoder encoder = new PackEncoder();
+        encoder.putXorDoubleArray(0, series)
+                .putXorDoubleArray(1, special)
+                .putXorDoubleArray(2, new double[0])
+                .putXorDoubleArray(3, new double[]{42.0})
+                .putXorDoubleArray(4, null);
+        byte[] bytes = encoder.toBytes();
+        Assert.assertTrue("size " + bytes.length, bytes.length < series.length * 8 / 4);
+
+        PackDecoder decoder = new PackDecoder(bytes);
+        assertBitsEquals(series, decoder.getXorDoubleArray(0));
+        assertBitsEquals(special, decoder.getXorDoubleArray(1));
+        Assert.assertEquals(0, decoder.getXorDoubleArray(2).length);
+        assertBitsEquals(new double[]{42.0}, decoder.getXorDoubleArray(3));
+        Assert.assertNull(decoder.getXorDoubleArray(4));
+    }
+
+    @Test
+    public void testXorFloatArray() {
+        Random r = new Random(2);
+        float[] series = new float[1000];
+        for (int i = 0; i < series.length; i++) {
+            series[i] = i % 10 == 0 ? r.nextFloat() : 20f + (i % 7) * 0.25f;
+        }
+        float[] special = {0f, -0f, Float.NaN, Float.NEGATIVE_INFINITY, Float.MIN_VALUE, 7f};
+        PackEncoder encoder = new PackEncoder();
+        encoder.putXorFloatArray(0, series).putXorFloatArray(1, special);
+        PackDecoder decoder = new PackDecoder(encoder.toBytes());
+        float[] a = decoder.getXorFloatArray(0);
+        float[] b = decoder.getXorFloatArray(1);
+        Assert.assertEquals(series.length, a.length);
+        for (int i = 0; i < series.length; i++) {
+            Assert.assertEquals(Float.floatToRawIntBits(series[i]), Float.floatToRawIntBits(a[i]));
+        }
+        for (int i = 0; i < special.length; i++) {
+            Assert.assertEquals(Float.floatToRawIntBits(special[i]), Float.floatToRawIntBits(b[i]));
+        }
+    }
+
+    private static void assertBitsEquals(double[] expected, double[] actual) {
+        Assert.assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(actual[i]));
+        }
+    }
+}